@@ -0,0 +1,77 @@
+package game.benchmark;
+
+import game.Board;
+import game.heuristic.IHeuristic;
+import game.search.SearchMethodFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo das estimativas de movimentos restantes: a avaliação original do
+ * tabuleiro e as estimativas de {@link SearchMethodFactory#selectHeuristic(int)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicBenchmark {
+
+    /** Opção da estimativa: 1 Manhattan, 2 conflitos lineares, 3 bases de dados de padrões. */
+    @Param({"1", "2", "3"})
+    public int heuristic;
+
+    /** Estimativa medida. */
+    private IHeuristic estimator;
+    /** Tabuleiros medidos. */
+    private Board[] boards;
+    /** Próximo tabuleiro medido. */
+    private int next;
+
+    @Setup
+    public void setup() {
+        this.estimator = SearchMethodFactory.selectHeuristic(this.heuristic);
+        this.boards = PuzzleCorpus.boards(16);
+    }
+
+    /**
+     * Calcula a estimativa completa de um estado.
+     * @return a estimativa.
+     */
+    @Benchmark
+    public int estimate() {
+        return this.estimator.estimate(this.nextBoard().getState());
+    }
+
+    /**
+     * Calcula a avaliação original do tabuleiro, que independe da estimativa
+     * selecionada.
+     * @return a avaliação.
+     */
+    @Benchmark
+    public double evaluateBoard() {
+        return this.nextBoard().evaluateBoard();
+    }
+
+    /**
+     * Retorna o próximo tabuleiro do conjunto, em rodízio.
+     * @return o próximo tabuleiro.
+     */
+    private Board nextBoard() {
+        Board result = this.boards[this.next];
+        this.next = (this.next + 1) % this.boards.length;
+        return result;
+    }
+
+}
@@ -0,0 +1,95 @@
+package game.benchmark;
+
+import game.Board;
+import game.BoardGameMoveEnum;
+import game.BoardLayout;
+import game.BoardMoving;
+import game.BoardState;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Vazão da geração de movimentos e da cópia de tabuleiros.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+
+    /** Movimentos possíveis, sem o desconhecido. */
+    private static final BoardGameMoveEnum[] MOVES = {
+        BoardGameMoveEnum.UP, BoardGameMoveEnum.LEFT, BoardGameMoveEnum.RIGHT, BoardGameMoveEnum.DOWN};
+
+    /** Tabuleiros medidos. */
+    private Board[] boards;
+    /** Próximo tabuleiro medido. */
+    private int next;
+
+    @Setup
+    public void setup() {
+        this.boards = PuzzleCorpus.boards(16);
+    }
+
+    /**
+     * Gera todos os filhos de um tabuleiro.
+     * @param blackhole Consumidor dos resultados.
+     */
+    @Benchmark
+    public void moveTo(Blackhole blackhole) {
+        Board board = this.nextBoard();
+        for (BoardGameMoveEnum movement : MOVES) {
+            blackhole.consume(BoardMoving.moveTo(movement, board));
+        }
+    }
+
+    /**
+     * Gera todos os filhos do estado compactado de um tabuleiro pelas tabelas
+     * de movimentos válidos, como fazem os laços das buscas.
+     * @param blackhole Consumidor dos resultados.
+     */
+    @Benchmark
+    public void packedMoves(Blackhole blackhole) {
+        Board board = this.nextBoard();
+        BoardLayout layout = board.getLayout();
+        long state = board.getState();
+        int blank = board.getBlankIndex();
+        int[] targets = layout.targets(blank);
+        long[] deltas = layout.deltas(blank);
+        for (int i = 0; i < targets.length; i++) {
+            blackhole.consume(BoardState.swap(state, targets[i], deltas[i]));
+        }
+    }
+
+    /**
+     * Copia um tabuleiro.
+     * @return a cópia.
+     */
+    @Benchmark
+    public Board copy() {
+        return new Board(this.nextBoard());
+    }
+
+    /**
+     * Retorna o próximo tabuleiro do conjunto, em rodízio.
+     * @return o próximo tabuleiro.
+     */
+    private Board nextBoard() {
+        Board result = this.boards[this.next];
+        this.next = (this.next + 1) % this.boards.length;
+        return result;
+    }
+
+}
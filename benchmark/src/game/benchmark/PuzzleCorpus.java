@@ -0,0 +1,79 @@
+package game.benchmark;
+
+import game.Board;
+import game.BoardLayout;
+import game.BoardState;
+import game.heuristic.DistanceTable;
+import java.util.Random;
+
+/**
+ * Conjunto fixo de tabuleiros 3x3 usado pelos benchmarks.
+ * <p>
+ * Os tabuleiros são sorteados a partir de uma semente fixa e separados pela
+ * distância exata até o resultado esperado, consultada na
+ * {@link DistanceTable}, de forma que todas as execuções medem exatamente os
+ * mesmos tabuleiros em cada nível de dificuldade.
+ */
+public final class PuzzleCorpus {
+
+    /** Semente do sorteio dos tabuleiros. */
+    public static final long SEED = 20240601L;
+    /** Quantidade de tabuleiros por nível de dificuldade. */
+    public static final int SIZE = 64;
+
+    /** Distâncias exatas de todos os estados 3x3. */
+    private static final DistanceTable TABLE = new DistanceTable();
+
+    private PuzzleCorpus() {
+    }
+
+    /**
+     * Retorna os tabuleiros de um nível de dificuldade. Os benchmarks usam os
+     * níveis 8, 16 e 24; níveis extremos têm poucos estados e repetem
+     * tabuleiros.
+     * @param distance Distância exata até o resultado esperado, entre 1 e 31.
+     * @return os tabuleiros do nível, sempre os mesmos.
+     */
+    public static Board[] boards(int distance) {
+        BoardLayout layout = BoardLayout.DEFAULT;
+        Random random = new Random(SEED + distance);
+        Board[] result = new Board[SIZE];
+        int count = 0;
+        int[] tiles = new int[layout.getCells()];
+        while (count < SIZE) {
+            // Embaralha as peças (Fisher-Yates) com a semente fixa
+            for (int i = 0; i < tiles.length; i++) {
+                tiles[i] = i;
+            }
+            for (int i = tiles.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = tiles[i];
+                tiles[i] = tiles[j];
+                tiles[j] = swap;
+            }
+            long state = 0L;
+            for (int index = 0; index < tiles.length; index++) {
+                state = BoardState.withTile(state, index, tiles[index]);
+            }
+            if (TABLE.distance(state) == distance) {
+                result[count++] = new Board(layout.unpack(state), layout);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retorna os estados compactados de um nível de dificuldade.
+     * @param distance Distância exata até o resultado esperado, entre 1 e 31.
+     * @return os estados do nível, sempre os mesmos.
+     */
+    public static long[] states(int distance) {
+        Board[] boards = boards(distance);
+        long[] result = new long[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            result[i] = boards[i].getState();
+        }
+        return result;
+    }
+
+}
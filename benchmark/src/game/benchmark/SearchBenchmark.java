@@ -0,0 +1,109 @@
+package game.benchmark;
+
+import game.Board;
+import game.search.ISearchMethod;
+import game.search.SearchMethodFactory;
+import game.search.SearchMetrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Solução completa de tabuleiros por cada opção de
+ * {@link SearchMethodFactory#selectMethod(int, game.heuristic.IHeuristic, int)},
+ * em três níveis de dificuldade. Os métodos heurísticos usam a distância de
+ * Manhattan e os paralelos usam duas threads. A busca em disco grava os seus
+ * arquivos em um diretório temporário, removido ao final.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    /** Quantidade de threads dos métodos paralelos. */
+    private static final int PARALLELISM = 2;
+
+    /** Opção do método de busca. */
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10"})
+    public int method;
+
+    /** Distância exata dos tabuleiros até o resultado esperado. */
+    @Param({"8", "16", "24"})
+    public int distance;
+
+    /** Método de busca medido. */
+    private ISearchMethod searchMethod;
+    /** Tabuleiros medidos. */
+    private Board[] boards;
+    /** Próximo tabuleiro medido. */
+    private int next;
+    /** Diretório dos arquivos da busca em disco. */
+    private Path directory;
+    /** Diretório original da busca em disco, restaurado ao final. */
+    private String externalDirectory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // A busca em disco lê o diretório dos arquivos ao ser criada
+        this.directory = Files.createTempDirectory("game-benchmark");
+        this.externalDirectory = System.getProperty("game.externalDirectory");
+        System.setProperty("game.externalDirectory", this.directory.toString());
+        this.searchMethod = SearchMethodFactory.selectMethod(this.method,
+                SearchMethodFactory.selectHeuristic(1), PARALLELISM);
+        this.boards = PuzzleCorpus.boards(this.distance);
+        // O relatório de cada busca não é escrito durante as medições
+        SearchMetrics.unregister(SearchMetrics.CONSOLE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SearchMetrics.register(SearchMetrics.CONSOLE);
+        if (null == this.externalDirectory) {
+            System.clearProperty("game.externalDirectory");
+        } else {
+            System.setProperty("game.externalDirectory", this.externalDirectory);
+        }
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    /**
+     * Soluciona o próximo tabuleiro do conjunto.
+     * @return a sequência de tabuleiros da solução.
+     */
+    @Benchmark
+    public Map<Integer, Board> executeSearch() {
+        Board board = this.boards[this.next];
+        this.next = (this.next + 1) % this.boards.length;
+        return this.searchMethod.executeSearch(board);
+    }
+
+}
@@ -1,42 +1,63 @@
 package game;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Classe de controle do jogo.
+ * <p>
+ * O estado das peças é mantido compactado em um {@code long} (ver
+ * {@link BoardState}); a matriz {@code int[][]} é montada apenas quando
+ * solicitada. As dimensões e o resultado esperado ficam em
+ * {@link BoardLayout}, 3x3 por padrão. Tabuleiros com mais de 16 casas
+ * guardam o estado largo, lido por {@link #getWideState()}.
  */
 public final class Board {
 
-    /** Chave para campo que armazena o valor da coluna do bloco branco. */
-    private static final String BLANK_COLUMN = "blankColumn";
-    /** Chave para campo que armazena o valor da linha do bloco branco. */
-    private static final String BLANK_ROW = "blankRow";
     /** Resultado esperado. */
     public static final int[][] RESULT = {{1, 4, 7}, {2, 5, 8}, {3, 6, 0}};
+    /** Resultado esperado compactado. */
+    public static final long RESULT_STATE = BoardLayout.DEFAULT.getGoal();
 
+    /** Dimensões e resultado esperado do tabuleiro. */
+    private final BoardLayout layout;
     /** Identificador único do Tabuleiro. */
-    private Long boardId;
-    /** Identificador do Tabuleiro que gerou esse. */
-    private Long parentBoardId = null;
-    /** Estado do board. */
-    private final int[][] board = new int[3][3];
-    /** Posição da posição do quadrado branco. */
-    private final Map<String, Integer> blankPosition = new HashMap<>();
+    private long boardId;
+    /** Identificador do Tabuleiro que gerou esse, -1 quando não houver. */
+    private long parentBoardId = -1L;
+    /** Estado do board compactado. */
+    private long state;
+    /** Estado largo dos tabuleiros com mais de 16 casas, nulo nos compactos. */
+    private long[] wideState;
+    /** Índice da casa do quadrado branco. */
+    private byte blankIndex;
     /** Quantidade de movimentações que o quadro recebeu. */
-    private Integer moves = 0;
+    private int moves;
     /** Armazena o último movimento feito no tabuleiro. */
     private BoardGameMoveEnum lastMove = BoardGameMoveEnum.UNKNOWN;
     /** Pontuação do tabuleiro de acordo com o posicionamento das peças. */
-    private Double score = 0D;
+    private double score;
+    /** Estimativa de movimentos restantes até o resultado esperado. */
+    private int estimate;
 
     /**
      * Classe de controle do jogo.
      */
     public Board() {
+        this(BoardLayout.DEFAULT);
+    }
+
+    /**
+     * Classe de controle do jogo, com as peças em posições aleatórias. Apenas
+     * tabuleiros solucionáveis são gerados.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     */
+    public Board(BoardLayout layout) {
+        this.layout = layout;
+        if (!layout.isCompact()) {
+            this.wideState = new long[BoardState.wideLength(layout.getCells())];
+        }
         this.initializeBoard();
     }
 
@@ -45,9 +66,21 @@ public final class Board {
      * @param board Estado inicial do jogo.
      */
     public Board(int[][] board) {
-        // Realiza processo de cópia sem referência para o jogo
-        for (int i = 0; i < board.length; i++) {
-            this.board[i] = board[i].clone();
+        this(board, BoardLayout.of(board.length, board[0].length));
+    }
+
+    /**
+     * Classe de controle do jogo.
+     * @param board  Estado inicial do jogo.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     */
+    public Board(int[][] board, BoardLayout layout) {
+        this.layout = layout;
+        // Compacta o estado recebido, sem manter referência para o jogo
+        if (layout.isCompact()) {
+            this.state = layout.pack(board);
+        } else {
+            this.wideState = layout.packWide(board);
         }
         // Busca onde está o campo vazio
         this.findEmpty();
@@ -58,112 +91,180 @@ public final class Board {
      * @param newBoard Objeto para cópia.
      */
     public Board(Board newBoard) {
-        // Realiza processo de cópia sem referência para o jogo
-        for (int i = 0; i < newBoard.getBoard().length; i++) {
-            this.board[i] = newBoard.getBoard()[i].clone();
-        }
-        this.blankPosition.putAll(newBoard.getBlankPosition());
-        this.moves = Integer.valueOf(newBoard.getMoves().intValue());
+        this.layout = newBoard.layout;
+        this.state = newBoard.state;
+        this.wideState = null == newBoard.wideState ? null : newBoard.wideState.clone();
+        this.blankIndex = newBoard.blankIndex;
+        this.moves = newBoard.moves;
+    }
+
+    /**
+     * Classe de controle do jogo a partir de um estado compactado.
+     * @param layout     Dimensões e resultado esperado do tabuleiro.
+     * @param state      Estado compactado.
+     * @param blankIndex Índice da casa do quadrado branco.
+     * @param moves      Quantidade de movimentações.
+     * @param lastMove   Último movimento executado.
+     */
+    Board(BoardLayout layout, long state, int blankIndex, int moves, BoardGameMoveEnum lastMove) {
+        this.layout = layout;
+        this.state = state;
+        this.blankIndex = (byte) blankIndex;
+        this.moves = moves;
+        this.lastMove = lastMove;
     }
 
     /**
-     * Inicializa o jogo de forma aleatória.
+     * Classe de controle do jogo a partir de um estado largo.
+     * @param layout     Dimensões e resultado esperado do tabuleiro.
+     * @param wideState  Estado largo, mantido sem cópia.
+     * @param blankIndex Índice da casa do quadrado branco.
+     * @param moves      Quantidade de movimentações.
+     * @param lastMove   Último movimento executado.
+     */
+    Board(BoardLayout layout, long[] wideState, int blankIndex, int moves, BoardGameMoveEnum lastMove) {
+        this.layout = layout;
+        this.wideState = wideState;
+        this.blankIndex = (byte) blankIndex;
+        this.moves = moves;
+        this.lastMove = lastMove;
+    }
+
+    /**
+     * Inicializa o jogo de forma aleatória, sempre com uma posição
+     * solucionável.
      */
     private void initializeBoard() {
         // Inicializa lista de valores que ja foram inseridos no jogo
         Set<Integer> valuesGone = new HashSet<>();
-        // Inicializa iterador sobre as linhas do jogo
-        for (int row = 0; row < board.length; row++) {
-            // Inicializa iterador sobre as colunas do jogo
-            for (int column = 0; column < board.length; column++) {
-                // Recupera um valor aleatório entre 0 e 8, incluídos
-                int randomValue = ThreadLocalRandom.current().nextInt(0, 8);
-                // Verifica se o valor recuperado já foi sorteado
-                while (valuesGone.contains(randomValue)) {
-                    // Recupera novo valor aleatório
-                    randomValue = ThreadLocalRandom.current().nextInt(0, 8 + 1);
-                }
-                // Adiciona o valor na lista de valores que ja foram escolhidos
-                valuesGone.add(randomValue);
-                // Adiciona o valor na coluna e linha da vez
-                this.board[column][row] = randomValue;
-                // Verifica se o valor selecionado é o quadrado vazio, ou zero.
-                if (randomValue == 0) {
-                    // Armazena as informações no objeto de localização do quadrado vazio
-                    blankPosition.put(BLANK_ROW, row);
-                    blankPosition.put(BLANK_COLUMN, column);
-                }
+        // Inicializa iterador sobre as casas do jogo
+        for (int index = 0; index < this.layout.getCells(); index++) {
+            // Recupera um valor aleatório entre 0 e a última peça, incluídos
+            int randomValue = ThreadLocalRandom.current().nextInt(0, this.layout.getCells());
+            // Verifica se o valor recuperado já foi sorteado
+            while (valuesGone.contains(randomValue)) {
+                // Recupera novo valor aleatório
+                randomValue = ThreadLocalRandom.current().nextInt(0, this.layout.getCells());
+            }
+            // Adiciona o valor na lista de valores que ja foram escolhidos
+            valuesGone.add(randomValue);
+            // Adiciona o valor na casa da vez
+            this.setTile(index, randomValue);
+            // Verifica se o valor selecionado é o quadrado vazio, ou zero.
+            if (randomValue == 0) {
+                this.blankIndex = (byte) index;
             }
         }
+        // Metade das permutações não tem solução: trocar duas peças inverte a paridade
+        if (!this.isSolvable()) {
+            int first = this.blankIndex == 0 ? 1 : 0;
+            int second = this.blankIndex == first + 1 ? first + 2 : first + 1;
+            int tile = this.tileAt(first);
+            this.setTile(first, this.tileAt(second));
+            this.setTile(second, tile);
+        }
+    }
+
+    /**
+     * Retorna a peça de uma casa, no estado compactado ou no largo.
+     * @param index Índice da casa.
+     * @return a peça da casa.
+     */
+    private int tileAt(int index) {
+        return null == this.wideState ? BoardState.tileAt(this.state, index)
+                : BoardState.tileAt(this.wideState, index);
+    }
+
+    /**
+     * Substitui a peça de uma casa, no estado compactado ou no largo.
+     * @param index Índice da casa.
+     * @param tile  Nova peça.
+     */
+    private void setTile(int index, int tile) {
+        if (null == this.wideState) {
+            this.state = BoardState.withTile(this.state, index, tile);
+        } else {
+            BoardState.setTile(this.wideState, index, tile);
+        }
     }
 
     /**
      * Busca a posição do quadrado vazio.
      */
     protected void findEmpty() {
-        // Inicializa iterador sobre as linhas do jogo
-        for (int row = 0; row < board.length; row++) {
-            // Inicializa iterador sobre as colunas do jogo
-            for (int column = 0; column < board.length; column++) {
-                // Adiciona o valor na coluna e linha da vez
-                int value = this.board[column][row];
-                // Verifica se o valor selecionado é o quadrado vazio, ou zero.
-                if (value == 0) {
-                    // Armazena as informações no objeto de localização do quadrado vazio
-                    blankPosition.put(BLANK_ROW, row);
-                    blankPosition.put(BLANK_COLUMN, column);
-                }
-            }
-        }
+        this.blankIndex = (byte) (null == this.wideState ? this.layout.findBlank(this.state)
+                : this.layout.findBlank(this.wideState));
     }
 
     /**
      * Avalia o estado do tabuleiro e retorna a pontuação dele.
      * @return o estado do tabuleiro e retorna a pontuação dele.
      */
-    public Double evaluateBoard() {
-        Double result = 0D;
+    public double evaluateBoard() {
+        double result = 0D;
         // Inicializa iterador sobre as linhas do jogo
-        for (int row = 0; row < board.length; row++) {
+        for (int row = 0; row < this.layout.getHeight(); row++) {
             // Inicializa iterador sobre as colunas do jogo
-            for (int column = 0; column < board.length; column++) {
+            for (int column = 0; column < this.layout.getWidth(); column++) {
+                int expected = this.layout.goalTile(this.layout.index(row, column));
                 // Verifica se valor está na posição
-                if (this.board[column][row] == RESULT[column][row]) {
+                if (this.tileAt(row, column) == expected) {
                     result += 1D;
                     // Senão verifica se está dos lados
-                } else if ((row > 0 && this.board[column][row - 1] == RESULT[column][row])
-                        || (row < (board.length - 1) && this.board[column][row + 1] == RESULT[column][row])
-                        || (column > 0 && this.board[column - 1][row] == RESULT[column][row])
-                        || (column < (board.length - 1) && this.board[column + 1][row] == RESULT[column][row])) {
+                } else if (this.tileAt(row - 1, column) == expected
+                        || this.tileAt(row + 1, column) == expected
+                        || this.tileAt(row, column - 1) == expected
+                        || this.tileAt(row, column + 1) == expected) {
                     result += 0.5D;
                     // Senão verifica se está nas diagonais
-                } else if ((column > 0 && row > 0 && this.board[column - 1][row - 1] == RESULT[column][row])
-                        || (column > 0 && row < (board.length - 1) && this.board[column - 1][row + 1] == RESULT[column][row])
-                        || (column < (board.length - 1) && row > 0 && this.board[column + 1][row - 1] == RESULT[column][row])
-                        || (column < (board.length - 1) && row < (board.length - 1) && this.board[column + 1][row + 1] == RESULT[column][row])) {
+                } else if (this.tileAt(row - 1, column - 1) == expected
+                        || this.tileAt(row + 1, column - 1) == expected
+                        || this.tileAt(row - 1, column + 1) == expected
+                        || this.tileAt(row + 1, column + 1) == expected) {
                     result += 0.25D;
                 }
             }
         }
         this.score = result;
-        this.toString();
         return result;
     }
 
     /**
-     * Retorna a linha posição do bloco branco.
-     * @return a linha posição do bloco branco.
+     * Retorna a peça em uma posição do tabuleiro.
+     * @param row    Linha da posição.
+     * @param column Coluna da posição.
+     * @return a peça na posição, ou -1 se estiver fora do tabuleiro.
      */
-    public int getBlankRowPosition() {
-        return this.blankPosition.get(BLANK_ROW);
+    private int tileAt(int row, int column) {
+        if (row < 0 || row >= this.layout.getHeight() || column < 0 || column >= this.layout.getWidth()) {
+            return -1;
+        }
+        return this.tileAt(this.layout.index(row, column));
     }
 
     /**
-     * Determina a linha posição do bloco branco.
-     * @param value a linha posição do bloco branco.
+     * Verifica se o tabuleiro está no estado esperado.
+     * @return Indicador de tabuleiro no estado esperado.
      */
-    public void setBlankRowPosition(int value) {
-        this.blankPosition.put(BLANK_ROW, value);
+    public boolean isResult() {
+        return null == this.wideState ? this.state == this.layout.getGoal() : this.layout.isGoal(this.wideState);
+    }
+
+    /**
+     * Verifica se o resultado esperado pode ser alcançado a partir do
+     * tabuleiro.
+     * @return Indicador de tabuleiro solucionável.
+     */
+    public boolean isSolvable() {
+        return null == this.wideState ? this.layout.isSolvable(this.state) : this.layout.isSolvable(this.wideState);
+    }
+
+    /**
+     * Retorna a linha posição do bloco branco.
+     * @return a linha posição do bloco branco.
+     */
+    public int getBlankRowPosition() {
+        return this.layout.row(this.blankIndex);
     }
 
     /**
@@ -171,15 +272,15 @@ public final class Board {
      * @return a coluna posição do bloco branco.
      */
     public int getBlankColumnPosition() {
-        return this.blankPosition.get(BLANK_COLUMN);
+        return this.layout.column(this.blankIndex);
     }
 
     /**
-     * Retorna a coluna posição do bloco branco.
-     * @param value a coluna posição do bloco branco.
+     * Retorna o índice da casa do bloco branco.
+     * @return o índice da casa do bloco branco.
      */
-    public void setBlankColumnPosition(int value) {
-        this.blankPosition.put(BLANK_COLUMN, value);
+    public int getBlankIndex() {
+        return this.blankIndex;
     }
 
     /**
@@ -187,7 +288,7 @@ public final class Board {
      * @return Indicador do bloco branco está o mais à direita possível.
      */
     public boolean isBlankMostRight() {
-        return this.getBlankColumnPosition() == this.board.length - 1;
+        return this.getBlankColumnPosition() == this.layout.getWidth() - 1;
     }
 
     /**
@@ -211,14 +312,14 @@ public final class Board {
      * @return Indicador do bloco branco está o mais em baixo possível.
      */
     public boolean isBlankMostBottom() {
-        return this.getBlankRowPosition() == this.board.length - 1;
+        return this.getBlankRowPosition() == this.layout.getHeight() - 1;
     }
 
     /**
      * Retorna o Identificador do Tabuleiro.
      * @return o Identificador do Tabuleiro.
      */
-    public Long getBoardId() {
+    public long getBoardId() {
         return boardId;
     }
 
@@ -226,15 +327,15 @@ public final class Board {
      * Determina o Identificador do Tabuleiro.
      * @param boardId o Identificador do Tabuleiro.
      */
-    public void setBoardId(Long boardId) {
+    public void setBoardId(long boardId) {
         this.boardId = boardId;
     }
 
     /**
      * Retorna o identificador do tabuleiro que o gerou.
-     * @return o identificador do tabuleiro que o gerou.
+     * @return o identificador do tabuleiro que o gerou, -1 quando não houver.
      */
-    public Long getParentBoardId() {
+    public long getParentBoardId() {
         return parentBoardId;
     }
 
@@ -242,31 +343,56 @@ public final class Board {
      * Determina o identificador do tabuleiro que o gerou.
      * @param parentBoardId o identificador do tabuleiro que o gerou.
      */
-    public void setParentBoardId(Long parentBoardId) {
+    public void setParentBoardId(long parentBoardId) {
         this.parentBoardId = parentBoardId;
     }
 
     /**
-     * Retorna o tabuleiro.
+     * Retorna uma cópia do tabuleiro no formato {@code board[coluna][linha]}.
      * @return o tabuleiro.
      */
     public int[][] getBoard() {
-        return board;
+        return null == this.wideState ? this.layout.unpack(this.state) : this.layout.unpack(this.wideState);
+    }
+
+    /**
+     * Retorna as dimensões e o resultado esperado do tabuleiro.
+     * @return as dimensões e o resultado esperado do tabuleiro.
+     */
+    public BoardLayout getLayout() {
+        return layout;
     }
 
     /**
-     * Retorna a posição do quadrado branco.
-     * @return a posição do quadrado branco.
+     * Retorna o estado compactado do tabuleiro, apenas para tabuleiros
+     * compactos (ver {@link BoardLayout#isCompact()}).
+     * @return o estado compactado do tabuleiro.
      */
-    public Map<String, Integer> getBlankPosition() {
-        return blankPosition;
+    public long getState() {
+        if (null != this.wideState) {
+            throw new IllegalStateException("Tabuleiro " + this.layout + " não cabe no estado compactado:"
+                    + " use o estado largo");
+        }
+        return state;
+    }
+
+    /**
+     * Retorna o estado largo do tabuleiro, apenas para tabuleiros com mais de
+     * 16 casas.
+     * @return uma cópia do estado largo do tabuleiro.
+     */
+    public long[] getWideState() {
+        if (null == this.wideState) {
+            throw new IllegalStateException("Tabuleiro " + this.layout + " usa o estado compactado");
+        }
+        return this.wideState.clone();
     }
 
     /**
      * Retorna a quantidade de movimentos executadas no quadro.
      * @return a quantidade de movimentos executadas no quadro.
      */
-    public Integer getMoves() {
+    public int getMoves() {
         return moves;
     }
 
@@ -274,7 +400,7 @@ public final class Board {
      * Determina a quantidade de movimentos executadas no quadro.
      * @param moves a quantidade de movimentos executadas no quadro.
      */
-    public void setMoves(Integer moves) {
+    public void setMoves(int moves) {
         this.moves = moves;
     }
 
@@ -298,7 +424,7 @@ public final class Board {
      * Retorna a pontuação do tabuleiro.
      * @return a pontuação do tabuleiro.
      */
-    public Double getScore() {
+    public double getScore() {
         return score;
     }
 
@@ -306,26 +432,48 @@ public final class Board {
      * Determina a pontuação do tabuleiro.
      * @param score a pontuação do tabuleiro.
      */
-    public void setScore(Double score) {
+    public void setScore(double score) {
         this.score = score;
     }
 
+    /**
+     * Retorna a estimativa de movimentos restantes até o resultado esperado.
+     * @return a estimativa de movimentos restantes até o resultado esperado.
+     */
+    public int getEstimate() {
+        return estimate;
+    }
+
+    /**
+     * Determina a estimativa de movimentos restantes até o resultado esperado.
+     * @param estimate a estimativa de movimentos restantes até o resultado esperado.
+     */
+    public void setEstimate(int estimate) {
+        this.estimate = estimate;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int row = 0; row < board.length; row++) {
-            for (int column = 0; column <= board.length; column++) {
-                if (column == board.length) {
+        for (int row = 0; row < this.layout.getHeight(); row++) {
+            for (int column = 0; column <= this.layout.getWidth(); column++) {
+                if (column == this.layout.getWidth()) {
                     sb.append("\n");
-                } else if (this.board[column][row] == 0) {
-                    sb.append("\u00AD");
                 } else {
-                    sb.append(board[column][row]);
+                    // Peças de dois dígitos são alinhadas e separadas por espaço
+                    if (this.layout.getCells() > 10) {
+                        sb.append(this.tileAt(row, column) < 10 ? "  " : " ");
+                    }
+                    if (this.tileAt(row, column) == 0) {
+                        sb.append("\u00AD");
+                    } else {
+                        sb.append(this.tileAt(row, column));
+                    }
                 }
             }
         }
         sb.append("Espaço Branco em: ").append(String.format("{blankRow=%d, blankColumn=%d}",
-                this.blankPosition.get(BLANK_ROW) + 1, this.blankPosition.get(BLANK_COLUMN) + 1))
+                this.getBlankRowPosition() + 1, this.getBlankColumnPosition() + 1))
                 .append("\n");
         return sb.toString();
     }
@@ -11,8 +11,22 @@ public enum BoardGameMoveEnum {
     RIGHT(0, 1),
     DOWN(1, 0);
 
-    private int rowMove;
-    private int columnMove;
+    /** Movimento contrário de cada movimento, indexado pelo ordinal. */
+    private static final BoardGameMoveEnum[] OPPOSITES = new BoardGameMoveEnum[values().length];
+
+    private final int rowMove;
+    private final int columnMove;
+
+    static {
+        // O desconhecido é o contrário de si mesmo
+        for (BoardGameMoveEnum move : values()) {
+            for (BoardGameMoveEnum other : values()) {
+                if (other.rowMove == -move.rowMove && other.columnMove == -move.columnMove) {
+                    OPPOSITES[move.ordinal()] = other;
+                }
+            }
+        }
+    }
 
     private BoardGameMoveEnum(int rowMove, int columnMove) {
         this.rowMove = rowMove;
@@ -23,16 +37,25 @@ public enum BoardGameMoveEnum {
         return rowMove;
     }
 
-    public void setRowMove(int rowMove) {
-        this.rowMove = rowMove;
-    }
-
     public int getColumnMove() {
         return columnMove;
     }
 
-    public void setColumnMove(int columnMove) {
-        this.columnMove = columnMove;
+    /**
+     * Verifica se o movimento desfaz o movimento informado.
+     * @param other Movimento anterior.
+     * @return Indicador de movimento contrário.
+     */
+    public boolean isOppositeOf(BoardGameMoveEnum other) {
+        return this != UNKNOWN && OPPOSITES[this.ordinal()] == other;
+    }
+
+    /**
+     * Retorna o movimento que desfaz este movimento.
+     * @return o movimento contrário, ou {@link #UNKNOWN} para o desconhecido.
+     */
+    public BoardGameMoveEnum getOpposite() {
+        return OPPOSITES[this.ordinal()];
     }
 
 }
@@ -0,0 +1,636 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * Geometria do tabuleiro: dimensões e resultado esperado.
+ * <p>
+ * As casas são numeradas na ordem de leitura, linha a linha. Tabuleiros com
+ * até 16 casas, o que inclui o 3x3 e o 4x4, são compactos: o estado é
+ * compactado em um {@code long} com 4 bits por casa (ver {@link BoardState}).
+ * Os maiores, até o 5x5, usam o estado largo em um vetor de {@code long},
+ * com as operações próprias deste formato; as tabelas de troca de
+ * {@link #deltas(int)} e o resultado de {@link #getGoal()} existem apenas
+ * nos tabuleiros compactos.
+ */
+public final class BoardLayout {
+
+    /** Quantidade máxima de casas representáveis, usando o estado largo. */
+    public static final int MAX_CELLS = 25;
+    /** Quantidade máxima de casas representáveis no estado compactado em um {@code long}. */
+    public static final int MAX_COMPACT_CELLS = 16;
+    /** Quantidade de movimentos, incluindo o desconhecido. */
+    private static final int MOVES = BoardGameMoveEnum.values().length;
+    /** Maior quantidade de casas para a qual o ranking das permutações cabe em um {@code int}. */
+    private static final int MAX_RANKABLE_CELLS = 12;
+    /** Tabuleiro 3x3 com o resultado {@link Board#RESULT}. */
+    public static final BoardLayout DEFAULT = new BoardLayout(3, 3);
+
+    /** Quantidade de colunas do tabuleiro. */
+    private final int width;
+    /** Quantidade de linhas do tabuleiro. */
+    private final int height;
+    /** Quantidade de casas do tabuleiro. */
+    private final int cells;
+    /** Resultado esperado compactado, 0 nos tabuleiros largos. */
+    private final long goal;
+    /** Resultado esperado no estado largo, nulo nos tabuleiros compactos. */
+    private final long[] wideGoal;
+    /** Peça de cada casa no resultado esperado. */
+    private final int[] goalTiles;
+    /** Casa de cada peça no resultado esperado. */
+    private final int[] goalIndex;
+    /** Fatoriais usados no cálculo do ranking das permutações. */
+    private final int[] factorials;
+    /** Linha de cada casa. */
+    private final int[] rows;
+    /** Coluna de cada casa. */
+    private final int[] columns;
+    /** Casa alcançada pelo branco, indexada por {@code casa * movimentos + ordinal}, -1 fora do tabuleiro. */
+    private final int[] targets;
+    /** Movimentos válidos do branco em cada casa, na ordem de declaração. */
+    private final BoardGameMoveEnum[][] legalMoves;
+    /** Casa alcançada por cada movimento válido, paralelo a {@link #legalMoves}. */
+    private final int[][] legalTargets;
+    /**
+     * Máscara de troca de cada movimento válido, paralelo a
+     * {@link #legalMoves}: um bit menos significativo em cada uma das duas
+     * casas trocadas. Multiplicada pela peça movimentada, dá o valor que
+     * aplicado com XOR executa o movimento. Nulo nos tabuleiros largos.
+     */
+    private final long[][] legalDeltas;
+
+    /**
+     * Tabuleiro com as peças em ordem crescente e o quadrado branco na última
+     * casa como resultado esperado.
+     * @param width  Quantidade de colunas.
+     * @param height Quantidade de linhas.
+     */
+    public BoardLayout(int width, int height) {
+        this(width, height, standardGoal(width, height));
+    }
+
+    /**
+     * Tabuleiro compacto com resultado esperado informado.
+     * @param width  Quantidade de colunas.
+     * @param height Quantidade de linhas.
+     * @param goal   Resultado esperado compactado.
+     */
+    public BoardLayout(int width, int height, long goal) {
+        this(width, height, compactTiles(width, height, goal));
+    }
+
+    /**
+     * Tabuleiro largo com resultado esperado informado.
+     * @param width  Quantidade de colunas.
+     * @param height Quantidade de linhas.
+     * @param goal   Resultado esperado no estado largo.
+     */
+    public BoardLayout(int width, int height, long[] goal) {
+        this(width, height, wideTiles(width, height, goal));
+    }
+
+    /**
+     * Tabuleiro com o resultado esperado informado peça a peça.
+     * @param width     Quantidade de colunas.
+     * @param height    Quantidade de linhas.
+     * @param goalTiles Peça de cada casa no resultado esperado.
+     */
+    private BoardLayout(int width, int height, int[] goalTiles) {
+        this.width = width;
+        this.height = height;
+        this.cells = width * height;
+        this.goalTiles = goalTiles;
+        this.goalIndex = new int[this.cells];
+        int seen = 0;
+        for (int index = 0; index < this.cells; index++) {
+            int tile = goalTiles[index];
+            if (tile < 0 || tile >= this.cells || (seen & (1 << tile)) != 0) {
+                throw new IllegalArgumentException("Resultado esperado não é uma permutação das peças");
+            }
+            seen |= 1 << tile;
+            this.goalIndex[tile] = index;
+        }
+        // Compacta o resultado no formato do tabuleiro
+        long compact = 0L;
+        long[] wide = null;
+        if (this.isCompact()) {
+            for (int index = 0; index < this.cells; index++) {
+                compact = BoardState.withTile(compact, index, goalTiles[index]);
+            }
+        } else {
+            wide = new long[BoardState.wideLength(this.cells)];
+            for (int index = 0; index < this.cells; index++) {
+                BoardState.setTile(wide, index, goalTiles[index]);
+            }
+        }
+        this.goal = compact;
+        this.wideGoal = wide;
+        this.factorials = new int[Math.min(this.cells, MAX_RANKABLE_CELLS)];
+        for (int i = 0; i < this.factorials.length; i++) {
+            this.factorials[i] = i == 0 ? 1 : this.factorials[i - 1] * i;
+        }
+        // Pré-calcula a geometria para evitar divisões durante a busca
+        BoardGameMoveEnum[] moves = BoardGameMoveEnum.values();
+        this.rows = new int[this.cells];
+        this.columns = new int[this.cells];
+        this.targets = new int[this.cells * moves.length];
+        this.legalMoves = new BoardGameMoveEnum[this.cells][];
+        this.legalTargets = new int[this.cells][];
+        this.legalDeltas = this.isCompact() ? new long[this.cells][] : null;
+        for (int index = 0; index < this.cells; index++) {
+            this.rows[index] = index / width;
+            this.columns[index] = index % width;
+            int count = 0;
+            BoardGameMoveEnum[] legal = new BoardGameMoveEnum[moves.length];
+            for (BoardGameMoveEnum movement : moves) {
+                int row = this.rows[index] + movement.getRowMove();
+                int column = this.columns[index] + movement.getColumnMove();
+                int target = row < 0 || row >= height || column < 0 || column >= width ? -1 : row * width + column;
+                this.targets[index * moves.length + movement.ordinal()] = target;
+                if (movement != BoardGameMoveEnum.UNKNOWN && target >= 0) {
+                    legal[count++] = movement;
+                }
+            }
+            // Tabelas dos movimentos válidos de cada casa do branco
+            this.legalMoves[index] = Arrays.copyOf(legal, count);
+            this.legalTargets[index] = new int[count];
+            for (int i = 0; i < count; i++) {
+                this.legalTargets[index][i] = this.targets[index * moves.length + legal[i].ordinal()];
+            }
+            // As máscaras de troca só existem no estado compactado
+            if (null != this.legalDeltas) {
+                this.legalDeltas[index] = new long[count];
+                for (int i = 0; i < count; i++) {
+                    this.legalDeltas[index][i] = BoardState.withTile(
+                            BoardState.withTile(0L, index, 1), this.legalTargets[index][i], 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retorna o tabuleiro com as dimensões informadas e o resultado padrão.
+     * @param width  Quantidade de colunas.
+     * @param height Quantidade de linhas.
+     * @return o tabuleiro com as dimensões informadas.
+     */
+    public static BoardLayout of(int width, int height) {
+        return width == DEFAULT.width && height == DEFAULT.height ? DEFAULT : new BoardLayout(width, height);
+    }
+
+    /**
+     * Monta o resultado padrão: peças em ordem crescente e branco no final.
+     * @param width  Quantidade de colunas.
+     * @param height Quantidade de linhas.
+     * @return a peça de cada casa no resultado padrão.
+     */
+    private static int[] standardGoal(int width, int height) {
+        int[] result = new int[checkDimensions(width, height, MAX_CELLS)];
+        for (int index = 0; index < result.length - 1; index++) {
+            result[index] = index + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Lê as peças de um resultado esperado compactado.
+     * @param width  Quantidade de colunas.
+     * @param height Quantidade de linhas.
+     * @param goal   Resultado esperado compactado.
+     * @return a peça de cada casa no resultado esperado.
+     */
+    private static int[] compactTiles(int width, int height, long goal) {
+        int[] result = new int[checkDimensions(width, height, MAX_COMPACT_CELLS)];
+        for (int index = 0; index < result.length; index++) {
+            result[index] = BoardState.tileAt(goal, index);
+        }
+        return result;
+    }
+
+    /**
+     * Lê as peças de um resultado esperado no estado largo.
+     * @param width  Quantidade de colunas.
+     * @param height Quantidade de linhas.
+     * @param goal   Resultado esperado no estado largo.
+     * @return a peça de cada casa no resultado esperado.
+     */
+    private static int[] wideTiles(int width, int height, long[] goal) {
+        int[] result = new int[checkDimensions(width, height, MAX_CELLS)];
+        if (result.length <= MAX_COMPACT_CELLS || goal.length != BoardState.wideLength(result.length)) {
+            throw new IllegalArgumentException(String.format(
+                    "Resultado esperado largo inválido para o tabuleiro %dx%d", width, height));
+        }
+        for (int index = 0; index < result.length; index++) {
+            result[index] = BoardState.tileAt(goal, index);
+        }
+        return result;
+    }
+
+    /**
+     * Verifica as dimensões de um tabuleiro.
+     * @param width    Quantidade de colunas.
+     * @param height   Quantidade de linhas.
+     * @param maxCells Quantidade máxima de casas permitida.
+     * @return a quantidade de casas do tabuleiro.
+     */
+    private static int checkDimensions(int width, int height, int maxCells) {
+        if (width < 2 || height < 2 || width * height > maxCells) {
+            throw new IllegalArgumentException(String.format(
+                    "Tabuleiro %dx%d não suportado: são permitidas até %d casas", width, height, maxCells));
+        }
+        return width * height;
+    }
+
+    /**
+     * Compacta um tabuleiro no formato {@code board[coluna][linha]}.
+     * @param board Tabuleiro a ser compactado.
+     * @return Estado compactado.
+     */
+    public long pack(int[][] board) {
+        this.checkCompact();
+        this.checkBoard(board);
+        long result = 0L;
+        // Inicializa iterador sobre as linhas do jogo
+        for (int row = 0; row < this.height; row++) {
+            // Inicializa iterador sobre as colunas do jogo
+            for (int column = 0; column < this.width; column++) {
+                result = BoardState.withTile(result, this.index(row, column), board[column][row]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Monta o estado largo de um tabuleiro no formato {@code board[coluna][linha]}.
+     * @param board Tabuleiro a ser convertido.
+     * @return Novo estado largo.
+     */
+    public long[] packWide(int[][] board) {
+        this.checkBoard(board);
+        long[] result = new long[BoardState.wideLength(this.cells)];
+        for (int row = 0; row < this.height; row++) {
+            for (int column = 0; column < this.width; column++) {
+                BoardState.setTile(result, this.index(row, column), board[column][row]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Verifica se as dimensões de um tabuleiro no formato
+     * {@code board[coluna][linha]} são as deste.
+     * @param board Tabuleiro verificado.
+     */
+    private void checkBoard(int[][] board) {
+        if (board.length != this.width || board[0].length != this.height) {
+            throw new IllegalArgumentException("Dimensões do tabuleiro diferentes de " + this);
+        }
+    }
+
+    /**
+     * Verifica se o estado do tabuleiro cabe em um {@code long}.
+     */
+    private void checkCompact() {
+        if (!this.isCompact()) {
+            throw new IllegalStateException("Tabuleiro " + this + " não cabe no estado compactado: são "
+                    + this.cells + " casas, o máximo é " + MAX_COMPACT_CELLS);
+        }
+    }
+
+    /**
+     * Descompacta o estado no formato {@code board[coluna][linha]}.
+     * @param state Estado compactado.
+     * @return Novo tabuleiro descompactado.
+     */
+    public int[][] unpack(long state) {
+        int[][] result = new int[this.width][this.height];
+        for (int row = 0; row < this.height; row++) {
+            for (int column = 0; column < this.width; column++) {
+                result[column][row] = BoardState.tileAt(state, this.index(row, column));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Converte o estado largo no formato {@code board[coluna][linha]}.
+     * @param state Estado largo.
+     * @return Novo tabuleiro.
+     */
+    public int[][] unpack(long[] state) {
+        int[][] result = new int[this.width][this.height];
+        for (int row = 0; row < this.height; row++) {
+            for (int column = 0; column < this.width; column++) {
+                result[column][row] = BoardState.tileAt(state, this.index(row, column));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Busca o índice da casa do quadrado branco.
+     * @param state Estado compactado.
+     * @return o índice do quadrado branco, ou -1 se não houver.
+     */
+    public int findBlank(long state) {
+        for (int index = 0; index < this.cells; index++) {
+            if (BoardState.tileAt(state, index) == 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Busca o índice da casa do quadrado branco no estado largo.
+     * @param state Estado largo.
+     * @return o índice do quadrado branco, ou -1 se não houver.
+     */
+    public int findBlank(long[] state) {
+        for (int index = 0; index < this.cells; index++) {
+            if (BoardState.tileAt(state, index) == 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Verifica se o estado largo é o resultado esperado.
+     * @param state Estado largo.
+     * @return Indicador de resultado alcançado.
+     */
+    public boolean isGoal(long[] state) {
+        return Arrays.equals(state, this.wideGoal);
+    }
+
+    /**
+     * Retorna a casa para onde o quadrado branco vai com o movimento.
+     * @param blank    Casa atual do quadrado branco.
+     * @param movement Movimento do quadrado branco.
+     * @return a nova casa do quadrado branco, ou -1 se sair do tabuleiro.
+     */
+    public int target(int blank, BoardGameMoveEnum movement) {
+        return this.targets[blank * MOVES + movement.ordinal()];
+    }
+
+    /**
+     * Retorna os movimentos válidos do quadrado branco em uma casa, na ordem
+     * de declaração. O vetor é compartilhado e não deve ser alterado.
+     * @param blank Casa do quadrado branco.
+     * @return os movimentos válidos.
+     */
+    public BoardGameMoveEnum[] moves(int blank) {
+        return this.legalMoves[blank];
+    }
+
+    /**
+     * Retorna a casa alcançada por cada movimento válido de {@link #moves(int)}.
+     * O vetor é compartilhado e não deve ser alterado.
+     * @param blank Casa do quadrado branco.
+     * @return as casas alcançadas, na ordem dos movimentos válidos.
+     */
+    public int[] targets(int blank) {
+        return this.legalTargets[blank];
+    }
+
+    /**
+     * Retorna a máscara de troca de cada movimento válido de
+     * {@link #moves(int)}, usada em {@link BoardState#swap(long, int, long)}.
+     * O vetor é compartilhado e não deve ser alterado. Apenas para
+     * tabuleiros compactos.
+     * @param blank Casa do quadrado branco.
+     * @return as máscaras de troca, na ordem dos movimentos válidos.
+     */
+    public long[] deltas(int blank) {
+        this.checkCompact();
+        return this.legalDeltas[blank];
+    }
+
+    /**
+     * Verifica se o resultado esperado pode ser alcançado a partir do estado.
+     * <p>
+     * Cada movimento troca o branco com uma peça vizinha, invertendo a
+     * paridade da permutação e a paridade da distância do branco até a sua
+     * casa no resultado. O estado é solucionável exatamente quando as duas
+     * paridades coincidem, o que vale para larguras pares e ímpares. A
+     * paridade da permutação é obtida pelos ciclos, em tempo linear.
+     * @param state Estado compactado.
+     * @return Indicador de estado solucionável.
+     */
+    public boolean isSolvable(long state) {
+        int[] tiles = new int[this.cells];
+        for (int index = 0; index < this.cells; index++) {
+            tiles[index] = BoardState.tileAt(state, index);
+        }
+        return this.isSolvable(tiles);
+    }
+
+    /**
+     * Verifica se o resultado esperado pode ser alcançado a partir do estado
+     * largo (ver {@link #isSolvable(long)}).
+     * @param state Estado largo.
+     * @return Indicador de estado solucionável.
+     */
+    public boolean isSolvable(long[] state) {
+        int[] tiles = new int[this.cells];
+        for (int index = 0; index < this.cells; index++) {
+            tiles[index] = BoardState.tileAt(state, index);
+        }
+        return this.isSolvable(tiles);
+    }
+
+    /**
+     * Verifica se o resultado esperado pode ser alcançado a partir das peças
+     * de cada casa.
+     * @param tiles Peça de cada casa.
+     * @return Indicador de peças solucionáveis.
+     */
+    private boolean isSolvable(int[] tiles) {
+        // Máscara das casas já percorridas por algum ciclo
+        int visited = 0;
+        int cycles = 0;
+        int blank = -1;
+        for (int index = 0; index < this.cells; index++) {
+            if (tiles[index] == 0) {
+                blank = index;
+            }
+            if ((visited & (1 << index)) != 0) {
+                continue;
+            }
+            // Percorre o ciclo levando cada peça à sua casa no resultado
+            cycles++;
+            for (int current = index; (visited & (1 << current)) == 0;
+                    current = this.goalIndex[tiles[current]]) {
+                visited |= 1 << current;
+            }
+        }
+        int permutationParity = (this.cells - cycles) & 1;
+        int blankGoal = this.goalIndex[0];
+        int blankDistance = Math.abs(this.rows[blank] - this.rows[blankGoal])
+                + Math.abs(this.columns[blank] - this.columns[blankGoal]);
+        return permutationParity == (blankDistance & 1);
+    }
+
+    /**
+     * Verifica se o ranking das permutações cabe em um {@code int}.
+     * @return Indicador de permutações ranqueáveis.
+     */
+    public boolean isRankable() {
+        return this.cells <= MAX_RANKABLE_CELLS;
+    }
+
+    /**
+     * Retorna a quantidade de permutações possíveis das casas.
+     * @return a quantidade de permutações, apenas para tabuleiros ranqueáveis.
+     */
+    public int permutations() {
+        if (!this.isRankable()) {
+            throw new IllegalStateException("Permutações de " + this + " não cabem em um int");
+        }
+        return this.factorials[this.cells - 1] * this.cells;
+    }
+
+    /**
+     * Calcula a posição da permutação do estado na ordem lexicográfica
+     * (código de Lehmer), entre 0 e {@link #permutations()} - 1.
+     * @param state Estado compactado.
+     * @return o ranking da permutação.
+     */
+    public int rank(long state) {
+        int result = 0;
+        // Máscara das peças que já apareceram nas casas anteriores
+        int seen = 0;
+        for (int index = 0; index < this.cells; index++) {
+            int tile = BoardState.tileAt(state, index);
+            // Quantidade de peças menores que ainda não apareceram
+            int smaller = tile - Integer.bitCount(seen & ((1 << tile) - 1));
+            result += smaller * this.factorials[this.cells - 1 - index];
+            seen |= 1 << tile;
+        }
+        return result;
+    }
+
+    /**
+     * Retorna o índice de uma casa.
+     * @param row    Linha da casa.
+     * @param column Coluna da casa.
+     * @return o índice da casa.
+     */
+    public int index(int row, int column) {
+        return row * this.width + column;
+    }
+
+    /**
+     * Retorna a linha de uma casa.
+     * @param index Índice da casa.
+     * @return a linha da casa.
+     */
+    public int row(int index) {
+        return this.rows[index];
+    }
+
+    /**
+     * Retorna a coluna de uma casa.
+     * @param index Índice da casa.
+     * @return a coluna da casa.
+     */
+    public int column(int index) {
+        return this.columns[index];
+    }
+
+    /**
+     * Retorna a peça de uma casa no resultado esperado.
+     * @param index Índice da casa.
+     * @return a peça da casa no resultado esperado.
+     */
+    public int goalTile(int index) {
+        return this.goalTiles[index];
+    }
+
+    /**
+     * Retorna a casa de uma peça no resultado esperado.
+     * @param tile Peça.
+     * @return a casa da peça no resultado esperado.
+     */
+    public int goalIndex(int tile) {
+        return this.goalIndex[tile];
+    }
+
+    /**
+     * Retorna a quantidade de colunas do tabuleiro.
+     * @return a quantidade de colunas do tabuleiro.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Retorna a quantidade de linhas do tabuleiro.
+     * @return a quantidade de linhas do tabuleiro.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Retorna a quantidade de casas do tabuleiro.
+     * @return a quantidade de casas do tabuleiro.
+     */
+    public int getCells() {
+        return cells;
+    }
+
+    /**
+     * Verifica se o estado do tabuleiro cabe em um {@code long}.
+     * @return Indicador de tabuleiro compacto.
+     */
+    public boolean isCompact() {
+        return this.cells <= MAX_COMPACT_CELLS;
+    }
+
+    /**
+     * Retorna o resultado esperado compactado, apenas para tabuleiros compactos.
+     * @return o resultado esperado compactado.
+     */
+    public long getGoal() {
+        this.checkCompact();
+        return goal;
+    }
+
+    /**
+     * Retorna o resultado esperado no estado largo, apenas para tabuleiros largos.
+     * @return uma cópia do resultado esperado no estado largo.
+     */
+    public long[] getWideGoal() {
+        if (this.isCompact()) {
+            throw new IllegalStateException("Tabuleiro " + this + " usa o estado compactado");
+        }
+        return this.wideGoal.clone();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BoardLayout)) {
+            return false;
+        }
+        BoardLayout other = (BoardLayout) obj;
+        return this.width == other.width && this.height == other.height && this.goal == other.goal
+                && Arrays.equals(this.wideGoal, other.wideGoal);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new long[]{this.width, this.height, this.goal}) + 31 * Arrays.hashCode(this.wideGoal);
+    }
+
+    @Override
+    public String toString() {
+        return this.width + "x" + this.height;
+    }
+
+}
@@ -14,27 +14,21 @@ public class BoardMoving {
     public static Board moveTo(BoardGameMoveEnum movement, Board oldBoard) {
         Board result = null;
         if (BoardMoving.canMove(oldBoard, movement)) {
-            // Realiza cópia do quadro
-            result = new Board(oldBoard);
-            // Recupera o valor da antiga posição do 0
-            int oldRow = result.getBlankRowPosition();
-            int oldColumn = result.getBlankColumnPosition();
-            // Indica posição futura do 0
-            int newRow = oldRow + movement.getRowMove();
-            int newColumn = oldColumn + movement.getColumnMove();
-            // Recupera o valor que deve ser substituido pelo 0
-            int valueToMove = result.getBoard()[newColumn][newRow];
-            // Adiciona o 0 na nova posição
-            result.getBoard()[newColumn][newRow] = 0;
-            // Insere o valor na posição antiga do 0
-            result.getBoard()[oldColumn][oldRow] = valueToMove;
-            // Atualiza os valores da posição do quadrado branco
-            result.setBlankColumnPosition(newColumn);
-            result.setBlankRowPosition(newRow);
-            // Incrementa a quantidade de movimentações
-            result.setMoves(oldBoard.getMoves() + 1);
-            // Determina o último movimento 
-            result.setLastMove(movement);
+            // Recupera a antiga posição do 0
+            int oldIndex = oldBoard.getBlankIndex();
+            // Indica posição futura do 0, já verificada na tabela de casas alcançadas
+            int newIndex = oldBoard.getLayout().target(oldIndex, movement);
+            if (oldBoard.getLayout().isCompact()) {
+                // Troca o 0 com o valor da nova posição diretamente no estado compactado
+                long state = BoardState.move(oldBoard.getState(), oldIndex, newIndex);
+                // Cria o novo quadro já com a movimentação incrementada e o último movimento
+                result = new Board(oldBoard.getLayout(), state, newIndex, oldBoard.getMoves() + 1, movement);
+            } else {
+                // O estado largo é copiado e alterado na cópia
+                long[] state = oldBoard.getWideState();
+                BoardState.move(state, oldIndex, newIndex);
+                result = new Board(oldBoard.getLayout(), state, newIndex, oldBoard.getMoves() + 1, movement);
+            }
         }
         return result;
     }
@@ -42,33 +36,14 @@ public class BoardMoving {
     /**
      * Verifica se a movimentação pode ser executada no tabuleiro. Verifica se o
      * movimento não é contrário ao movimento anterior, para nao desfazer, e se
-     * não está no limite.
+     * não está no limite, pela tabela de casas alcançadas do tabuleiro.
      * @param board    Objeto de tabuleiro.
      * @param movement Movimentação desejada.
      * @return Indicador de possibilidade de movimentação.
      */
     private static boolean canMove(Board board, BoardGameMoveEnum movement) {
-        // Inicializa a variável de resultado
-        boolean result = false;
-        // Recupera o último movimento que o tabuleiro sofreu
-        BoardGameMoveEnum oldState = board.getLastMove();
-        switch (movement) {
-            case UP:
-                result = !board.isBlankMostTop() && !oldState.equals(BoardGameMoveEnum.DOWN);
-                break;
-            case DOWN:
-                result = !board.isBlankMostBottom() && !oldState.equals(BoardGameMoveEnum.UP);
-                break;
-            case LEFT:
-                result = !board.isBlankMostLeft() && !oldState.equals(BoardGameMoveEnum.RIGHT);
-                break;
-            case RIGHT:
-                result = !board.isBlankMostRight() && !oldState.equals(BoardGameMoveEnum.LEFT);
-                break;
-            default:
-                break;
-        }
-        return result;
+        return movement != BoardGameMoveEnum.UNKNOWN && !movement.isOppositeOf(board.getLastMove())
+                && board.getLayout().target(board.getBlankIndex(), movement) >= 0;
     }
 
 }
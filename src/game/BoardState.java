@@ -0,0 +1,125 @@
+package game;
+
+/**
+ * Codificação compacta do estado do tabuleiro.
+ * <p>
+ * As peças são armazenadas em um único {@code long}, 4 bits por casa, na
+ * ordem de leitura (linha a linha). A casa {@code i} ocupa os bits
+ * {@code [4 * i, 4 * i + 3]} e o quadrado branco é representado pelo valor 0.
+ * A geometria do tabuleiro fica em {@link BoardLayout}.
+ * <p>
+ * Tabuleiros com mais de 16 casas, como o 5x5, não cabem em um {@code long} e
+ * usam o estado largo: um vetor de {@code long} com 5 bits por casa e 12
+ * casas em cada posição do vetor, alterado no próprio vetor.
+ */
+public final class BoardState {
+
+    /** Quantidade de bits usados por casa. */
+    private static final int BITS = 4;
+    /** Máscara para isolar o valor de uma casa. */
+    private static final long MASK = 0xFL;
+    /** Quantidade de bits usados por casa no estado largo. */
+    private static final int WIDE_BITS = 5;
+    /** Máscara para isolar o valor de uma casa no estado largo. */
+    private static final long WIDE_MASK = 0x1FL;
+    /** Quantidade de casas em cada posição do estado largo. */
+    private static final int WIDE_CELLS = 12;
+
+    private BoardState() {
+    }
+
+    /**
+     * Retorna a peça de uma casa.
+     * @param state Estado compactado.
+     * @param index Índice da casa.
+     * @return a peça da casa.
+     */
+    public static int tileAt(long state, int index) {
+        return (int) ((state >>> (index * BITS)) & MASK);
+    }
+
+    /**
+     * Substitui a peça de uma casa.
+     * @param state Estado compactado.
+     * @param index Índice da casa.
+     * @param tile  Nova peça.
+     * @return o estado atualizado.
+     */
+    public static long withTile(long state, int index, int tile) {
+        int shift = index * BITS;
+        return (state & ~(MASK << shift)) | ((tile & MASK) << shift);
+    }
+
+    /**
+     * Move a peça da casa alvo para a casa do quadrado branco.
+     * @param state  Estado compactado.
+     * @param blank  Índice atual do quadrado branco.
+     * @param target Índice da casa que ficará vazia.
+     * @return o estado após a movimentação.
+     */
+    public static long move(long state, int blank, int target) {
+        // Como o branco vale 0, basta aplicar o valor da peça nas duas casas
+        long tile = tileAt(state, target);
+        return state ^ (tile << (target * BITS)) ^ (tile << (blank * BITS));
+    }
+
+    /**
+     * Move a peça da casa alvo para a casa do quadrado branco usando a
+     * máscara de troca pré-calculada do movimento (ver
+     * {@link BoardLayout#deltas(int)}).
+     * @param state  Estado compactado.
+     * @param target Índice da casa que ficará vazia.
+     * @param delta  Máscara de troca entre o branco e a casa alvo.
+     * @return o estado após a movimentação.
+     */
+    public static long swap(long state, int target, long delta) {
+        // A peça multiplicada pela máscara fica nas duas casas, sem vai-um
+        return state ^ (tileAt(state, target) * delta);
+    }
+
+    /**
+     * Retorna o tamanho do vetor do estado largo de um tabuleiro.
+     * @param cells Quantidade de casas do tabuleiro.
+     * @return a quantidade de posições do vetor.
+     */
+    public static int wideLength(int cells) {
+        return (cells + WIDE_CELLS - 1) / WIDE_CELLS;
+    }
+
+    /**
+     * Retorna a peça de uma casa do estado largo.
+     * @param state Estado largo.
+     * @param index Índice da casa.
+     * @return a peça da casa.
+     */
+    public static int tileAt(long[] state, int index) {
+        return (int) ((state[index / WIDE_CELLS] >>> ((index % WIDE_CELLS) * WIDE_BITS)) & WIDE_MASK);
+    }
+
+    /**
+     * Substitui a peça de uma casa do estado largo, no próprio vetor.
+     * @param state Estado largo.
+     * @param index Índice da casa.
+     * @param tile  Nova peça.
+     */
+    public static void setTile(long[] state, int index, int tile) {
+        int word = index / WIDE_CELLS;
+        int shift = (index % WIDE_CELLS) * WIDE_BITS;
+        state[word] = (state[word] & ~(WIDE_MASK << shift)) | ((tile & WIDE_MASK) << shift);
+    }
+
+    /**
+     * Move a peça da casa alvo para a casa do quadrado branco, no próprio
+     * vetor do estado largo.
+     * @param state  Estado largo.
+     * @param blank  Índice atual do quadrado branco.
+     * @param target Índice da casa que ficará vazia.
+     */
+    public static void move(long[] state, int blank, int target) {
+        // Como o branco vale 0, basta aplicar o valor da peça nas duas casas
+        long tile = tileAt(state, target);
+        state[target / WIDE_CELLS] ^= tile << ((target % WIDE_CELLS) * WIDE_BITS);
+        state[blank / WIDE_CELLS] ^= tile << ((blank % WIDE_CELLS) * WIDE_BITS);
+    }
+
+}
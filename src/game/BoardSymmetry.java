@@ -0,0 +1,224 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simetrias do tabuleiro que preservam o resultado esperado.
+ * <p>
+ * Uma simetria geométrica do tabuleiro (reflexões, rotações e, nos
+ * tabuleiros quadrados, as transposições) que mantém a casa do quadrado
+ * branco no resultado esperado leva o resultado esperado nele mesmo, desde
+ * que as peças sejam renomeadas: a peça que deveria terminar na casa
+ * {@code i} passa a ser a que deveria terminar na imagem de {@code i}. Com
+ * essa troca de nomes a distância até o resultado é preservada, e cada
+ * movimento é levado no movimento de mesma direção transformada. No
+ * resultado padrão, com o branco no canto, a única simetria além da
+ * identidade é a transposição dos tabuleiros quadrados, que troca
+ * {@link BoardGameMoveEnum#UP} com {@link BoardGameMoveEnum#LEFT} e
+ * {@link BoardGameMoveEnum#DOWN} com {@link BoardGameMoveEnum#RIGHT}.
+ * <p>
+ * Estados equivalentes têm o mesmo representante canônico, o menor estado
+ * compactado entre as suas imagens, de forma que conjuntos e tabelas podem
+ * guardar apenas o representante. A simetria de índice 0 é a identidade.
+ */
+public class BoardSymmetry {
+
+    /**
+     * Partes lineares das simetrias do retângulo, {@code {a, b, c, d}} com
+     * {@code linha' = a * linha + b * coluna} e
+     * {@code coluna' = c * linha + d * coluna}, antes do deslocamento.
+     */
+    private static final int[][] MATRICES = {
+        {1, 0, 0, 1}, {1, 0, 0, -1}, {-1, 0, 0, 1}, {-1, 0, 0, -1},
+        {0, 1, 1, 0}, {0, -1, -1, 0}, {0, 1, -1, 0}, {0, -1, 1, 0}
+    };
+    /** Movimentos indexados pelo ordinal. */
+    private static final BoardGameMoveEnum[] MOVES = BoardGameMoveEnum.values();
+
+    /** Dimensões e resultado esperado do tabuleiro. */
+    private final BoardLayout layout;
+    /** Imagem de cada casa, por simetria. */
+    private final int[][] cells;
+    /** Novo nome de cada peça, por simetria. */
+    private final int[][] tiles;
+    /** Imagem de cada movimento, pelo ordinal, por simetria. */
+    private final BoardGameMoveEnum[][] moves;
+    /** Simetria inversa de cada simetria. */
+    private final int[] inverses;
+
+    /**
+     * Simetrias do tabuleiro.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     */
+    public BoardSymmetry(BoardLayout layout) {
+        this.layout = layout;
+        int blankGoal = layout.goalIndex(0);
+        List<int[]> cellMaps = new ArrayList<>();
+        List<BoardGameMoveEnum[]> moveMaps = new ArrayList<>();
+        for (int[] matrix : MATRICES) {
+            int[] map = cellMap(layout, matrix);
+            // Mantém as simetrias que cabem no tabuleiro e fixam o branco do resultado
+            if (null != map && map[blankGoal] == blankGoal) {
+                cellMaps.add(map);
+                moveMaps.add(moveMap(matrix));
+            }
+        }
+        int count = cellMaps.size();
+        this.cells = cellMaps.toArray(new int[count][]);
+        this.moves = moveMaps.toArray(new BoardGameMoveEnum[count][]);
+        this.tiles = new int[count][layout.getCells()];
+        this.inverses = new int[count];
+        for (int symmetry = 0; symmetry < count; symmetry++) {
+            for (int tile = 0; tile < layout.getCells(); tile++) {
+                this.tiles[symmetry][tile] = layout.goalTile(this.cells[symmetry][layout.goalIndex(tile)]);
+            }
+            // A inversa leva a imagem de cada casa de volta à casa
+            for (int other = 0; other < count; other++) {
+                boolean identity = true;
+                for (int index = 0; index < layout.getCells() && identity; index++) {
+                    identity = this.cells[other][this.cells[symmetry][index]] == index;
+                }
+                if (identity) {
+                    this.inverses[symmetry] = other;
+                }
+            }
+        }
+    }
+
+    /**
+     * Monta a imagem de cada casa por uma parte linear, deslocada para que o
+     * tabuleiro transformado comece na casa 0.
+     * @param layout Dimensões do tabuleiro.
+     * @param matrix Parte linear da simetria.
+     * @return a imagem de cada casa, ou nulo se o tabuleiro transformado não
+     *         tiver as mesmas dimensões.
+     */
+    private static int[] cellMap(BoardLayout layout, int[] matrix) {
+        int[] rows = new int[layout.getCells()];
+        int[] columns = new int[layout.getCells()];
+        int minRow = Integer.MAX_VALUE;
+        int minColumn = Integer.MAX_VALUE;
+        for (int index = 0; index < layout.getCells(); index++) {
+            rows[index] = matrix[0] * layout.row(index) + matrix[1] * layout.column(index);
+            columns[index] = matrix[2] * layout.row(index) + matrix[3] * layout.column(index);
+            minRow = Math.min(minRow, rows[index]);
+            minColumn = Math.min(minColumn, columns[index]);
+        }
+        int[] result = new int[layout.getCells()];
+        for (int index = 0; index < layout.getCells(); index++) {
+            int row = rows[index] - minRow;
+            int column = columns[index] - minColumn;
+            if (row >= layout.getHeight() || column >= layout.getWidth()) {
+                return null;
+            }
+            result[index] = layout.index(row, column);
+        }
+        return result;
+    }
+
+    /**
+     * Monta a imagem de cada movimento pela parte linear da simetria.
+     * @param matrix Parte linear da simetria.
+     * @return a imagem de cada movimento, indexada pelo ordinal.
+     */
+    private static BoardGameMoveEnum[] moveMap(int[] matrix) {
+        BoardGameMoveEnum[] result = new BoardGameMoveEnum[MOVES.length];
+        for (BoardGameMoveEnum move : MOVES) {
+            int row = matrix[0] * move.getRowMove() + matrix[1] * move.getColumnMove();
+            int column = matrix[2] * move.getRowMove() + matrix[3] * move.getColumnMove();
+            for (BoardGameMoveEnum image : MOVES) {
+                if (image.getRowMove() == row && image.getColumnMove() == column) {
+                    result[move.ordinal()] = image;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Aplica uma simetria a um estado.
+     * @param symmetry Índice da simetria.
+     * @param state    Estado compactado.
+     * @return a imagem do estado.
+     */
+    public long apply(int symmetry, long state) {
+        if (symmetry == 0) {
+            return state;
+        }
+        int[] cellMap = this.cells[symmetry];
+        int[] tileMap = this.tiles[symmetry];
+        long result = 0L;
+        for (int index = 0; index < cellMap.length; index++) {
+            result = BoardState.withTile(result, cellMap[index], tileMap[BoardState.tileAt(state, index)]);
+        }
+        return result;
+    }
+
+    /**
+     * Retorna a simetria que leva o estado no seu representante canônico.
+     * @param state Estado compactado.
+     * @return o índice da simetria.
+     */
+    public int canonicalSymmetry(long state) {
+        int result = 0;
+        long best = state;
+        for (int symmetry = 1; symmetry < this.cells.length; symmetry++) {
+            long image = this.apply(symmetry, state);
+            if (image < best) {
+                best = image;
+                result = symmetry;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retorna o representante canônico do estado: a menor das suas imagens.
+     * @param state Estado compactado.
+     * @return o representante canônico.
+     */
+    public long canonical(long state) {
+        long result = state;
+        for (int symmetry = 1; symmetry < this.cells.length; symmetry++) {
+            result = Math.min(result, this.apply(symmetry, state));
+        }
+        return result;
+    }
+
+    /**
+     * Aplica uma simetria a um movimento.
+     * @param symmetry Índice da simetria.
+     * @param move     Movimento no tabuleiro original.
+     * @return o movimento correspondente no tabuleiro transformado.
+     */
+    public BoardGameMoveEnum translate(int symmetry, BoardGameMoveEnum move) {
+        return this.moves[symmetry][move.ordinal()];
+    }
+
+    /**
+     * Retorna a simetria que desfaz uma simetria.
+     * @param symmetry Índice da simetria.
+     * @return o índice da simetria inversa.
+     */
+    public int inverse(int symmetry) {
+        return this.inverses[symmetry];
+    }
+
+    /**
+     * Retorna a quantidade de simetrias, incluindo a identidade.
+     * @return a quantidade de simetrias.
+     */
+    public int size() {
+        return this.cells.length;
+    }
+
+    /**
+     * Retorna as dimensões e o resultado esperado do tabuleiro.
+     * @return as dimensões e o resultado esperado do tabuleiro.
+     */
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+}
@@ -1,31 +1,72 @@
 package game;
 
+import game.heuristic.IHeuristic;
+import game.search.AnytimeRepairingAStarSearch;
+import game.search.BatchResult;
+import game.search.BatchSolver;
+import game.search.CachedSearchMethod;
 import game.search.ISearchMethod;
+import game.search.SearchBudget;
 import game.search.SearchMethodFactory;
+import game.search.SearchMetrics;
+import game.search.SolutionCache;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.StringJoiner;
 
 public class Game {
 
     /** Determina o estado inicial do tabuleiro. */
     private static final int[][] DEFAULT_VALUE = {{0, 3, 6}, {1, 4, 7}, {2, 5, 8}};
 //    private static final int[][] DEFAULT_VALUE = {{1, 4, 7}, {2, 5, 8}, {3, 0, 6}};
+    /** Quantidade padrão de estados da memória de soluções. */
+    private static final int DEFAULT_CACHE_SIZE = 1_000_000;
 
     public static void main(String[] args) {
         try {
+            if (args.length > 0 && "--batch".equals(args[0])) {
+                solveBatch(args);
+                return;
+            }
             System.out.println("Selecione a opcao desejada para fazer a busca do resultado:");
             System.out.println("1. Busca Cega em Largura");
-            System.out.println("2. Busca Cega em Profundidade");
+            System.out.println("2. Busca Cega em Profundidade com Aprofundamento Iterativo");
             System.out.println("3. Busca Heurística A*");
+            System.out.println("4. Busca Heurística IDA*");
+            System.out.println("5. Busca Cega em Largura Paralela");
+            System.out.println("6. Busca Heurística A* Paralela (HDA*)");
+            System.out.println("7. Busca Cega em Largura Bidirecional");
+            System.out.println("8. Consulta à Tabela Completa de Distâncias (3x3)");
+            System.out.println("9. Busca Heurística ARA* (soluções melhoradas ao longo do tempo)");
+            System.out.println("10. Busca Cega em Largura em Disco (níveis gravados em arquivos)");
             ISearchMethod searchMethod = null;
+            // Inicializa objeto de leitura do console
+            Scanner sc = new Scanner(System.in);
             do {
-                // Inicializa objeto de leitura do console
-                Scanner sc = new Scanner(System.in);
                 // Recupera a entrada do usuário
                 int selectedOption = sc.nextInt();
+                // Recupera a estimativa para os métodos heurísticos
+                IHeuristic heuristic = selectedOption == 3 || selectedOption == 4 || selectedOption == 6
+                        || selectedOption == 9 ? selectHeuristic(sc) : null;
                 // Recupera modo de busca de acordo com a entrada do usuário
-                searchMethod = SearchMethodFactory.selectMethod(selectedOption);
+                searchMethod = null == heuristic
+                        ? SearchMethodFactory.selectMethod(selectedOption)
+                        : SearchMethodFactory.selectMethod(selectedOption, heuristic);
             } while (null == searchMethod);
+            if (searchMethod instanceof AnytimeRepairingAStarSearch) {
+                // Informa cada solução melhor assim que ela é encontrada
+                ((AnytimeRepairingAStarSearch) searchMethod).setImprovementListener(Game::printImprovement);
+            }
             Map<Integer, Board> result = searchMethod.executeSearch(new Board(DEFAULT_VALUE));
             if (null != result && !result.isEmpty()) {
                 System.out.println("Sequência de Ações para encontrar a solução:");
@@ -43,4 +84,230 @@ public class Game {
         }
     }
 
+    /**
+     * Informa uma solução intermediária da busca incremental.
+     * @param solution      Sequência de tabuleiros da solução.
+     * @param suboptimality Limite de subotimalidade da solução.
+     * @param elapsedNanos  Tempo desde o início da busca, em nanossegundos.
+     */
+    private static void printImprovement(Map<Integer, Board> solution, double suboptimality, long elapsedNanos) {
+        System.out.println(String.format("Solução com %d movimentos (no máximo %.2f vezes a ótima) em %d ms",
+                solution.size() - 1, suboptimality, elapsedNanos / 1_000_000));
+    }
+
+    /**
+     * Solicita ao usuário a estimativa usada pelos métodos heurísticos.
+     * @param sc Objeto de leitura do console.
+     * @return a estimativa selecionada.
+     */
+    private static IHeuristic selectHeuristic(Scanner sc) {
+        System.out.println("Selecione a estimativa da busca heurística:");
+        System.out.println("1. Distância de Manhattan");
+        System.out.println("2. Distância de Manhattan com conflitos lineares");
+        System.out.println("3. Bases de dados de padrões disjuntos");
+        IHeuristic result = null;
+        do {
+            result = SearchMethodFactory.selectHeuristic(sc.nextInt());
+        } while (null == result);
+        return result;
+    }
+
+    /**
+     * Soluciona em lote os tabuleiros de um arquivo, um por linha, com as
+     * peças na ordem de leitura separadas por espaço ou vírgula. Os
+     * resultados são escritos assim que cada busca termina. As dimensões
+     * ({@code LxA}, 3x3 por padrão) valem para todos os tabuleiros do lote;
+     * tabuleiros com mais de 16 casas, como o 5x5, são resolvidos apenas pelo
+     * IDA* e pela busca em profundidade, e os demais métodos os escrevem com
+     * erro. Quando a propriedade de sistema {@code game.solutionCache} indica um
+     * arquivo, as soluções são guardadas em uma {@link SolutionCache} carregada
+     * desse arquivo e gravada nele ao final. Cada busca pode ser limitada
+     * pelas propriedades {@code game.searchTimeout} (milissegundos),
+     * {@code game.maxExpansions} e {@code game.maxResidentNodes}; tabuleiros
+     * cuja busca esgota um limite são escritos sem solução. Os métodos
+     * paralelos de cada thread do lote dividem os processadores entre si, e
+     * a estimativa é compartilhada por todas as threads. O relatório de cada
+     * busca não é escrito, de forma que a saída padrão traz apenas as linhas
+     * de resultado e o resumo final.
+     * <pre>
+     * java game.Game --batch &lt;arquivo|-&gt; [método] [estimativa] [threads] [LxA]
+     * </pre>
+     * @param args Argumentos da linha de comando.
+     * @throws IOException Erro na leitura da entrada.
+     */
+    private static void solveBatch(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Uso: Game --batch <arquivo|-> [método] [estimativa] [threads] [LxA]");
+            return;
+        }
+        int method = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        BoardLayout layout = args.length > 5 ? parseLayout(args[5]) : BoardLayout.DEFAULT;
+        IHeuristic heuristic = SearchMethodFactory.selectHeuristic(
+                args.length > 3 ? Integer.parseInt(args[3]) : 1, layout);
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        // Cada thread do lote usa uma parte dos processadores nos métodos paralelos
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, threads));
+        if (!SearchMethodFactory.isValidMethod(method) || null == heuristic) {
+            System.out.println("Método de busca ou estimativa inválida");
+            return;
+        }
+        String cachePath = System.getProperty("game.solutionCache");
+        SolutionCache cache = null == cachePath ? null : openSolutionCache(Paths.get(cachePath), layout);
+        long timeout = Long.getLong("game.searchTimeout", 0L);
+        long maxExpansions = Long.getLong("game.maxExpansions", 0L);
+        long maxResidentNodes = Long.getLong("game.maxResidentNodes", 0L);
+        // A saída padrão traz apenas os resultados do lote
+        SearchMetrics.unregister(SearchMetrics.CONSOLE);
+        long begin = System.nanoTime();
+        try (BufferedReader reader = "-".equals(args[1])
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8);
+                BatchSolver solver = new BatchSolver(() -> null == cache
+                        ? SearchMethodFactory.selectMethod(method, heuristic, parallelism)
+                        : new CachedSearchMethod(SearchMethodFactory.selectMethod(method, heuristic, parallelism),
+                                cache), threads,
+                        () -> new SearchBudget(timeout, maxExpansions, maxResidentNodes))) {
+            long solved = solver.solveAll(() -> new BoardReader(reader, layout), Game::printBatchResult);
+            long elapsed = System.nanoTime() - begin;
+            System.out.println(String.format("%d tabuleiros em %d ms (%.1f por segundo)",
+                    solved, elapsed / 1_000_000, solved * 1e9 / Math.max(1L, elapsed)));
+        }
+        if (null != cache) {
+            System.out.println(String.format("Memória de soluções: %d acertos, %d falhas, %d estados",
+                    cache.getHits(), cache.getMisses(), cache.size()));
+            cache.save(Paths.get(cachePath));
+        }
+    }
+
+    /**
+     * Carrega a memória de soluções do arquivo, ou cria uma vazia quando o
+     * arquivo ainda não existir. A capacidade vem da propriedade de sistema
+     * {@code game.solutionCacheSize}.
+     * @param path   Caminho do arquivo.
+     * @param layout Dimensões dos tabuleiros do lote.
+     * @return a memória de soluções.
+     * @throws IOException Erro na leitura do arquivo.
+     */
+    private static SolutionCache openSolutionCache(Path path, BoardLayout layout) throws IOException {
+        int capacity = Integer.getInteger("game.solutionCacheSize", DEFAULT_CACHE_SIZE);
+        if (!Files.exists(path)) {
+            return new SolutionCache(layout, capacity);
+        }
+        SolutionCache result = SolutionCache.load(path, capacity);
+        if (!layout.equals(result.getLayout())) {
+            throw new IllegalArgumentException("Memória de soluções " + path + " gerada para o tabuleiro "
+                    + result.getLayout() + ", esperado " + layout);
+        }
+        return result;
+    }
+
+    /**
+     * Escreve o resultado de um tabuleiro do lote em uma linha: posição,
+     * quantidade de movimentos (-1 sem solução), tempo em microssegundos e
+     * movimentos executados, ou a falha quando a busca não terminar.
+     * @param result Resultado da solução.
+     */
+    private static void printBatchResult(BatchResult result) {
+        StringJoiner movements = new StringJoiner(",");
+        for (int i = 1; i <= result.getMoves(); i++) {
+            movements.add(result.getSolution().get(i).getLastMove().toString());
+        }
+        String line = null == result.getError()
+                ? String.format("%d\t%d\t%d\t%s", result.getIndex(), result.getMoves(),
+                        result.getElapsedNanos() / 1000, movements.toString())
+                : String.format("%d\t%d\t%d\terro: %s", result.getIndex(), result.getMoves(),
+                        result.getElapsedNanos() / 1000, result.getError());
+        synchronized (System.out) {
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Converte as dimensões no formato {@code LxA} (por exemplo, 4x4).
+     * @param value Dimensões informadas.
+     * @return as dimensões do tabuleiro.
+     */
+    static BoardLayout parseLayout(String value) {
+        String[] dimensions = value.trim().split("x");
+        if (dimensions.length != 2) {
+            throw new IllegalArgumentException("Dimensões devem estar no formato LxA: " + value);
+        }
+        return BoardLayout.of(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+    }
+
+    /**
+     * Converte uma linha com as peças na ordem de leitura em tabuleiro.
+     * @param line   Linha com as peças separadas por espaço ou vírgula.
+     * @param layout Dimensões esperadas do tabuleiro.
+     * @return o tabuleiro, no formato {@code board[coluna][linha]}.
+     */
+    static int[][] parseBoard(String line, BoardLayout layout) {
+        String[] values = line.trim().split("[\\s,;]+");
+        if (values.length != layout.getCells()) {
+            throw new IllegalArgumentException("Tabuleiro deve ter " + layout.getCells() + " peças: " + line);
+        }
+        int[][] result = new int[layout.getWidth()][layout.getHeight()];
+        int seen = 0;
+        for (int index = 0; index < values.length; index++) {
+            int tile = Integer.parseInt(values[index]);
+            if (tile < 0 || tile >= layout.getCells() || (seen & (1 << tile)) != 0) {
+                throw new IllegalArgumentException("Peça inválida ou repetida: " + line);
+            }
+            seen |= 1 << tile;
+            result[layout.column(index)][layout.row(index)] = tile;
+        }
+        return result;
+    }
+
+    /**
+     * Leitura preguiçosa dos tabuleiros de uma entrada, uma linha por vez.
+     * Linhas vazias ou iniciadas por # são ignoradas, e linhas inválidas são
+     * informadas e descartadas.
+     */
+    private static final class BoardReader implements Iterator<Board> {
+
+        /** Entrada dos tabuleiros. */
+        private final BufferedReader reader;
+        /** Dimensões dos tabuleiros. */
+        private final BoardLayout layout;
+        /** Próximo tabuleiro lido, nulo se ainda não foi lido. */
+        private Board next;
+
+        BoardReader(BufferedReader reader, BoardLayout layout) {
+            this.reader = reader;
+            this.layout = layout;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                String line;
+                while (null == this.next && null != (line = this.reader.readLine())) {
+                    if (line.trim().isEmpty() || line.trim().startsWith("#")) {
+                        continue;
+                    }
+                    try {
+                        this.next = new Board(parseBoard(line, this.layout), this.layout);
+                    } catch (IllegalArgumentException ex) {
+                        System.err.println(ex.getMessage());
+                    }
+                }
+                return null != this.next;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public Board next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Board result = this.next;
+            this.next = null;
+            return result;
+        }
+
+    }
+
 }
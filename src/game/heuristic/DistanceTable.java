@@ -0,0 +1,258 @@
+package game.heuristic;
+
+import game.BoardGameMoveEnum;
+import game.BoardLayout;
+import game.BoardState;
+import game.BoardSymmetry;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tabela completa das distâncias exatas até o resultado esperado.
+ * <p>
+ * Uma busca em largura reversa a partir do resultado visita todos os estados
+ * alcançáveis e guarda a distância de cada um em um byte, indexado pelo
+ * ranking da permutação ({@code 9!} bytes, cerca de 363 KB, no tabuleiro
+ * 3x3). Estados da outra paridade, sem solução, ficam com
+ * {@link #UNREACHABLE}. Como estimativa, a tabela é exata.
+ * <p>
+ * Estados equivalentes pelas simetrias do tabuleiro (ver
+ * {@link BoardSymmetry}) têm a mesma distância, então a busca reversa expande
+ * apenas o representante canônico de cada classe e grava a distância em
+ * todos os estados da classe, reduzindo as expansões e a fila pela
+ * quantidade de simetrias.
+ * <p>
+ * A tabela pode ser gravada em arquivo e carregada depois, mapeada
+ * diretamente em memória. Formato do arquivo, em big-endian:
+ * <pre>
+ * int  MAGIC
+ * int  VERSION
+ * int  largura, int altura
+ * long resultado esperado compactado
+ * byte distâncias, uma por ranking
+ * </pre>
+ * <pre>
+ * java game.heuristic.DistanceTable distancias.dst
+ * </pre>
+ */
+public class DistanceTable implements IHeuristic {
+
+    /** Identificador do formato do arquivo ("DST\0"). */
+    static final int MAGIC = 0x44535400;
+    /** Versão do formato do arquivo. */
+    static final int VERSION = 1;
+    /** Tamanho do cabeçalho do arquivo, em bytes. */
+    private static final int HEADER_BYTES = 4 * 4 + 8;
+    /** Maior quantidade de casas suportada (10! bytes, cerca de 3,5 MB). */
+    private static final int MAX_CELLS = 10;
+    /** Distância dos estados que não alcançam o resultado esperado. */
+    public static final int UNREACHABLE = 0xFF;
+
+    /** Dimensões e resultado esperado do tabuleiro. */
+    private final BoardLayout layout;
+    /** Distância de cada estado, indexada pelo ranking da permutação. */
+    private final ByteBuffer table;
+
+    /**
+     * Constrói em memória a tabela do tabuleiro padrão.
+     */
+    public DistanceTable() {
+        this(BoardLayout.DEFAULT);
+    }
+
+    /**
+     * Constrói em memória a tabela de um tabuleiro.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     */
+    public DistanceTable(BoardLayout layout) {
+        this(layout, build(layout));
+    }
+
+    /**
+     * Tabela a partir de distâncias já calculadas.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     * @param table  Distância de cada estado, indexada pelo ranking.
+     */
+    private DistanceTable(BoardLayout layout, ByteBuffer table) {
+        this.layout = layout;
+        this.table = table;
+    }
+
+    /**
+     * Gera o arquivo da tabela do tabuleiro padrão.
+     * @param args Caminho do arquivo.
+     * @throws IOException Erro na gravação do arquivo.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Uso: DistanceTable <arquivo>");
+            return;
+        }
+        long begin = System.nanoTime();
+        DistanceTable table = new DistanceTable();
+        System.out.println(String.format("Tabela gerada em %d ms", (System.nanoTime() - begin) / 1_000_000));
+        table.save(Paths.get(args[0]));
+    }
+
+    /**
+     * Carrega a tabela de um arquivo, mapeando-o em memória.
+     * @param path Caminho do arquivo.
+     * @return a tabela do arquivo.
+     * @throws IOException Erro na leitura do arquivo ou formato inválido.
+     */
+    public static DistanceTable load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // O mapeamento continua válido após o fechamento do canal
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Arquivo não é uma tabela de distâncias: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Versão de tabela de distâncias não suportada: " + version);
+            }
+            BoardLayout layout;
+            try {
+                layout = new BoardLayout(buffer.getInt(), buffer.getInt(), buffer.getLong());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Tabuleiro inválido na tabela de distâncias: " + path, e);
+            }
+            if (layout.getCells() > MAX_CELLS || buffer.remaining() != layout.permutations()) {
+                throw new IOException("Tamanho da tabela de distâncias não confere: " + path);
+            }
+            return new DistanceTable(layout, buffer.slice());
+        }
+    }
+
+    /**
+     * Grava a tabela em arquivo. O arquivo é escrito em um temporário e movido
+     * ao final, para que leitores nunca vejam um arquivo incompleto.
+     * @param path Caminho do arquivo.
+     * @throws IOException Erro na gravação do arquivo.
+     */
+    public void save(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(temporary);
+                    DataOutputStream out = new DataOutputStream(stream)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(this.layout.getWidth());
+                out.writeInt(this.layout.getHeight());
+                out.writeLong(this.layout.getGoal());
+                out.flush();
+                WritableByteChannel channel = Channels.newChannel(stream);
+                ByteBuffer buffer = this.table.asReadOnlyBuffer();
+                buffer.rewind();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Retorna a distância exata de um estado até o resultado esperado.
+     * @param state Estado compactado.
+     * @return a distância, ou {@link #UNREACHABLE} para estados sem solução.
+     */
+    public int distance(long state) {
+        return this.table.get(this.layout.rank(state)) & 0xFF;
+    }
+
+    @Override
+    public int estimate(long state) {
+        return this.distance(state);
+    }
+
+    @Override
+    public int update(long parentState, int parentValue, long childState, int tile, int from, int to) {
+        return this.distance(childState);
+    }
+
+    @Override
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * As distâncias exatas são simétricas.
+     * @return sempre verdadeiro.
+     */
+    @Override
+    public boolean isSymmetric() {
+        return true;
+    }
+
+    /**
+     * As distâncias exatas são consistentes.
+     * @return sempre verdadeiro.
+     */
+    @Override
+    public boolean isConsistent() {
+        return true;
+    }
+
+    /**
+     * Executa a busca em largura reversa a partir do resultado esperado, sobre
+     * os representantes canônicos.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     * @return a distância de cada estado, indexada pelo ranking.
+     */
+    static ByteBuffer build(BoardLayout layout) {
+        if (layout.getCells() > MAX_CELLS) {
+            throw new IllegalArgumentException("Tabela de distâncias não suportada para o tabuleiro " + layout);
+        }
+        ByteBuffer result = ByteBuffer.allocate(layout.permutations());
+        for (int i = 0; i < result.capacity(); i++) {
+            result.put(i, (byte) UNREACHABLE);
+        }
+        BoardSymmetry symmetry = new BoardSymmetry(layout);
+        // Apenas metade das permutações é alcançável a partir do resultado, e
+        // cada classe de equivalência tem no máximo um estado por simetria
+        long[] queue = new long[layout.permutations() / 2];
+        int head = 0;
+        int tail = 0;
+        // O resultado esperado é o representante da própria classe
+        queue[tail++] = layout.getGoal();
+        result.put(layout.rank(layout.getGoal()), (byte) 0);
+        while (head < tail) {
+            long state = queue[head++];
+            int distance = result.get(layout.rank(state)) & 0xFF;
+            int blank = layout.findBlank(state);
+            for (BoardGameMoveEnum movement : BoardGameMoveEnum.values()) {
+                int target = layout.target(blank, movement);
+                if (movement == BoardGameMoveEnum.UNKNOWN || target < 0) {
+                    continue;
+                }
+                long child = symmetry.canonical(BoardState.move(state, blank, target));
+                if ((result.get(layout.rank(child)) & 0xFF) == UNREACHABLE) {
+                    // Grava a distância em todos os estados equivalentes
+                    for (int i = 0; i < symmetry.size(); i++) {
+                        result.put(layout.rank(symmetry.apply(i, child)), (byte) (distance + 1));
+                    }
+                    queue[tail++] = child;
+                }
+            }
+        }
+        return result;
+    }
+
+}
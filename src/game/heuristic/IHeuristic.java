@@ -0,0 +1,94 @@
+package game.heuristic;
+
+import game.BoardLayout;
+
+/**
+ * Estimativa da quantidade de movimentos restantes até o resultado esperado.
+ * <p>
+ * As implementações trabalham diretamente sobre o estado compactado (ver
+ * {@link game.BoardState}), ou sobre o estado largo nos tabuleiros com mais
+ * de 16 casas, e não devem alocar objetos por chamada. Também não
+ * devem guardar estado mutável: as tabelas são montadas na construção e
+ * apenas lidas depois, de forma que uma mesma instância pode ser usada ao
+ * mesmo tempo por várias buscas, como nas threads da solução em lote.
+ */
+public interface IHeuristic {
+
+    /**
+     * Calcula a estimativa completa de um estado.
+     * @param state Estado compactado.
+     * @return a estimativa de movimentos restantes.
+     */
+    public int estimate(long state);
+
+    /**
+     * Calcula a estimativa de um estado filho a partir da estimativa do pai e
+     * da peça movimentada.
+     * @param parentState Estado compactado do pai.
+     * @param parentValue Estimativa do pai.
+     * @param childState  Estado compactado do filho.
+     * @param tile        Peça movimentada.
+     * @param from        Casa onde a peça estava (branco do filho).
+     * @param to          Casa para onde a peça foi (branco do pai).
+     * @return a estimativa de movimentos restantes do filho.
+     */
+    public int update(long parentState, int parentValue, long childState, int tile, int from, int to);
+
+    /**
+     * Calcula a estimativa completa de um estado largo, usado pelos
+     * tabuleiros com mais de 16 casas. Por padrão a estimativa não suporta
+     * esses tabuleiros.
+     * @param state Estado largo.
+     * @return a estimativa de movimentos restantes.
+     */
+    public default int estimate(long[] state) {
+        throw new UnsupportedOperationException("Estimativa " + this.getClass().getSimpleName()
+                + " não suporta tabuleiros com mais de " + BoardLayout.MAX_COMPACT_CELLS + " casas");
+    }
+
+    /**
+     * Calcula a estimativa de um estado largo filho a partir da estimativa do
+     * pai e da peça movimentada. Por padrão refaz a estimativa completa.
+     * @param parentState Estado largo do pai.
+     * @param parentValue Estimativa do pai.
+     * @param childState  Estado largo do filho.
+     * @param tile        Peça movimentada.
+     * @param from        Casa onde a peça estava (branco do filho).
+     * @param to          Casa para onde a peça foi (branco do pai).
+     * @return a estimativa de movimentos restantes do filho.
+     */
+    public default int update(long[] parentState, int parentValue, long[] childState, int tile, int from, int to) {
+        return this.estimate(childState);
+    }
+
+    /**
+     * Retorna as dimensões e o resultado esperado para os quais a estimativa
+     * foi montada.
+     * @return as dimensões e o resultado esperado do tabuleiro, ou nulo
+     *         quando a estimativa vale para qualquer tabuleiro.
+     */
+    public BoardLayout getLayout();
+
+    /**
+     * Indica se a estimativa é igual para estados equivalentes pelas simetrias
+     * do tabuleiro (ver {@link game.BoardSymmetry}). Só com estimativas
+     * simétricas a busca pode descartar um estado quando um equivalente já foi
+     * expandido.
+     * @return Indicador de estimativa simétrica.
+     */
+    public default boolean isSymmetric() {
+        return false;
+    }
+
+    /**
+     * Indica se a estimativa é consistente: um movimento nunca a muda em
+     * mais de 1. Com estimativas apenas admissíveis, um estado pode ser
+     * alcançado por um caminho mais curto depois de expandido, e as buscas
+     * que dependem da consistência precisam reabri-lo.
+     * @return Indicador de estimativa consistente.
+     */
+    public default boolean isConsistent() {
+        return false;
+    }
+
+}
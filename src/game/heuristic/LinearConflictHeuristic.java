@@ -0,0 +1,223 @@
+package game.heuristic;
+
+import game.BoardLayout;
+import game.BoardState;
+
+/**
+ * Distância de Manhattan acrescida dos conflitos lineares.
+ * <p>
+ * Duas peças estão em conflito quando estão na linha (ou coluna) de destino,
+ * mas em ordem invertida; uma delas precisa sair da linha e voltar, somando
+ * dois movimentos. Para cada linha são contadas as peças que precisam sair
+ * para que as demais fiquem em ordem, o que mantém a estimativa admissível.
+ */
+public class LinearConflictHeuristic implements IHeuristic {
+
+    /** Distância de Manhattan, base da estimativa. */
+    private final ManhattanHeuristic manhattan;
+    /** Dimensões e resultado esperado do tabuleiro. */
+    private final BoardLayout layout;
+    /** Linha de cada peça no resultado esperado. */
+    private final int[] resultRow;
+    /** Coluna de cada peça no resultado esperado. */
+    private final int[] resultColumn;
+
+    /**
+     * Conflitos lineares no tabuleiro padrão.
+     */
+    public LinearConflictHeuristic() {
+        this(BoardLayout.DEFAULT);
+    }
+
+    /**
+     * Conflitos lineares.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     */
+    public LinearConflictHeuristic(BoardLayout layout) {
+        this.manhattan = new ManhattanHeuristic(layout);
+        this.layout = layout;
+        this.resultRow = new int[layout.getCells()];
+        this.resultColumn = new int[layout.getCells()];
+        for (int index = 0; index < layout.getCells(); index++) {
+            int tile = layout.goalTile(index);
+            this.resultRow[tile] = layout.row(index);
+            this.resultColumn[tile] = layout.column(index);
+        }
+    }
+
+    @Override
+    public int estimate(long state) {
+        return this.manhattan.estimate(state) + this.conflicts(state, null);
+    }
+
+    @Override
+    public int update(long parentState, int parentValue, long childState, int tile, int from, int to) {
+        return this.manhattan.update(parentState, parentValue, childState, tile, from, to)
+                + this.conflictChange(parentState, null, childState, null, from, to);
+    }
+
+    @Override
+    public int estimate(long[] state) {
+        return this.manhattan.estimate(state) + this.conflicts(0L, state);
+    }
+
+    @Override
+    public int update(long[] parentState, int parentValue, long[] childState, int tile, int from, int to) {
+        return this.manhattan.update(parentState, parentValue, childState, tile, from, to)
+                + this.conflictChange(0L, parentState, 0L, childState, from, to);
+    }
+
+    @Override
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Os conflitos lineares são simétricos: as simetrias levam linhas e
+     * colunas em linhas e colunas, mantendo os conflitos em cada uma.
+     * @return sempre verdadeiro.
+     */
+    @Override
+    public boolean isSymmetric() {
+        return true;
+    }
+
+    /**
+     * Os conflitos lineares são consistentes: a peça movimentada sai de uma
+     * linha e entra em outra, o que muda a distância de Manhattan em 1 e os
+     * conflitos em 0 ou 2 no sentido contrário.
+     * @return sempre verdadeiro.
+     */
+    @Override
+    public boolean isConsistent() {
+        return true;
+    }
+
+    /**
+     * Calcula os movimentos extras causados por conflitos em todas as linhas
+     * e colunas.
+     * @param state Estado compactado, ignorado quando há estado largo.
+     * @param wide  Estado largo, nulo nos tabuleiros compactos.
+     * @return os movimentos extras do estado.
+     */
+    private int conflicts(long state, long[] wide) {
+        int result = 0;
+        for (int row = 0; row < this.layout.getHeight(); row++) {
+            result += this.rowConflicts(state, wide, row);
+        }
+        for (int column = 0; column < this.layout.getWidth(); column++) {
+            result += this.columnConflicts(state, wide, column);
+        }
+        return result;
+    }
+
+    /**
+     * Calcula a variação dos conflitos causada pelo movimento de uma peça.
+     * @param parentState Estado compactado do pai, ignorado quando há estado largo.
+     * @param parentWide  Estado largo do pai, nulo nos tabuleiros compactos.
+     * @param childState  Estado compactado do filho, ignorado quando há estado largo.
+     * @param childWide   Estado largo do filho, nulo nos tabuleiros compactos.
+     * @param from        Casa onde a peça estava.
+     * @param to          Casa para onde a peça foi.
+     * @return a variação dos movimentos extras.
+     */
+    private int conflictChange(long parentState, long[] parentWide, long childState, long[] childWide,
+            int from, int to) {
+        // A ordem das peças só muda nas linhas (ou colunas) cruzadas pela peça
+        if (this.layout.row(from) == this.layout.row(to)) {
+            int fromColumn = this.layout.column(from);
+            int toColumn = this.layout.column(to);
+            return this.columnConflicts(childState, childWide, fromColumn)
+                    + this.columnConflicts(childState, childWide, toColumn)
+                    - this.columnConflicts(parentState, parentWide, fromColumn)
+                    - this.columnConflicts(parentState, parentWide, toColumn);
+        }
+        int fromRow = this.layout.row(from);
+        int toRow = this.layout.row(to);
+        return this.rowConflicts(childState, childWide, fromRow)
+                + this.rowConflicts(childState, childWide, toRow)
+                - this.rowConflicts(parentState, parentWide, fromRow)
+                - this.rowConflicts(parentState, parentWide, toRow);
+    }
+
+    /**
+     * Retorna a peça de uma casa, no estado compactado ou no largo.
+     * @param state Estado compactado, ignorado quando há estado largo.
+     * @param wide  Estado largo, nulo nos tabuleiros compactos.
+     * @param index Índice da casa.
+     * @return a peça da casa.
+     */
+    private static int tileAt(long state, long[] wide, int index) {
+        return null == wide ? BoardState.tileAt(state, index) : BoardState.tileAt(wide, index);
+    }
+
+    /**
+     * Calcula os movimentos extras causados por conflitos em uma linha.
+     * @param state Estado compactado, ignorado quando há estado largo.
+     * @param wide  Estado largo, nulo nos tabuleiros compactos.
+     * @param row   Linha verificada.
+     * @return os movimentos extras da linha.
+     */
+    private int rowConflicts(long state, long[] wide, int row) {
+        // Colunas de destino das peças que pertencem à linha, na ordem atual
+        long targets = 0L;
+        int count = 0;
+        for (int column = 0; column < this.layout.getWidth(); column++) {
+            int tile = tileAt(state, wide, this.layout.index(row, column));
+            if (tile != 0 && this.resultRow[tile] == row) {
+                targets |= ((long) this.resultColumn[tile]) << (count * 4);
+                count++;
+            }
+        }
+        return 2 * (count - longestIncreasing(targets, count));
+    }
+
+    /**
+     * Calcula os movimentos extras causados por conflitos em uma coluna.
+     * @param state  Estado compactado, ignorado quando há estado largo.
+     * @param wide   Estado largo, nulo nos tabuleiros compactos.
+     * @param column Coluna verificada.
+     * @return os movimentos extras da coluna.
+     */
+    private int columnConflicts(long state, long[] wide, int column) {
+        // Linhas de destino das peças que pertencem à coluna, na ordem atual
+        long targets = 0L;
+        int count = 0;
+        for (int row = 0; row < this.layout.getHeight(); row++) {
+            int tile = tileAt(state, wide, this.layout.index(row, column));
+            if (tile != 0 && this.resultColumn[tile] == column) {
+                targets |= ((long) this.resultRow[tile]) << (count * 4);
+                count++;
+            }
+        }
+        return 2 * (count - longestIncreasing(targets, count));
+    }
+
+    /**
+     * Calcula o tamanho da maior subsequência crescente de uma sequência de
+     * valores compactados a cada 4 bits. As sequências têm no máximo o tamanho
+     * de uma linha, então o cálculo quadrático é suficiente.
+     * @param values Valores compactados.
+     * @param count  Quantidade de valores.
+     * @return o tamanho da maior subsequência crescente.
+     */
+    private static int longestIncreasing(long values, int count) {
+        // Tamanho da maior subsequência terminada em cada posição, 4 bits cada
+        long lengths = 0L;
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            int value = (int) ((values >>> (i * 4)) & 0xF);
+            int length = 1;
+            for (int j = 0; j < i; j++) {
+                int previousLength = (int) ((lengths >>> (j * 4)) & 0xF);
+                if (((values >>> (j * 4)) & 0xF) < value && previousLength + 1 > length) {
+                    length = previousLength + 1;
+                }
+            }
+            lengths |= ((long) length) << (i * 4);
+            result = Math.max(result, length);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,126 @@
+package game.heuristic;
+
+import game.BoardLayout;
+import game.BoardState;
+
+/**
+ * Soma das distâncias de Manhattan de cada peça até a sua posição no
+ * resultado esperado.
+ */
+public class ManhattanHeuristic implements IHeuristic {
+
+    /** Dimensões e resultado esperado do tabuleiro. */
+    private final BoardLayout layout;
+    /** Distância de cada peça, em cada casa, indexada por {@code peça * casas + casa}. */
+    private final int[] distance;
+    /**
+     * Variação da distância de cada peça ao mudar de casa, indexada por
+     * {@code (peça * casas + origem) * casas + destino}.
+     */
+    private final byte[] deltas;
+    /** Quantidade de casas do tabuleiro. */
+    private final int cells;
+
+    /**
+     * Distância de Manhattan no tabuleiro padrão.
+     */
+    public ManhattanHeuristic() {
+        this(BoardLayout.DEFAULT);
+    }
+
+    /**
+     * Distância de Manhattan.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     */
+    public ManhattanHeuristic(BoardLayout layout) {
+        this.layout = layout;
+        int cells = layout.getCells();
+        this.cells = cells;
+        this.distance = new int[cells * cells];
+        for (int target = 0; target < cells; target++) {
+            int tile = layout.goalTile(target);
+            // O quadrado branco não entra na soma
+            if (tile != 0) {
+                for (int index = 0; index < cells; index++) {
+                    this.distance[tile * cells + index]
+                            = Math.abs(layout.row(index) - layout.row(target))
+                            + Math.abs(layout.column(index) - layout.column(target));
+                }
+            }
+        }
+        // Pré-calcula a variação de cada movimento de peça para a atualização incremental
+        this.deltas = new byte[cells * cells * cells];
+        for (int tile = 0; tile < cells; tile++) {
+            for (int from = 0; from < cells; from++) {
+                for (int to = 0; to < cells; to++) {
+                    this.deltas[(tile * cells + from) * cells + to]
+                            = (byte) (this.distance(tile, to) - this.distance(tile, from));
+                }
+            }
+        }
+    }
+
+    @Override
+    public int estimate(long state) {
+        int result = 0;
+        for (int index = 0; index < this.layout.getCells(); index++) {
+            result += this.distance(BoardState.tileAt(state, index), index);
+        }
+        return result;
+    }
+
+    @Override
+    public int update(long parentState, int parentValue, long childState, int tile, int from, int to) {
+        return parentValue + this.deltas[(tile * this.cells + from) * this.cells + to];
+    }
+
+    @Override
+    public int estimate(long[] state) {
+        int result = 0;
+        for (int index = 0; index < this.layout.getCells(); index++) {
+            result += this.distance(BoardState.tileAt(state, index), index);
+        }
+        return result;
+    }
+
+    @Override
+    public int update(long[] parentState, int parentValue, long[] childState, int tile, int from, int to) {
+        return parentValue + this.deltas[(tile * this.cells + from) * this.cells + to];
+    }
+
+    @Override
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * A distância de Manhattan é simétrica: as simetrias preservam as
+     * distâncias entre casas.
+     * @return sempre verdadeiro.
+     */
+    @Override
+    public boolean isSymmetric() {
+        return true;
+    }
+
+    /**
+     * A distância de Manhattan é consistente: cada movimento muda a distância
+     * de uma única peça em exatamente 1.
+     * @return sempre verdadeiro.
+     */
+    @Override
+    public boolean isConsistent() {
+        return true;
+    }
+
+    /**
+     * Retorna a distância de uma peça até a sua posição no resultado esperado.
+     * @param tile  Peça.
+     * @param index Casa onde a peça está.
+     * @return a distância da peça.
+     */
+    int distance(int tile, int index) {
+        return this.distance[tile * this.cells + index];
+    }
+
+}
@@ -0,0 +1,248 @@
+package game.heuristic;
+
+import game.BoardLayout;
+import game.BoardState;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Base de dados de padrões: distância exata até o resultado esperado de um
+ * subconjunto de peças, contando apenas os movimentos dessas peças.
+ * <p>
+ * A tabela é indexada pelo ranking das posições das peças do padrão e do
+ * quadrado branco e guarda cada distância em 4 bits, limitada a 15 (o que
+ * mantém a admissibilidade). Guardar a distância de cada posição do branco,
+ * em vez da menor entre todas, mantém a estimativa consistente: um movimento
+ * muda a distância em no máximo 1, e os movimentos de peças fora do padrão,
+ * que mantêm o branco na mesma região entre as peças do padrão, não a mudam.
+ * Como só os movimentos das peças do padrão são contados, bases com padrões
+ * disjuntos podem ser somadas.
+ * <p>
+ * As tabelas podem ser construídas em memória ou carregadas de um arquivo
+ * gerado por {@link PatternDatabaseBuilder}, mapeado diretamente em memória
+ * para que várias JVMs compartilhem as mesmas páginas.
+ * <p>
+ * Formato do arquivo, em big-endian:
+ * <pre>
+ * int  MAGIC
+ * int  VERSION
+ * int  largura, int altura
+ * long resultado esperado compactado
+ * int  quantidade de padrões
+ * para cada padrão: int quantidade de peças, int peças..., long início da tabela
+ * tabelas, 2 distâncias por byte (a de índice par nos 4 bits menores),
+ *        indexadas pelas casas das peças do padrão seguidas pela do branco
+ * </pre>
+ */
+public class PatternDatabase {
+
+    /** Identificador do formato do arquivo ("PDB\0"). */
+    static final int MAGIC = 0x50444200;
+    /** Versão do formato do arquivo. */
+    static final int VERSION = 2;
+    /** Maior distância representável em uma entrada. */
+    static final int MAX_DISTANCE = 0xF;
+
+    /** Dimensões e resultado esperado do tabuleiro. */
+    private final BoardLayout layout;
+    /** Peças que compõem o padrão. */
+    private final int[] tiles;
+    /** Posição de cada peça dentro do padrão, -1 quando não pertence. */
+    private final int[] slotOf;
+    /** Distâncias indexadas pelo ranking das posições das peças e do branco, 4 bits cada. */
+    private final ByteBuffer table;
+
+    /**
+     * Constrói em memória a base de dados de um padrão do tabuleiro padrão.
+     * @param tiles Peças que compõem o padrão.
+     */
+    public PatternDatabase(int... tiles) {
+        this(BoardLayout.DEFAULT, tiles);
+    }
+
+    /**
+     * Constrói em memória a base de dados de um padrão.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     * @param tiles  Peças que compõem o padrão.
+     */
+    public PatternDatabase(BoardLayout layout, int... tiles) {
+        this(layout, tiles, PatternDatabaseBuilder.buildTable(layout, tiles));
+    }
+
+    /**
+     * Base de dados de um padrão a partir de uma tabela já construída.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     * @param tiles  Peças que compõem o padrão.
+     * @param table  Distâncias compactadas a cada 4 bits.
+     */
+    PatternDatabase(BoardLayout layout, int[] tiles, ByteBuffer table) {
+        this.layout = layout;
+        this.tiles = tiles.clone();
+        this.slotOf = slots(tiles, layout.getCells());
+        this.table = table;
+    }
+
+    /**
+     * Carrega as bases de dados de um arquivo, mapeando-o em memória.
+     * @param path Caminho do arquivo.
+     * @return as bases de dados do arquivo.
+     * @throws IOException Erro na leitura do arquivo ou formato inválido.
+     */
+    public static PatternDatabase[] load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // O mapeamento continua válido após o fechamento do canal
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Arquivo não é uma base de dados de padrões: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Versão de base de dados não suportada: " + version);
+            }
+            BoardLayout layout;
+            try {
+                layout = new BoardLayout(buffer.getInt(), buffer.getInt(), buffer.getLong());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Tabuleiro inválido na base de dados: " + path, e);
+            }
+            PatternDatabase[] result = new PatternDatabase[buffer.getInt()];
+            for (int i = 0; i < result.length; i++) {
+                int[] tiles = new int[buffer.getInt()];
+                for (int slot = 0; slot < tiles.length; slot++) {
+                    tiles[slot] = buffer.getInt();
+                }
+                long offset = buffer.getLong();
+                // Recorta a tabela do padrão sem copiar os dados
+                ByteBuffer table = buffer.duplicate();
+                table.position((int) offset).limit((int) offset + tableBytes(tiles.length, layout.getCells()));
+                result[i] = new PatternDatabase(layout, tiles, table.slice());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Retorna a distância do padrão no estado informado.
+     * @param state Estado compactado.
+     * @return a distância do padrão.
+     */
+    public int lookup(long state) {
+        // Posições das peças do padrão e, por último, a do branco, 4 bits cada
+        long positions = 0L;
+        for (int index = 0; index < this.layout.getCells(); index++) {
+            int tile = BoardState.tileAt(state, index);
+            int slot = tile == 0 ? this.tiles.length : this.slotOf[tile];
+            if (slot >= 0) {
+                positions |= ((long) index) << (slot * 4);
+            }
+        }
+        int rank = rank(positions, this.tiles.length + 1, this.layout.getCells());
+        return (this.table.get(rank >>> 1) >>> ((rank & 1) * 4)) & MAX_DISTANCE;
+    }
+
+    /**
+     * Verifica se a peça pertence ao padrão.
+     * @param tile Peça verificada.
+     * @return Indicador de peça do padrão.
+     */
+    public boolean contains(int tile) {
+        return this.slotOf[tile] >= 0;
+    }
+
+    /**
+     * Retorna as dimensões e o resultado esperado do tabuleiro.
+     * @return as dimensões e o resultado esperado do tabuleiro.
+     */
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Retorna as peças que compõem o padrão.
+     * @return as peças que compõem o padrão.
+     */
+    public int[] getTiles() {
+        return tiles.clone();
+    }
+
+    /**
+     * Retorna uma visão somente leitura da tabela de distâncias.
+     * @return a tabela de distâncias compactadas.
+     */
+    ByteBuffer getTable() {
+        return this.table.asReadOnlyBuffer();
+    }
+
+    /**
+     * Calcula a posição de cada peça dentro do padrão, validando as peças.
+     * @param tiles Peças que compõem o padrão.
+     * @param cells Quantidade de casas do tabuleiro.
+     * @return a posição de cada peça, -1 quando não pertence.
+     */
+    static int[] slots(int[] tiles, int cells) {
+        int[] result = new int[cells];
+        Arrays.fill(result, -1);
+        for (int slot = 0; slot < tiles.length; slot++) {
+            if (tiles[slot] <= 0 || tiles[slot] >= cells || result[tiles[slot]] >= 0) {
+                throw new IllegalArgumentException("Peça inválida no padrão: " + tiles[slot]);
+            }
+            result[tiles[slot]] = slot;
+        }
+        return result;
+    }
+
+    /**
+     * Calcula o ranking de uma sequência de casas distintas, entre 0 e
+     * {@code arrangements(count) - 1}.
+     * @param positions Casas compactadas a cada 4 bits.
+     * @param count     Quantidade de casas consideradas.
+     * @param cells     Quantidade de casas do tabuleiro.
+     * @return o ranking das posições.
+     */
+    static int rank(long positions, int count, int cells) {
+        int result = 0;
+        int used = 0;
+        for (int slot = 0; slot < count; slot++) {
+            int index = (int) ((positions >>> (slot * 4)) & 0xF);
+            result = result * (cells - slot) + index - Integer.bitCount(used & ((1 << index) - 1));
+            used |= 1 << index;
+        }
+        return result;
+    }
+
+    /**
+     * Calcula a quantidade de formas de posicionar itens distintos nas casas.
+     * @param count Quantidade de itens.
+     * @param cells Quantidade de casas do tabuleiro.
+     * @return a quantidade de arranjos.
+     */
+    static int arrangements(int count, int cells) {
+        long result = 1;
+        for (int slot = 0; slot < count; slot++) {
+            result *= cells - slot;
+        }
+        if (result > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Padrão grande demais para o tabuleiro: " + count + " peças");
+        }
+        return (int) result;
+    }
+
+    /**
+     * Calcula o tamanho em bytes da tabela de um padrão, com uma entrada por
+     * posição das peças do padrão e do branco.
+     * @param count Quantidade de peças do padrão.
+     * @param cells Quantidade de casas do tabuleiro.
+     * @return o tamanho da tabela em bytes.
+     */
+    static int tableBytes(int count, int cells) {
+        return (int) ((arrangements(count + 1, cells) + 1L) >>> 1);
+    }
+
+}
@@ -0,0 +1,247 @@
+package game.heuristic;
+
+import game.BoardLayout;
+import game.BoardState;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Geração das bases de dados de padrões.
+ * <p>
+ * Pode ser executada uma única vez para gravar as tabelas em arquivo, que
+ * depois é carregado por {@link PatternDatabase#load(Path)}:
+ * <pre>
+ * java game.heuristic.PatternDatabaseBuilder padroes.pdb 1,2,3,4 5,6,7,8
+ * java game.heuristic.PatternDatabaseBuilder padroes15.pdb 4x4 1,2,3,4,5 6,7,8,9,10 11,12,13,14,15
+ * </pre>
+ */
+public final class PatternDatabaseBuilder {
+
+    private PatternDatabaseBuilder() {
+    }
+
+    /**
+     * Gera o arquivo de bases de dados informado nos argumentos.
+     * @param args Caminho do arquivo, dimensões opcionais ({@code LxA}) e os
+     *             padrões, peças separadas por vírgula.
+     * @throws IOException Erro na gravação do arquivo.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Uso: PatternDatabaseBuilder <arquivo> [LxA] <peças do padrão>...");
+            return;
+        }
+        BoardLayout layout = BoardLayout.DEFAULT;
+        int first = 1;
+        // Dimensões opcionais no formato largura x altura
+        if (args[1].matches("\\d+x\\d+")) {
+            String[] dimensions = args[1].split("x");
+            layout = BoardLayout.of(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+            first = 2;
+        }
+        PatternDatabase[] databases = new PatternDatabase[args.length - first];
+        for (int i = first; i < args.length; i++) {
+            int[] tiles = Arrays.stream(args[i].split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+            long begin = System.nanoTime();
+            databases[i - first] = new PatternDatabase(layout, tiles);
+            System.out.println(String.format("Padrão %s gerado em %d ms",
+                    Arrays.toString(tiles), (System.nanoTime() - begin) / 1_000_000));
+        }
+        write(Paths.get(args[0]), databases);
+    }
+
+    /**
+     * Grava as bases de dados em arquivo. O arquivo é escrito em um temporário
+     * e movido ao final, para que leitores nunca vejam um arquivo incompleto.
+     * Todas as bases devem pertencer ao mesmo tabuleiro.
+     * @param path      Caminho do arquivo.
+     * @param databases Bases de dados a serem gravadas.
+     * @throws IOException Erro na gravação do arquivo.
+     */
+    public static void write(Path path, PatternDatabase... databases) throws IOException {
+        BoardLayout layout = databases.length > 0 ? databases[0].getLayout() : BoardLayout.DEFAULT;
+        for (PatternDatabase database : databases) {
+            if (!layout.equals(database.getLayout())) {
+                throw new IllegalArgumentException("Bases de dados de tabuleiros diferentes: "
+                        + layout + " e " + database.getLayout());
+            }
+        }
+        Path absolute = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(temporary);
+                    DataOutputStream out = new DataOutputStream(stream)) {
+                out.writeInt(PatternDatabase.MAGIC);
+                out.writeInt(PatternDatabase.VERSION);
+                out.writeInt(layout.getWidth());
+                out.writeInt(layout.getHeight());
+                out.writeLong(layout.getGoal());
+                out.writeInt(databases.length);
+                // Calcula o início de cada tabela, logo após o cabeçalho
+                long offset = 4 * 4 + 8 + 4;
+                for (PatternDatabase database : databases) {
+                    offset += 4 + 4 * database.getTiles().length + 8;
+                }
+                for (PatternDatabase database : databases) {
+                    int[] tiles = database.getTiles();
+                    out.writeInt(tiles.length);
+                    for (int tile : tiles) {
+                        out.writeInt(tile);
+                    }
+                    out.writeLong(offset);
+                    offset += PatternDatabase.tableBytes(tiles.length, layout.getCells());
+                }
+                out.flush();
+                WritableByteChannel channel = Channels.newChannel(stream);
+                for (PatternDatabase database : databases) {
+                    ByteBuffer table = database.getTable();
+                    table.rewind();
+                    while (table.hasRemaining()) {
+                        channel.write(table);
+                    }
+                }
+            }
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Executa a busca em largura reversa sobre o espaço abstrato formado pelas
+     * posições das peças do padrão e do quadrado branco. Movimentos de peças
+     * fora do padrão têm custo zero, então cada camada é fechada antes de a
+     * próxima ser processada. A distância de cada estado abstrato é gravada
+     * com a posição do branco, o que mantém a estimativa consistente.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     * @param tiles  Peças que compõem o padrão.
+     * @return as distâncias indexadas pelo ranking das posições das peças e
+     *         do branco, 4 bits cada.
+     */
+    static ByteBuffer buildTable(BoardLayout layout, int[] tiles) {
+        int cells = layout.getCells();
+        int[] slotOf = PatternDatabase.slots(tiles, cells);
+        int patternSize = tiles.length;
+        // O quadrado branco ocupa a última posição do estado abstrato
+        int abstractSize = patternSize + 1;
+        ByteBuffer result = ByteBuffer.allocate(PatternDatabase.tableBytes(patternSize, cells));
+        byte[] abstractDistances = new byte[PatternDatabase.arrangements(abstractSize, cells)];
+        Arrays.fill(abstractDistances, (byte) -1);
+        // Monta o estado abstrato do resultado esperado
+        long start = 0L;
+        for (int index = 0; index < cells; index++) {
+            int tile = BoardState.tileAt(layout.getGoal(), index);
+            int slot = tile == 0 ? patternSize : slotOf[tile];
+            if (slot >= 0) {
+                start |= ((long) index) << (slot * 4);
+            }
+        }
+        long[] current = new long[64];
+        long[] next = new long[64];
+        int currentSize = 0;
+        int nextSize = 0;
+        current[currentSize++] = start;
+        abstractDistances[PatternDatabase.rank(start, abstractSize, cells)] = 0;
+        for (int depth = 0; currentSize > 0; depth++) {
+            for (int i = 0; i < currentSize; i++) {
+                long abstractState = current[i];
+                // Ignora estados que foram alcançados por um caminho mais curto
+                if (abstractDistances[PatternDatabase.rank(abstractState, abstractSize, cells)] != depth) {
+                    continue;
+                }
+                int blank = (int) ((abstractState >>> (patternSize * 4)) & 0xF);
+                for (int direction = 0; direction < 4; direction++) {
+                    int target = neighbour(layout, blank, direction);
+                    if (target < 0) {
+                        continue;
+                    }
+                    // Verifica se a casa alvo está ocupada por uma peça do padrão
+                    int movedSlot = -1;
+                    for (int slot = 0; slot < patternSize; slot++) {
+                        if (((abstractState >>> (slot * 4)) & 0xF) == target) {
+                            movedSlot = slot;
+                        }
+                    }
+                    long child = withPosition(abstractState, patternSize, target);
+                    if (movedSlot >= 0) {
+                        child = withPosition(child, movedSlot, blank);
+                    }
+                    int childRank = PatternDatabase.rank(child, abstractSize, cells);
+                    int childDistance = abstractDistances[childRank];
+                    if (movedSlot < 0 && (childDistance < 0 || childDistance > depth)) {
+                        // Movimento de peça fora do padrão: mesma camada
+                        abstractDistances[childRank] = (byte) depth;
+                        if (currentSize == current.length) {
+                            current = Arrays.copyOf(current, currentSize * 2);
+                        }
+                        current[currentSize++] = child;
+                    } else if (movedSlot >= 0 && childDistance < 0) {
+                        // Movimento de peça do padrão: próxima camada
+                        abstractDistances[childRank] = (byte) (depth + 1);
+                        if (nextSize == next.length) {
+                            next = Arrays.copyOf(next, nextSize * 2);
+                        }
+                        next[nextSize++] = child;
+                    }
+                }
+            }
+            // A próxima camada passa a ser a atual
+            long[] swap = current;
+            current = next;
+            next = swap;
+            currentSize = nextSize;
+            nextSize = 0;
+        }
+        // Compacta as distâncias a cada 4 bits; estados não alcançados ficam com 0
+        for (int rank = 0; rank < abstractDistances.length; rank++) {
+            if (abstractDistances[rank] > 0) {
+                int value = Math.min(abstractDistances[rank], PatternDatabase.MAX_DISTANCE) << ((rank & 1) * 4);
+                result.put(rank >>> 1, (byte) (result.get(rank >>> 1) | value));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retorna a casa vizinha em uma direção.
+     * @param layout    Dimensões do tabuleiro.
+     * @param index     Casa de origem.
+     * @param direction Direção: 0 acima, 1 abaixo, 2 esquerda, 3 direita.
+     * @return a casa vizinha, ou -1 quando estiver fora do tabuleiro.
+     */
+    private static int neighbour(BoardLayout layout, int index, int direction) {
+        int row = layout.row(index);
+        int column = layout.column(index);
+        switch (direction) {
+            case 0:
+                return row > 0 ? index - layout.getWidth() : -1;
+            case 1:
+                return row < layout.getHeight() - 1 ? index + layout.getWidth() : -1;
+            case 2:
+                return column > 0 ? index - 1 : -1;
+            default:
+                return column < layout.getWidth() - 1 ? index + 1 : -1;
+        }
+    }
+
+    /**
+     * Substitui a posição de um item do estado abstrato.
+     * @param positions Posições compactadas.
+     * @param slot      Item a ser substituído.
+     * @param index     Nova casa do item.
+     * @return as posições atualizadas.
+     */
+    private static long withPosition(long positions, int slot, int index) {
+        return (positions & ~(0xFL << (slot * 4))) | (((long) index) << (slot * 4));
+    }
+
+}
@@ -0,0 +1,151 @@
+package game.heuristic;
+
+import game.BoardLayout;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Soma de bases de dados de padrões disjuntos.
+ */
+public class PatternDatabaseHeuristic implements IHeuristic {
+
+    /** Quantidade máxima de peças por padrão na divisão automática. */
+    private static final int MAX_PATTERN_TILES = 5;
+
+    /** Dimensões e resultado esperado do tabuleiro. */
+    private final BoardLayout layout;
+    /** Bases de dados somadas. */
+    private final PatternDatabase[] databases;
+    /** Base de dados de cada peça, nulo quando a peça não pertence a nenhuma. */
+    private final PatternDatabase[] databaseOf;
+
+    /**
+     * Soma de bases de dados dos padrões padrão.
+     */
+    public PatternDatabaseHeuristic() {
+        this(BoardLayout.DEFAULT);
+    }
+
+    /**
+     * Soma de bases de dados de padrões formados por peças consecutivas,
+     * divididas em grupos de até cinco peças.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     */
+    public PatternDatabaseHeuristic(BoardLayout layout) {
+        this(build(layout, defaultPatterns(layout)));
+    }
+
+    /**
+     * Soma de bases de dados de padrões disjuntos.
+     * @param databases Bases de dados com padrões disjuntos, do mesmo tabuleiro.
+     */
+    public PatternDatabaseHeuristic(PatternDatabase... databases) {
+        if (databases.length == 0) {
+            throw new IllegalArgumentException("Nenhuma base de dados informada");
+        }
+        this.layout = databases[0].getLayout();
+        this.databases = databases.clone();
+        int maxTile = 0;
+        for (PatternDatabase database : databases) {
+            if (!this.layout.equals(database.getLayout())) {
+                throw new IllegalArgumentException("Bases de dados de tabuleiros diferentes: "
+                        + this.layout + " e " + database.getLayout());
+            }
+            for (int tile : database.getTiles()) {
+                maxTile = Math.max(maxTile, tile);
+            }
+        }
+        this.databaseOf = new PatternDatabase[maxTile + 1];
+        for (PatternDatabase database : databases) {
+            for (int tile : database.getTiles()) {
+                if (null != this.databaseOf[tile]) {
+                    throw new IllegalArgumentException("Padrões não são disjuntos na peça " + tile);
+                }
+                this.databaseOf[tile] = database;
+            }
+        }
+    }
+
+    /**
+     * Carrega as bases de dados de um arquivo gerado por
+     * {@link PatternDatabaseBuilder}.
+     * @param path Caminho do arquivo.
+     * @return a soma das bases de dados do arquivo.
+     * @throws IOException Erro na leitura do arquivo ou formato inválido.
+     */
+    public static PatternDatabaseHeuristic load(Path path) throws IOException {
+        return new PatternDatabaseHeuristic(PatternDatabase.load(path));
+    }
+
+    @Override
+    public int estimate(long state) {
+        int result = 0;
+        for (PatternDatabase database : this.databases) {
+            result += database.lookup(state);
+        }
+        return result;
+    }
+
+    @Override
+    public int update(long parentState, int parentValue, long childState, int tile, int from, int to) {
+        // Apenas a base da peça movimentada muda de valor: nas demais o branco
+        // continua na mesma região entre as peças do padrão
+        PatternDatabase database = tile < this.databaseOf.length ? this.databaseOf[tile] : null;
+        if (null == database) {
+            return parentValue;
+        }
+        return parentValue - database.lookup(parentState) + database.lookup(childState);
+    }
+
+    @Override
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * A soma é consistente: cada base guarda a distância com a posição do
+     * branco, e um movimento muda apenas a base da peça movimentada, em no
+     * máximo 1.
+     * @return sempre verdadeiro.
+     */
+    @Override
+    public boolean isConsistent() {
+        return true;
+    }
+
+    /**
+     * Divide as peças do tabuleiro em padrões de peças consecutivas, com
+     * tamanhos equilibrados de até cinco peças.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     * @return os padrões disjuntos.
+     */
+    public static int[][] defaultPatterns(BoardLayout layout) {
+        int tiles = layout.getCells() - 1;
+        int count = (tiles + MAX_PATTERN_TILES - 1) / MAX_PATTERN_TILES;
+        int[][] result = new int[count][];
+        int tile = 1;
+        for (int i = 0; i < count; i++) {
+            // Os primeiros padrões recebem as peças que sobram da divisão
+            result[i] = new int[tiles / count + (i < tiles % count ? 1 : 0)];
+            for (int slot = 0; slot < result[i].length; slot++) {
+                result[i][slot] = tile++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Constrói as bases de dados dos padrões informados.
+     * @param layout   Dimensões e resultado esperado do tabuleiro.
+     * @param patterns Padrões disjuntos.
+     * @return as bases de dados.
+     */
+    private static PatternDatabase[] build(BoardLayout layout, int[][] patterns) {
+        PatternDatabase[] result = new PatternDatabase[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            result[i] = new PatternDatabase(layout, patterns[i]);
+        }
+        return result;
+    }
+
+}
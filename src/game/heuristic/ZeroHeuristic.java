@@ -0,0 +1,59 @@
+package game.heuristic;
+
+import game.BoardLayout;
+
+/**
+ * Estimativa nula, válida para qualquer tabuleiro. Com ela o IDA* aumenta o
+ * limite em um movimento por iteração e se torna a busca em profundidade com
+ * aprofundamento iterativo.
+ */
+public class ZeroHeuristic implements IHeuristic {
+
+    @Override
+    public int estimate(long state) {
+        return 0;
+    }
+
+    @Override
+    public int update(long parentState, int parentValue, long childState, int tile, int from, int to) {
+        return 0;
+    }
+
+    @Override
+    public int estimate(long[] state) {
+        return 0;
+    }
+
+    @Override
+    public int update(long[] parentState, int parentValue, long[] childState, int tile, int from, int to) {
+        return 0;
+    }
+
+    /**
+     * A estimativa nula não depende do tabuleiro.
+     * @return sempre nulo.
+     */
+    @Override
+    public BoardLayout getLayout() {
+        return null;
+    }
+
+    /**
+     * A estimativa nula é simétrica.
+     * @return sempre verdadeiro.
+     */
+    @Override
+    public boolean isSymmetric() {
+        return true;
+    }
+
+    /**
+     * A estimativa nula é consistente.
+     * @return sempre verdadeiro.
+     */
+    @Override
+    public boolean isConsistent() {
+        return true;
+    }
+
+}
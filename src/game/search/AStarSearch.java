@@ -6,30 +6,147 @@
 package game.search;
 
 import game.Board;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import game.BoardGameMoveEnum;
+import game.BoardLayout;
+import game.BoardState;
+import game.heuristic.IHeuristic;
+import game.heuristic.ManhattanHeuristic;
+import java.util.Map;
 
 /**
- *
+ * Classe para busca pelo método A*, expandindo sempre o tabuleiro de menor
+ * custo {@code f = g + h}, onde {@code g} é a quantidade de movimentos já
+ * executados e {@code h} a estimativa de movimentos restantes.
+ * <p>
+ * Um estado pode entrar mais de uma vez na lista aberta; as cópias obsoletas
+ * são descartadas ao serem retiradas, quando o estado já foi expandido
+ * (remoção preguiçosa).
  */
 public class AStarSearch extends AbstractSearchMethod implements ISearchMethod {
-    
-    private final List<Board> boardList = new ArrayList<>();
-    
+
+    /** Lista aberta com os índices dos nós na arena, ordenada pelo custo f. */
+    private final IntBucketQueue openList = new IntBucketQueue();
+    /** Estimativa de movimentos restantes. */
+    private final IHeuristic heuristic;
+
+    /**
+     * Classe para busca pelo método A* com a distância de Manhattan.
+     */
+    public AStarSearch() {
+        this(new ManhattanHeuristic());
+    }
+
+    /**
+     * Classe para busca pelo método A*.
+     * @param heuristic Estimativa de movimentos restantes.
+     */
+    public AStarSearch(IHeuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
     @Override
-    protected void insertInDeque(Board board) {
-        board.evaluateBoard();
-        boardList.add(board);
+    public Map<Integer, Board> executeSearch(Board board, SearchBudget budget) {
+        // Nó que atingiu o resultado, -1 enquanto não houver
+        int resultNode = -1;
+        // A estimativa precisa ter sido montada para o mesmo tabuleiro
+        checkLayout(this.heuristic, board);
+        // Descarta as estruturas de uma busca anterior e inicia as estatísticas
+        this.resetSearch(board);
+        budget.start();
+        SearchStatistics statistics = this.getStatistics();
+        NodeArena arena = this.getNodeArena();
+        // Tabuleiros sem solução são descartados sem busca
+        if (!board.isSolvable()) {
+            return this.finishSearch(-1, budget);
+        }
+        BoardLayout layout = board.getLayout();
+        long goal = layout.getGoal();
+        // Recupera o tamanho máximo da árvore para as dimensões do tabuleiro
+        int maxHeight = this.heightLimit(layout);
+        // Registra o primeiro tabuleiro como raiz dos caminhos, calculando a
+        // estimativa completa apenas para ele, e o adiciona na lista aberta
+        int root = arena.add(board.getState(), 0, this.heuristic.estimate(board.getState()),
+                -1, BoardGameMoveEnum.UNKNOWN);
+        this.openList.add(arena.getEstimate(root), root);
+        statistics.addGenerated(1L);
+        statistics.updateOpen(1L);
+        statistics.startSearch();
+        // Continua procurando enquanto houver nós na lista aberta
+        while (!this.openList.isEmpty() && resultNode < 0
+                && !budget.isExhausted(statistics.getExpanded(), arena.size())) {
+            // Recupera o nó de menor custo
+            int node = this.openList.poll();
+            long state = arena.getState(node);
+            // Descarta cópias de estados que já foram expandidos
+            if (!this.isNewState(state)) {
+                statistics.addDuplicates(1L);
+                continue;
+            }
+            // O teste do resultado na expansão garante o menor caminho
+            if (state == goal) {
+                resultNode = node;
+                continue;
+            }
+            statistics.addExpanded(1L);
+            int moves = arena.getMoves(node);
+            int estimate = arena.getEstimate(node);
+            BoardGameMoveEnum lastMove = arena.getMove(node);
+            int blank = layout.findBlank(state);
+            this.offerPartial(node, estimate);
+            // Percorre os movimentos válidos da casa do branco
+            BoardGameMoveEnum[] movements = layout.moves(blank);
+            int[] targets = layout.targets(blank);
+            long[] deltas = layout.deltas(blank);
+            BoardGameMoveEnum undo = lastMove.getOpposite();
+            for (int i = 0; i < movements.length; i++) {
+                BoardGameMoveEnum movement = movements[i];
+                // Descarta o movimento que desfaz o anterior
+                if (movement == undo) {
+                    continue;
+                }
+                int target = targets[i];
+                long newState = BoardState.swap(state, target, deltas[i]);
+                statistics.addGenerated(1L);
+                // Verifica se o estado ainda não foi expandido
+                if (this.isVisited(newState)) {
+                    statistics.addDuplicates(1L);
+                } else if (moves + 1 <= maxHeight) {
+                    // Atualiza a estimativa do pai com a peça movimentada e
+                    // registra o caminho do novo estado
+                    int newEstimate = this.heuristic.update(state, estimate, newState,
+                            BoardState.tileAt(state, target), target, blank);
+                    int newNode = arena.add(newState, moves + 1, newEstimate, node, movement);
+                    this.openList.add(moves + 1 + newEstimate, newNode);
+                    statistics.updateOpen(this.openList.size());
+                }
+            }
+        }
+        return this.finishSearch(resultNode, budget);
     }
-    
+
+    /**
+     * O descarte por simetria só mantém o menor caminho quando a estimativa
+     * é simétrica: um estado equivalente expandido antes tem o mesmo custo
+     * restante e, com a mesma estimativa, não mais movimentos executados.
+     * @return o indicador de descarte dos estados equivalentes por simetria.
+     */
     @Override
-    protected void heuristicMoves() {
-        Collections.sort(boardList, (Board u1, Board u2) -> u1.getScore().compareTo(u2.getScore()));
-        boardList.forEach(currBoard -> {
-            this.getSearchQueue().addFirst(currBoard);
-        });
-        boardList.clear();
+    public boolean isSymmetryReduction() {
+        return super.isSymmetryReduction() && this.heuristic.isSymmetric();
     }
-    
+
+    @Override
+    protected void resetSearch(Board board) {
+        super.resetSearch(board);
+        this.openList.clear();
+    }
+
+    /**
+     * Retorna a estimativa de movimentos restantes.
+     * @return a estimativa de movimentos restantes.
+     */
+    public IHeuristic getHeuristic() {
+        return heuristic;
+    }
+
 }
@@ -2,33 +2,63 @@ package game.search;
 
 import game.Board;
 import game.BoardGameMoveEnum;
+import game.BoardLayout;
 import game.BoardMoving;
+import game.BoardState;
+import game.heuristic.IHeuristic;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
  *
  */
 public abstract class AbstractSearchMethod implements ISearchMethod {
 
-    /** Resultado esperado. */
-    public static final int[][] RESULT = {{1, 4, 7}, {2, 5, 8}, {3, 6, 0}};
+    /** Resultado esperado do tabuleiro padrão. */
+    public static final int[][] RESULT = Board.RESULT;
     /** Lista de Movimentações possíveis. */
     public final static List<BoardGameMoveEnum> MOVEMENTS = new ArrayList<>();
     /** Definição do tamanho máximo da árvore. */
     public final static int MAX_HEIGHT = 50;
+    /**
+     * Tamanho máximo da árvore nos tabuleiros maiores que o 3x3: a maior
+     * solução ótima do tabuleiro 4x4.
+     */
+    public final static int MAX_HEIGHT_LARGE = 80;
+    /**
+     * Tamanho máximo da árvore nos tabuleiros com mais de 16 casas: um limite
+     * superior da maior solução ótima do tabuleiro 5x5.
+     */
+    public final static int MAX_HEIGHT_WIDE = 208;
 
-    /** Fila de objetos para realizar a busca. */
-    private final Deque<Board> searchQueue = new ConcurrentLinkedDeque<>();
-    /** Lista de Resultados pela altura da árvore */
-    private final Map<Integer, List<Board>> resultMapping = new HashMap<>();
+    /** Nós gerados pela busca, mantidos fora do heap entre as buscas. */
+    private final NodeArena nodeArena = new NodeArena();
+    /** Tabuleiro inicial da busca. */
+    private Board startBoard;
+    /** Estatísticas da busca atual. */
+    private SearchStatistics statistics;
+    /** Nó de menor estimativa expandido, devolvido quando o orçamento se esgota. */
+    private final PartialResult partial = new PartialResult();
+    /** Conjunto de estados já visitados. */
+    private ClosedSet closedSet = new ClosedSet();
+    /** Tamanho máximo da árvore, 0 para usar o padrão das dimensões do tabuleiro. */
+    private int heightLimit;
+    /**
+     * Indicador de descarte de estados repetidos, ligado por padrão e
+     * desligável pela propriedade de sistema {@code game.duplicateDetection}.
+     */
+    private boolean duplicateDetection = Boolean.parseBoolean(
+            System.getProperty("game.duplicateDetection", "true"));
+    /**
+     * Indicador de descarte dos estados equivalentes por simetria a um estado
+     * já visitado, ligado por padrão e desligável pela propriedade de sistema
+     * {@code game.symmetryReduction}.
+     */
+    private boolean symmetryReduction = Boolean.parseBoolean(
+            System.getProperty("game.symmetryReduction", "true"));
 
     static {
         MOVEMENTS.addAll(Arrays.asList(BoardGameMoveEnum.values()));
@@ -36,112 +66,212 @@ public abstract class AbstractSearchMethod implements ISearchMethod {
     }
 
     @Override
-    public Map<Integer, Board> executeSearch(Board board) {
-        Board resultBoard = null;
-        Long id = 1L;
-        // Inicializa tempo de execução da pesquisa
-        Date begin = new Date();
-        // Indicador de resposta encontrada
-        boolean answerFound = false;
-        // Determina o identificador inicial do tabuleiro
-        board.setBoardId(id);
-        // Adiciona o primeiro tabuleiro na fila de verificações
-        this.searchQueue.addFirst(board);
-        // Adiciona o primeiro tabuleiro no mapeamento de resultados
-        this.putBoardInResultMapping(board);
-        // Continua procurando enquanto houver 
-        while (!this.searchQueue.isEmpty() && !answerFound) {
+    public Map<Integer, Board> executeSearch(Board board, SearchBudget budget) {
+        // Nó que atingiu o resultado, -1 enquanto não houver
+        int resultNode = -1;
+        // Descarta as estruturas de uma busca anterior e inicia as estatísticas
+        this.resetSearch(board);
+        budget.start();
+        // Tabuleiros sem solução são descartados sem busca
+        if (!board.isSolvable()) {
+            return this.finishSearch(-1, budget);
+        }
+        BoardLayout layout = board.getLayout();
+        long goal = layout.getGoal();
+        this.partial.resetBlind(layout, budget, -1L);
+        IHeuristic partialHeuristic = this.partial.getHeuristic();
+        // Recupera o tamanho máximo da árvore para as dimensões do tabuleiro
+        int maxHeight = this.heightLimit(layout);
+        // Registra o primeiro tabuleiro como raiz dos caminhos e o marca como visitado
+        int root = this.nodeArena.add(board.getState(), 0,
+                null == partialHeuristic ? 0 : partialHeuristic.estimate(board.getState()),
+                -1, BoardGameMoveEnum.UNKNOWN);
+        this.isNewState(board.getState());
+        // Apenas os filhos são comparados com o resultado dentro do laço, então
+        // o tabuleiro inicial já resolvido é verificado antes
+        if (board.getState() == goal) {
+            resultNode = root;
+        }
+        // Os nós são gravados na ordem de geração, então a própria arena é a
+        // fila da busca em largura: basta percorrê-la a partir do início
+        int head = 0;
+        long open = 1L;
+        this.statistics.addGenerated(1L);
+        this.statistics.updateOpen(open);
+        this.statistics.startSearch();
+        // Continua procurando enquanto houver nós na fila
+        while (head < this.nodeArena.size() && resultNode < 0
+                && !budget.isExhausted(this.statistics.getExpanded(), this.nodeArena.size())) {
             // Recupera o primeiro da fila para realizar movimentação e verificação
-            Board currBoard = this.searchQueue.pollFirst();
-            Iterator<BoardGameMoveEnum> movementsIt = MOVEMENTS.iterator();
-            // Percorre toda a lista de movimentos possíveis
-            while (movementsIt.hasNext() && !answerFound) {
-                BoardGameMoveEnum movement = movementsIt.next();
-                // Tenta realizar a movimentação
-                Board newBoard = BoardMoving.moveTo(movement, currBoard);
-                // Verifica se houve retorno
-                if (null != newBoard) {
-                    id++;
-                    // Determina o identificador inicial do tabuleiro
-                    newBoard.setBoardId(id);
-                    // Determina o identificador do tabuleiro que gerou o novo
-                    newBoard.setParentBoardId(currBoard.getBoardId());
-                    // Adiciona no mapeamento de resultados
-                    this.putBoardInResultMapping(newBoard);
-                    // Verifica se atingiu o valor máximo de iterações
-                    if (newBoard.getMoves() <= MAX_HEIGHT) {
-                        // Adiciona na fila para verificação
-                        this.insertInDeque(newBoard);
+            int node = head++;
+            int moves = this.nodeArena.getMoves(node);
+            // Nós além do tamanho máximo da árvore não entram na fila
+            if (moves > maxHeight) {
+                continue;
+            }
+            open--;
+            this.statistics.addExpanded(1L);
+            long state = this.nodeArena.getState(node);
+            int estimate = this.nodeArena.getEstimate(node);
+            BoardGameMoveEnum lastMove = this.nodeArena.getMove(node);
+            int blank = layout.findBlank(state);
+            if (null != partialHeuristic) {
+                this.offerPartial(node, estimate);
+            }
+            // Percorre os movimentos válidos da casa do branco
+            BoardGameMoveEnum[] movements = layout.moves(blank);
+            int[] targets = layout.targets(blank);
+            long[] deltas = layout.deltas(blank);
+            BoardGameMoveEnum undo = lastMove.getOpposite();
+            for (int i = 0; i < movements.length && resultNode < 0; i++) {
+                BoardGameMoveEnum movement = movements[i];
+                // Descarta o movimento que desfaz o anterior
+                if (movement == undo) {
+                    continue;
+                }
+                int target = targets[i];
+                long newState = BoardState.swap(state, target, deltas[i]);
+                this.statistics.addGenerated(1L);
+                // Verifica se o estado ainda não foi visitado
+                if (this.isNewState(newState)) {
+                    int newEstimate = null == partialHeuristic ? 0 : partialHeuristic.update(state, estimate,
+                            newState, BoardState.tileAt(state, target), target, blank);
+                    // Registra o caminho do novo estado, que entra na fila se
+                    // não atingiu o tamanho máximo da árvore
+                    int newNode = this.nodeArena.add(newState, moves + 1, newEstimate, node, movement);
+                    if (moves + 1 <= maxHeight) {
+                        this.statistics.updateOpen(++open);
                     }
                     // Verifica se foi encontrada a respostas
-                    answerFound = Arrays.deepEquals(newBoard.getBoard(), RESULT);
-                    resultBoard = newBoard;
+                    if (newState == goal) {
+                        resultNode = newNode;
+                    }
+                } else {
+                    this.statistics.addDuplicates(1L);
                 }
             }
-            this.heuristicMoves();
         }
-        // Inicializa tempo de finalização da busca para a resposta
-        Date end = new Date();
-        // Informa o tempo decorrido da operação
-        System.out.println(String.format("Resposta %s em %d segundos e %d iterações",
-                answerFound ? "encontrada " : "não encontrada",
-                ((end.getTime() - begin.getTime()) / 1000),
-                id));
+        return this.finishSearch(resultNode, budget);
+    }
+
+    /**
+     * Descarta as estruturas de uma busca anterior e inicia as estatísticas
+     * da nova busca.
+     * @param board Tabuleiro inicial da nova busca.
+     */
+    protected void resetSearch(Board board) {
+        this.statistics = new SearchStatistics(this.getClass().getSimpleName());
+        this.startBoard = board;
+        this.partial.reset(null, -1L);
+        this.nodeArena.clear();
+        // O conjunto de estados depende das dimensões do tabuleiro e das simetrias
+        boolean symmetric = this.isSymmetryReduction();
+        if (this.closedSet.getLayout().equals(board.getLayout()) && this.closedSet.isSymmetric() == symmetric) {
+            this.closedSet.clear();
+        } else {
+            this.closedSet = new ClosedSet(board.getLayout(), symmetric);
+        }
+    }
+
+    /**
+     * Retorna o tamanho máximo da árvore da busca em um tabuleiro.
+     * @param layout Dimensões do tabuleiro.
+     * @return o tamanho máximo da árvore.
+     */
+    protected int heightLimit(BoardLayout layout) {
+        return this.heightLimit > 0 ? this.heightLimit : getMaxHeight(layout);
+    }
+
+    /**
+     * Verifica se a estimativa foi montada para as dimensões e o resultado
+     * esperado do tabuleiro. Estimativas sem tabuleiro valem para todos.
+     * @param heuristic Estimativa de movimentos restantes.
+     * @param board     Tabuleiro inicial da busca.
+     */
+    static void checkLayout(IHeuristic heuristic, Board board) {
+        if (null != heuristic.getLayout() && !heuristic.getLayout().equals(board.getLayout())) {
+            throw new IllegalArgumentException("Estimativa montada para o tabuleiro " + heuristic.getLayout()
+                    + ", mas a busca recebeu um tabuleiro " + board.getLayout());
+        }
+    }
+
+    /**
+     * Registra um nó expandido como candidato a melhor tabuleiro alcançado,
+     * mantido quando tem a menor estimativa até o momento.
+     * @param node     Índice do nó expandido na arena.
+     * @param estimate Estimativa de movimentos restantes do nó.
+     */
+    protected void offerPartial(int node, int estimate) {
+        this.partial.offer(estimate, node);
+    }
+
+    /**
+     * Monta a sequência de ações da resposta e publica as estatísticas da
+     * busca. Sem resposta, quando o orçamento se esgotou, monta o caminho até
+     * o tabuleiro de menor estimativa expandido.
+     * @param resultNode Índice na arena do nó que atingiu o resultado, -1 se não houver.
+     * @param budget     Limites da busca.
+     * @return Mapeamento da sequência de tabuleiros pela quantidade de movimentos.
+     */
+    protected Map<Integer, Board> finishSearch(int resultNode, SearchBudget budget) {
+        this.statistics.startPath();
+        this.statistics.updateClosed(this.closedSet.size());
         Map<Integer, Board> result = new HashMap<>();
         // Verifica se foi encontrada solução para o problema
-        if (answerFound && null != resultBoard) {
-            result = this.findSequence(resultBoard);
+        if (resultNode >= 0) {
+            // Refaz os movimentos do caminho a partir do tabuleiro inicial
+            result = replay(this.startBoard, this.nodeArena.path(resultNode));
+        } else if (null != budget.getExhausted()) {
+            this.statistics.setExhausted(budget.getExhausted());
+            if (this.partial.getPosition() >= 0L) {
+                result = replay(this.startBoard, this.nodeArena.path((int) this.partial.getPosition()));
+            }
         }
+        // Informa as estatísticas da operação
+        this.statistics.finish(resultNode >= 0, result.size() - 1);
+        SearchMetrics.publish(this.statistics);
         // Retorna o mapeamento de resultado
         return result;
     }
 
-    private Map<Integer, Board> findSequence(Board resultBoard) {
+    /**
+     * Monta a sequência de tabuleiros executando os movimentos a partir do
+     * tabuleiro inicial.
+     * @param start     Tabuleiro inicial.
+     * @param movements Movimentos na ordem de execução.
+     * @return Mapeamento da sequência de tabuleiros pela quantidade de movimentos.
+     */
+    static Map<Integer, Board> replay(Board start, BoardGameMoveEnum[] movements) {
         Map<Integer, Board> result = new HashMap<>();
-        // Recupera a quantidade de movimentos necessários para encontrar a resposta
-        Integer moves = resultBoard.getMoves();
-        result.put(moves, resultBoard);
-        // Enquanto a quantidade de movimentos for maior ou igual a zero
-        while (moves > 0) {
-            // Recupera a lista de estados no movimento anterior
-            Iterator<Board> boardList = this.resultMapping.get(moves - 1).iterator();
-            // Percorre para verificar o estado que originou o próximo
-            while (boardList.hasNext() && !result.containsKey(moves - 1)) {
-                Board itBoard = boardList.next();
-                if (resultBoard.getParentBoardId().equals(itBoard.getBoardId())) {
-                    result.put(moves - 1, itBoard);
-                    resultBoard = itBoard;
-                }
-            }
-            moves--;
+        Board current = new Board(start);
+        result.put(0, current);
+        for (int i = 0; i < movements.length; i++) {
+            current = BoardMoving.moveTo(movements[i], current);
+            result.put(i + 1, current);
         }
         return result;
     }
 
-    protected abstract void insertInDeque(Board board);
-
-    protected void heuristicMoves() {
-        // Nothing to do
+    /**
+     * Verifica se o estado ainda não foi visitado, marcando-o como visitado.
+     * Sempre indica estado novo quando o descarte de estados repetidos está
+     * desligado.
+     * @param state Estado compactado do tabuleiro.
+     * @return Indicador de estado ainda não visitado.
+     */
+    protected boolean isNewState(long state) {
+        return !this.duplicateDetection || this.closedSet.add(state);
     }
 
     /**
-     * Insere o estado atual do tabuleiro no mapeamento de resultados.
-     * @param board Objeto de estado do tabuleiro.
+     * Verifica se o estado já foi visitado, sem marcá-lo. Sempre indica
+     * estado não visitado quando o descarte de estados repetidos está
+     * desligado.
+     * @param state Estado compactado do tabuleiro.
+     * @return Indicador de estado já visitado.
      */
-    public void putBoardInResultMapping(Board board) {
-        // Recupera a quantidade de movimentações que o tabuleiro sofreu
-        Integer boardMoves = board.getMoves();
-        // Recupera o valor do mapeamento
-        List<Board> existingBoardList = this.resultMapping.get(boardMoves);
-        // Verifica se a lista já foi inicializada
-        if (null == existingBoardList) {
-            // Inicializa a lista
-            existingBoardList = new ArrayList<>();
-        }
-        // Insere o estado do tabuleiro na lista
-        existingBoardList.add(board);
-        // Adiciona a lista atualizada no tabuleiro
-        this.resultMapping.put(boardMoves, existingBoardList);
+    protected boolean isVisited(long state) {
+        return this.duplicateDetection && this.closedSet.contains(state);
     }
 
     public static int[][] getResult() {
@@ -156,12 +286,89 @@ public abstract class AbstractSearchMethod implements ISearchMethod {
         return MAX_HEIGHT;
     }
 
-    public Deque<Board> getSearchQueue() {
-        return searchQueue;
+    /**
+     * Retorna o tamanho máximo padrão da árvore para as dimensões do tabuleiro.
+     * @param layout Dimensões do tabuleiro.
+     * @return o tamanho máximo padrão da árvore.
+     */
+    public static int getMaxHeight(BoardLayout layout) {
+        if (layout.getCells() <= BoardLayout.DEFAULT.getCells()) {
+            return MAX_HEIGHT;
+        }
+        return layout.isCompact() ? MAX_HEIGHT_LARGE : MAX_HEIGHT_WIDE;
+    }
+
+    /**
+     * Retorna o tamanho máximo da árvore, 0 quando usa o padrão das dimensões
+     * do tabuleiro.
+     * @return o tamanho máximo da árvore.
+     */
+    public int getHeightLimit() {
+        return heightLimit;
+    }
+
+    /**
+     * Determina o tamanho máximo da árvore, 0 para usar o padrão das
+     * dimensões do tabuleiro.
+     * @param heightLimit o tamanho máximo da árvore.
+     */
+    public void setHeightLimit(int heightLimit) {
+        this.heightLimit = heightLimit;
+    }
+
+    @Override
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Retorna os nós gerados pela busca.
+     * @return os nós gerados pela busca.
+     */
+    public NodeArena getNodeArena() {
+        return nodeArena;
+    }
+
+    /**
+     * Retorna o conjunto de estados já visitados.
+     * @return o conjunto de estados já visitados.
+     */
+    public ClosedSet getClosedSet() {
+        return closedSet;
+    }
+
+    /**
+     * Retorna o indicador de descarte de estados repetidos.
+     * @return o indicador de descarte de estados repetidos.
+     */
+    public boolean isDuplicateDetection() {
+        return duplicateDetection;
     }
 
-    public Map<Integer, List<Board>> getResultMapping() {
-        return resultMapping;
+    /**
+     * Determina o indicador de descarte de estados repetidos.
+     * @param duplicateDetection o indicador de descarte de estados repetidos.
+     */
+    public void setDuplicateDetection(boolean duplicateDetection) {
+        this.duplicateDetection = duplicateDetection;
+    }
+
+    /**
+     * Retorna o indicador de descarte dos estados equivalentes por simetria.
+     * Na busca em largura um estado equivalente alcançado depois nunca está
+     * mais perto do resultado, então o descarte mantém o menor caminho.
+     * @return o indicador de descarte dos estados equivalentes por simetria.
+     */
+    public boolean isSymmetryReduction() {
+        return symmetryReduction;
+    }
+
+    /**
+     * Determina o indicador de descarte dos estados equivalentes por simetria.
+     * @param symmetryReduction o indicador de descarte dos estados equivalentes por simetria.
+     */
+    public void setSymmetryReduction(boolean symmetryReduction) {
+        this.symmetryReduction = symmetryReduction;
     }
 
 }
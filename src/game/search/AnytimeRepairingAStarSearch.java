@@ -0,0 +1,399 @@
+package game.search;
+
+import game.Board;
+import game.BoardGameMoveEnum;
+import game.BoardLayout;
+import game.BoardState;
+import game.heuristic.IHeuristic;
+import game.heuristic.ManhattanHeuristic;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe para busca pelo método ARA* (A* incremental com reparo).
+ * <p>
+ * A primeira iteração é uma A* ponderada, que expande pelo custo
+ * {@code g + w * h} com {@code w > 1} e encontra rapidamente uma solução com
+ * no máximo {@code w} vezes a quantidade ótima de movimentos. A cada nova
+ * iteração o peso diminui e a busca é retomada de onde parou: os estados
+ * cujo custo melhorou depois de fechados (inconsistentes) voltam para a
+ * lista aberta, que é reordenada pelo novo peso. Cada solução melhor é
+ * entregue ao {@link IImprovementListener} com o limite de subotimalidade
+ * comprovado, e com peso 1 a solução é ótima.
+ * <p>
+ * Os limites dependem de que nenhum estado com custo melhorado fique fora das
+ * listas. Com estimativas consistentes (ver {@link IHeuristic#isConsistent()})
+ * basta guardar os estados fechados para a próxima iteração; com estimativas
+ * apenas admissíveis eles são reabertos na própria iteração, que então
+ * termina apenas quando nenhum estado pendente pode melhorar a solução além
+ * do peso.
+ * <p>
+ * Não há profundidade máxima, pois as soluções das primeiras iterações podem
+ * ser mais longas que as ótimas e o conjunto de estados alcançados já impede
+ * ciclos. Quando o orçamento se esgota, a busca retorna a melhor solução
+ * encontrada até o momento.
+ */
+public class AnytimeRepairingAStarSearch implements ISearchMethod {
+
+    /** Movimentos indexados pelo ordinal. */
+    private static final BoardGameMoveEnum[] MOVES = BoardGameMoveEnum.values();
+    /** Escala dos pesos: a lista aberta usa prioridades inteiras em décimos. */
+    private static final int WEIGHT_SCALE = 10;
+    /** Peso inicial padrão, em décimos. */
+    private static final int DEFAULT_INITIAL_WEIGHT = 30;
+    /** Redução padrão do peso a cada iteração, em décimos. */
+    private static final int DEFAULT_WEIGHT_STEP = 5;
+    /** Máscara da quantidade de expansões entre verificações do orçamento. */
+    private static final long BUDGET_CHECK_MASK = 0xFFL;
+
+    /** Estimativa de movimentos restantes. */
+    private final IHeuristic heuristic;
+    /** Peso inicial, em décimos. */
+    private final int initialWeight;
+    /** Redução do peso a cada iteração, em décimos. */
+    private final int weightStep;
+    /** Lista aberta ordenada pelo custo ponderado. */
+    private final BucketQueue<Node> openList = new BucketQueue<>();
+    /** Menor custo e movimento de cada estado alcançado, {@code g << 8 | movimento}. */
+    private final LongIntHashMap reached = new LongIntHashMap();
+    /** Iteração em que cada estado foi fechado. */
+    private final LongIntHashMap closed = new LongIntHashMap();
+    /** Estados cujo custo melhorou depois de fechados na iteração atual. */
+    private final List<Node> inconsistent = new ArrayList<>();
+    /** Observador das soluções intermediárias, pode ser nulo. */
+    private IImprovementListener improvementListener;
+    /** Dimensões e resultado esperado do tabuleiro da busca atual. */
+    private BoardLayout layout;
+    /** Indicador de reabertura dos estados fechados na própria iteração. */
+    private boolean reopening;
+    /** Iteração atual. */
+    private int iteration;
+    /** Peso da iteração atual, em décimos. */
+    private int weight;
+    /** Estado de menor estimativa expandido, usado quando nenhuma solução foi encontrada. */
+    private final PartialResult partial = new PartialResult();
+    /** Estatísticas da última busca. */
+    private SearchStatistics statistics;
+
+    /**
+     * Classe para busca pelo método ARA* com a distância de Manhattan.
+     */
+    public AnytimeRepairingAStarSearch() {
+        this(new ManhattanHeuristic());
+    }
+
+    /**
+     * Classe para busca pelo método ARA*, com peso inicial 3 reduzido em 0,5
+     * a cada iteração.
+     * @param heuristic Estimativa de movimentos restantes.
+     */
+    public AnytimeRepairingAStarSearch(IHeuristic heuristic) {
+        this(heuristic, DEFAULT_INITIAL_WEIGHT / (double) WEIGHT_SCALE, DEFAULT_WEIGHT_STEP / (double) WEIGHT_SCALE);
+    }
+
+    /**
+     * Classe para busca pelo método ARA*. Os pesos são arredondados para
+     * décimos.
+     * @param heuristic     Estimativa de movimentos restantes.
+     * @param initialWeight Peso inicial, maior ou igual a 1.
+     * @param weightStep    Redução do peso a cada iteração, maior que 0.
+     */
+    public AnytimeRepairingAStarSearch(IHeuristic heuristic, double initialWeight, double weightStep) {
+        this.heuristic = heuristic;
+        this.initialWeight = (int) Math.round(initialWeight * WEIGHT_SCALE);
+        this.weightStep = (int) Math.round(weightStep * WEIGHT_SCALE);
+        if (this.initialWeight < WEIGHT_SCALE || this.weightStep <= 0) {
+            throw new IllegalArgumentException("Peso inicial deve ser ao menos 1 e a redução maior que 0");
+        }
+    }
+
+    @Override
+    public Map<Integer, Board> executeSearch(Board board, SearchBudget budget) {
+        // A estimativa precisa ter sido montada para o mesmo tabuleiro
+        AbstractSearchMethod.checkLayout(this.heuristic, board);
+        this.statistics = new SearchStatistics(this.getClass().getSimpleName());
+        long begin = System.nanoTime();
+        budget.start();
+        // Tabuleiros sem solução são descartados sem busca
+        if (!board.isSolvable()) {
+            this.statistics.finish(false, -1);
+            SearchMetrics.publish(this.statistics);
+            return new HashMap<>();
+        }
+        this.layout = board.getLayout();
+        // Descarta as estruturas de uma busca anterior
+        this.openList.clear();
+        this.reached.clear();
+        this.closed.clear();
+        this.inconsistent.clear();
+        this.iteration = 0;
+        this.weight = this.initialWeight;
+        // Sem consistência, guardar os fechados para a próxima iteração não
+        // garante o peso da iteração nem o limite inferior dos pendentes
+        this.reopening = !this.heuristic.isConsistent();
+        long start = board.getState();
+        long goal = this.layout.getGoal();
+        int startEstimate = this.heuristic.estimate(start);
+        this.partial.reset(this.heuristic, start);
+        this.partial.offer(startEstimate, start);
+        this.reached.put(start, BoardGameMoveEnum.UNKNOWN.ordinal());
+        this.openList.add(this.priority(0, startEstimate), new Node(start, 0, startEstimate, BoardGameMoveEnum.UNKNOWN));
+        this.statistics.addGenerated(1L);
+        this.statistics.updateOpen(1L);
+        this.statistics.startSearch();
+        Map<Integer, Board> result = new HashMap<>();
+        int bestLength = Integer.MAX_VALUE;
+        double bestBound = Double.MAX_VALUE;
+        boolean exhausted = false;
+        // Peso da última iteração concluída, o único que garante a subotimalidade
+        int provenWeight = Integer.MAX_VALUE;
+        while (!exhausted) {
+            exhausted = !this.improvePath(goal, budget);
+            if (!exhausted) {
+                provenWeight = this.weight;
+            }
+            int goalCost = this.reached.get(goal, -1);
+            if (goalCost < 0) {
+                // Orçamento esgotado antes da primeira solução
+                break;
+            }
+            // Reúne a lista aberta e os inconsistentes, que formam a lista da próxima iteração
+            List<Node> pending = this.drainPending();
+            int length = goalCost >>> 8;
+            double bound = this.suboptimality(length, pending, provenWeight);
+            if (length < bestLength || bound < bestBound) {
+                bestLength = Math.min(bestLength, length);
+                bestBound = Math.min(bestBound, bound);
+                result = AbstractSearchMethod.replay(board, this.path(start, goal));
+                if (null != this.improvementListener) {
+                    this.improvementListener.solutionImproved(result, bound, System.nanoTime() - begin);
+                }
+            }
+            if (exhausted || bound <= 1.0 || this.weight == WEIGHT_SCALE) {
+                break;
+            }
+            // Reduz o peso e retoma a busca com os estados pendentes reordenados
+            this.weight = Math.max(WEIGHT_SCALE, this.weight - this.weightStep);
+            this.iteration++;
+            for (Node node : pending) {
+                this.openList.add(this.priority(node.moves, node.estimate), node);
+            }
+        }
+        this.statistics.startPath();
+        this.statistics.updateClosed(this.reached.size());
+        this.statistics.setExhausted(budget.getExhausted());
+        boolean answerFound = !result.isEmpty();
+        if (!answerFound && null != budget.getExhausted()) {
+            // Devolve o caminho até o estado de menor estimativa
+            result = AbstractSearchMethod.replay(board, this.path(start, this.partial.getPosition()));
+        }
+        // Informa as estatísticas da operação
+        this.statistics.finish(answerFound, answerFound ? result.size() - 1 : -1);
+        SearchMetrics.publish(this.statistics);
+        return result;
+    }
+
+    /**
+     * Expande os estados da lista aberta até que nenhum tenha custo
+     * ponderado menor que o do resultado esperado.
+     * @param goal   Estado do resultado esperado.
+     * @param budget Limites da busca.
+     * @return Indicador de iteração concluída, falso se o orçamento se esgotou.
+     */
+    private boolean improvePath(long goal, SearchBudget budget) {
+        while (!this.openList.isEmpty()) {
+            int goalCost = this.reached.get(goal, -1);
+            if (goalCost >= 0 && this.priority(goalCost >>> 8, 0) <= this.openList.peekPriority()) {
+                return true;
+            }
+            Node node = this.openList.poll();
+            // Descarta cópias obsoletas e estados já fechados nesta iteração
+            if ((this.reached.get(node.state, 0) >>> 8) < node.moves) {
+                this.statistics.addDuplicates(1L);
+                continue;
+            }
+            if (this.closed.get(node.state, -1) == this.iteration) {
+                this.statistics.addDuplicates(1L);
+                continue;
+            }
+            this.closed.put(node.state, this.iteration);
+            this.statistics.addExpanded(1L);
+            this.partial.offer(node.estimate, node.state);
+            // Verifica o orçamento a cada bloco de expansões
+            if ((this.statistics.getExpanded() & BUDGET_CHECK_MASK) == 0L
+                    && budget.isExhausted(this.statistics.getExpanded(), this.reached.size())) {
+                return false;
+            }
+            int blank = this.layout.findBlank(node.state);
+            // Movimentos válidos da casa do branco, com as casas alcançadas e as máscaras de troca
+            BoardGameMoveEnum[] movements = this.layout.moves(blank);
+            int[] targets = this.layout.targets(blank);
+            long[] deltas = this.layout.deltas(blank);
+            BoardGameMoveEnum undo = node.move.getOpposite();
+            for (int i = 0; i < movements.length; i++) {
+                BoardGameMoveEnum movement = movements[i];
+                if (movement == undo) {
+                    continue;
+                }
+                int target = targets[i];
+                int tile = BoardState.tileAt(node.state, target);
+                long child = BoardState.swap(node.state, target, deltas[i]);
+                this.statistics.addGenerated(1L);
+                int recorded = this.reached.get(child, -1);
+                if (recorded >= 0 && (recorded >>> 8) <= node.moves + 1) {
+                    this.statistics.addDuplicates(1L);
+                    continue;
+                }
+                this.reached.put(child, ((node.moves + 1) << 8) | movement.ordinal());
+                int estimate = this.heuristic.update(node.state, node.estimate, child, tile, target, blank);
+                Node childNode = new Node(child, node.moves + 1, estimate, movement);
+                if (this.closed.get(child, -1) == this.iteration && !this.reopening) {
+                    // Fechado nesta iteração: volta para a lista aberta na próxima
+                    this.inconsistent.add(childNode);
+                } else {
+                    // Reabre o estado fechado nesta iteração, se for o caso
+                    this.closed.put(child, -1);
+                    this.openList.add(this.priority(childNode.moves, estimate), childNode);
+                    this.statistics.updateOpen(this.openList.size() + this.inconsistent.size());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retira da lista aberta e dos inconsistentes os estados ainda válidos.
+     * @return os estados pendentes para a próxima iteração.
+     */
+    private List<Node> drainPending() {
+        List<Node> result = new ArrayList<>(this.openList.size() + this.inconsistent.size());
+        Node node;
+        while ((node = this.openList.poll()) != null) {
+            if ((this.reached.get(node.state, 0) >>> 8) == node.moves) {
+                result.add(node);
+            }
+        }
+        for (Node pending : this.inconsistent) {
+            if ((this.reached.get(pending.state, 0) >>> 8) == pending.moves) {
+                result.add(pending);
+            }
+        }
+        this.inconsistent.clear();
+        return result;
+    }
+
+    /**
+     * Calcula o limite de subotimalidade comprovado da solução: o menor entre
+     * o peso da última iteração concluída e a razão entre o tamanho da
+     * solução e o menor custo {@code g + h} dos estados pendentes, que é um
+     * limite inferior da solução ótima. Os dois valem porque todo estado com
+     * custo melhorado depois de expandido está entre os pendentes ou foi
+     * reaberto na própria iteração.
+     * @param length       Quantidade de movimentos da solução.
+     * @param pending      Estados pendentes.
+     * @param provenWeight Peso da última iteração concluída, em décimos.
+     * @return o limite de subotimalidade.
+     */
+    private double suboptimality(int length, List<Node> pending, int provenWeight) {
+        int lowerBound = length;
+        for (Node node : pending) {
+            lowerBound = Math.min(lowerBound, node.moves + node.estimate);
+        }
+        double bound = lowerBound == 0 ? 1.0 : length / (double) lowerBound;
+        return Math.min(provenWeight / (double) WEIGHT_SCALE, bound);
+    }
+
+    /**
+     * Calcula a prioridade de um estado na lista aberta com o peso atual.
+     * @param moves    Quantidade de movimentos até o estado.
+     * @param estimate Estimativa de movimentos restantes.
+     * @return a prioridade, {@code g + w * h} em décimos.
+     */
+    private int priority(int moves, int estimate) {
+        return moves * WEIGHT_SCALE + estimate * this.weight;
+    }
+
+    /**
+     * Refaz o caminho de um estado alcançado até o estado inicial, desfazendo
+     * o movimento registrado para cada estado.
+     * @param start Estado inicial.
+     * @param end   Estado alcançado.
+     * @return os movimentos na ordem de execução.
+     */
+    private BoardGameMoveEnum[] path(long start, long end) {
+        BoardGameMoveEnum[] result = new BoardGameMoveEnum[this.reached.get(end, 0) >>> 8];
+        int length = 0;
+        long state = end;
+        while (state != start) {
+            BoardGameMoveEnum movement = MOVES[this.reached.get(state, 0) & 0xFF];
+            result[length++] = movement;
+            // O branco volta para a casa anterior ao movimento
+            int blank = this.layout.findBlank(state);
+            state = BoardState.move(state, blank, this.layout.target(blank, movement.getOpposite()));
+        }
+        // Inverte os movimentos para a ordem de execução
+        for (int i = 0; i < length / 2; i++) {
+            BoardGameMoveEnum swap = result[i];
+            result[i] = result[length - 1 - i];
+            result[length - 1 - i] = swap;
+        }
+        // Custos melhorados depois do registro podem encurtar o caminho
+        return Arrays.copyOf(result, length);
+    }
+
+    @Override
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Retorna a estimativa de movimentos restantes.
+     * @return a estimativa de movimentos restantes.
+     */
+    public IHeuristic getHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * Retorna o observador das soluções intermediárias.
+     * @return o observador das soluções intermediárias, pode ser nulo.
+     */
+    public IImprovementListener getImprovementListener() {
+        return improvementListener;
+    }
+
+    /**
+     * Determina o observador das soluções intermediárias.
+     * @param improvementListener o observador das soluções intermediárias, pode ser nulo.
+     */
+    public void setImprovementListener(IImprovementListener improvementListener) {
+        this.improvementListener = improvementListener;
+    }
+
+    /**
+     * Estado gerado pela busca.
+     */
+    private static final class Node {
+
+        /** Estado compactado. */
+        private final long state;
+        /** Quantidade de movimentos até o estado. */
+        private final int moves;
+        /** Estimativa de movimentos restantes. */
+        private final int estimate;
+        /** Movimento que gerou o estado. */
+        private final BoardGameMoveEnum move;
+
+        Node(long state, int moves, int estimate, BoardGameMoveEnum move) {
+            this.state = state;
+            this.moves = moves;
+            this.estimate = estimate;
+            this.move = move;
+        }
+
+    }
+
+}
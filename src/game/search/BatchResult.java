@@ -0,0 +1,111 @@
+package game.search;
+
+import game.Board;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Resultado da solução de um tabuleiro em lote.
+ */
+public class BatchResult {
+
+    /** Posição do tabuleiro na entrada do lote. */
+    private final long index;
+    /** Tabuleiro solucionado. */
+    private final Board board;
+    /** Sequência de tabuleiros da solução, vazia se não houver. */
+    private final Map<Integer, Board> solution;
+    /** Tempo gasto na busca, em nanossegundos. */
+    private final long elapsedNanos;
+    /** Falha ocorrida na busca, nula quando a busca terminou normalmente. */
+    private final Throwable error;
+
+    /**
+     * Resultado da solução de um tabuleiro em lote.
+     * @param index        Posição do tabuleiro na entrada do lote.
+     * @param board        Tabuleiro solucionado.
+     * @param solution     Sequência de tabuleiros da solução.
+     * @param elapsedNanos Tempo gasto na busca, em nanossegundos.
+     */
+    public BatchResult(long index, Board board, Map<Integer, Board> solution, long elapsedNanos) {
+        this.index = index;
+        this.board = board;
+        this.solution = solution;
+        this.elapsedNanos = elapsedNanos;
+        this.error = null;
+    }
+
+    /**
+     * Resultado de um tabuleiro cuja busca falhou.
+     * @param index        Posição do tabuleiro na entrada do lote.
+     * @param board        Tabuleiro que não foi solucionado.
+     * @param error        Falha ocorrida na busca.
+     * @param elapsedNanos Tempo gasto até a falha, em nanossegundos.
+     */
+    public BatchResult(long index, Board board, Throwable error, long elapsedNanos) {
+        this.index = index;
+        this.board = board;
+        this.solution = Collections.emptyMap();
+        this.elapsedNanos = elapsedNanos;
+        this.error = error;
+    }
+
+    /**
+     * Verifica se foi encontrada solução. Caminhos parciais de buscas
+     * interrompidas pelo orçamento não são solução.
+     * @return Indicador de solução encontrada.
+     */
+    public boolean isSolved() {
+        return null != this.solution && !this.solution.isEmpty()
+                && this.solution.get(this.solution.size() - 1).isResult();
+    }
+
+    /**
+     * Retorna a quantidade de movimentos da solução.
+     * @return a quantidade de movimentos da solução, -1 se não houver.
+     */
+    public int getMoves() {
+        return this.isSolved() ? this.solution.size() - 1 : -1;
+    }
+
+    /**
+     * Retorna a posição do tabuleiro na entrada do lote.
+     * @return a posição do tabuleiro na entrada do lote.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Retorna o tabuleiro solucionado.
+     * @return o tabuleiro solucionado.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Retorna a sequência de tabuleiros da solução.
+     * @return a sequência de tabuleiros da solução, vazia se não houver.
+     */
+    public Map<Integer, Board> getSolution() {
+        return solution;
+    }
+
+    /**
+     * Retorna o tempo gasto na busca.
+     * @return o tempo gasto na busca, em nanossegundos.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Retorna a falha ocorrida na busca.
+     * @return a falha ocorrida na busca, nula se a busca terminou normalmente.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+}
@@ -0,0 +1,137 @@
+package game.search;
+
+import game.Board;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Solução de vários tabuleiros em paralelo.
+ * <p>
+ * Os tabuleiros são distribuídos entre um grupo fixo de threads. Cada thread
+ * mantém a sua própria instância do método de busca, reaproveitando as
+ * estruturas internas (conjunto de visitados, filas, caminhos) entre um
+ * tabuleiro e outro. A fila de tarefas é limitada: quando ela enche, a
+ * própria thread que lê a entrada executa a busca, o que impede que uma
+ * entrada muito grande seja carregada toda em memória.
+ * <p>
+ * Falhas de uma busca não interrompem o lote: o tabuleiro é entregue com a
+ * falha em {@link BatchResult#getError()}, e a thread passa a usar uma nova
+ * instância do método de busca.
+ */
+public class BatchSolver implements AutoCloseable {
+
+    /** Quantidade de tarefas aguardando por thread. */
+    private static final int QUEUE_PER_THREAD = 64;
+
+    /** Threads de solução. */
+    private final ThreadPoolExecutor executor;
+    /** Método de busca de cada thread. */
+    private final ThreadLocal<ISearchMethod> searchMethods;
+    /** Criação dos limites de cada busca. */
+    private final Supplier<SearchBudget> budgets;
+
+    /**
+     * Solução de vários tabuleiros usando todos os processadores.
+     * @param searchMethodFactory Criação do método de busca de cada thread.
+     */
+    public BatchSolver(Supplier<ISearchMethod> searchMethodFactory) {
+        this(searchMethodFactory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Solução de vários tabuleiros em paralelo.
+     * @param searchMethodFactory Criação do método de busca de cada thread.
+     * @param parallelism         Quantidade de threads.
+     */
+    public BatchSolver(Supplier<ISearchMethod> searchMethodFactory, int parallelism) {
+        this(searchMethodFactory, parallelism, SearchBudget::new);
+    }
+
+    /**
+     * Solução de vários tabuleiros em paralelo, com limites em cada busca.
+     * @param searchMethodFactory Criação do método de busca de cada thread.
+     * @param parallelism         Quantidade de threads.
+     * @param budgets             Criação dos limites de cada busca.
+     */
+    public BatchSolver(Supplier<ISearchMethod> searchMethodFactory, int parallelism,
+            Supplier<SearchBudget> budgets) {
+        this.searchMethods = ThreadLocal.withInitial(searchMethodFactory);
+        this.budgets = budgets;
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * QUEUE_PER_THREAD), runnable -> {
+                    Thread thread = new Thread(runnable, "batch-solver");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Soluciona todos os tabuleiros, entregando cada resultado assim que ele
+     * termina. Retorna apenas depois que todos os resultados forem entregues.
+     * @param boards   Tabuleiros a serem solucionados.
+     * @param listener Receptor dos resultados, chamado por várias threads.
+     * @return a quantidade de tabuleiros solucionados.
+     * @throws IllegalStateException Falha do receptor ao tratar algum
+     *                               resultado, lançada depois que todos os
+     *                               tabuleiros forem processados.
+     */
+    public long solveAll(Iterable<Board> boards, Consumer<BatchResult> listener) {
+        // Aguarda o término de todas as tarefas enviadas
+        Phaser pending = new Phaser(1);
+        AtomicReference<RuntimeException> listenerError = new AtomicReference<>();
+        long index = 0L;
+        try {
+            for (Board board : boards) {
+                long boardIndex = index++;
+                pending.register();
+                // Nenhuma falha sai da tarefa, nem quando ela roda na thread de leitura
+                this.executor.execute(() -> {
+                    try {
+                        listener.accept(this.solve(boardIndex, board));
+                    } catch (RuntimeException e) {
+                        listenerError.compareAndSet(null, e);
+                    } finally {
+                        pending.arriveAndDeregister();
+                    }
+                });
+            }
+        } finally {
+            pending.arriveAndAwaitAdvance();
+        }
+        if (null != listenerError.get()) {
+            throw new IllegalStateException("Falha ao tratar o resultado de um tabuleiro", listenerError.get());
+        }
+        return index;
+    }
+
+    /**
+     * Soluciona um tabuleiro com o método de busca da thread atual.
+     * @param index Posição do tabuleiro na entrada do lote.
+     * @param board Tabuleiro a ser solucionado.
+     * @return o resultado da solução, com a falha se a busca não terminar.
+     */
+    private BatchResult solve(long index, Board board) {
+        long begin = System.nanoTime();
+        try {
+            Map<Integer, Board> solution = this.searchMethods.get().executeSearch(new Board(board),
+                    this.budgets.get());
+            return new BatchResult(index, board, solution, System.nanoTime() - begin);
+        } catch (RuntimeException | StackOverflowError | OutOfMemoryError e) {
+            // As estruturas do método podem ter ficado inconsistentes
+            this.searchMethods.remove();
+            return new BatchResult(index, board, e, System.nanoTime() - begin);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdown();
+    }
+
+}
@@ -0,0 +1,261 @@
+package game.search;
+
+import game.Board;
+import game.BoardGameMoveEnum;
+import game.BoardLayout;
+import game.BoardState;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classe para busca pelo método de Busca em Largura bidirecional.
+ * <p>
+ * Como o resultado esperado é conhecido e todo movimento pode ser desfeito,
+ * duas buscas em largura avançam ao mesmo tempo: uma a partir do tabuleiro
+ * inicial e outra a partir do resultado esperado. A cada passo é expandido
+ * um nível inteiro da fronteira menor, e cada estado novo é procurado nos
+ * estados alcançados pelo outro lado. O nível em que os dois lados se
+ * encontram é concluído para que o menor caminho seja escolhido, e as duas
+ * metades são unidas em uma única sequência de movimentos. Cada lado explora
+ * cerca de metade da profundidade, o que reduz os estados gerados a algo
+ * próximo da raiz quadrada da busca em largura comum.
+ */
+public class BidirectionalBreadthFirstSearch implements ISearchMethod {
+
+    /** Movimentos indexados pelo ordinal. */
+    private static final BoardGameMoveEnum[] MOVES = BoardGameMoveEnum.values();
+    /** Máscara da quantidade de estados expandidos entre verificações do orçamento. */
+    private static final int BUDGET_CHECK_MASK = 0xFF;
+
+    /** Estados alcançados a partir do início, {@code profundidade << 8 | movimento}. */
+    private final LongIntHashMap forward = new LongIntHashMap();
+    /** Estados alcançados a partir do resultado, {@code profundidade << 8 | movimento}. */
+    private final LongIntHashMap backward = new LongIntHashMap();
+    /** Profundidade máxima da busca, 0 para usar o padrão das dimensões do tabuleiro. */
+    private final int maxDepth;
+    /** Dimensões e resultado esperado do tabuleiro da busca atual. */
+    private BoardLayout layout;
+    /** Tamanho do menor caminho encontrado, {@link Integer#MAX_VALUE} se não houver. */
+    private int bestLength;
+    /** Estado onde os dois lados se encontraram no menor caminho. */
+    private long meeting;
+    /** Estatísticas da última busca. */
+    private SearchStatistics statistics;
+    /** Limites da busca atual. */
+    private SearchBudget budget;
+    /** Estado de menor estimativa expandido a partir do início. */
+    private final PartialResult partial = new PartialResult();
+
+    /**
+     * Classe para busca em largura bidirecional.
+     */
+    public BidirectionalBreadthFirstSearch() {
+        this(0);
+    }
+
+    /**
+     * Classe para busca em largura bidirecional.
+     * @param maxDepth Profundidade máxima da busca, 0 para usar o padrão das
+     *                 dimensões do tabuleiro.
+     */
+    public BidirectionalBreadthFirstSearch(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public Map<Integer, Board> executeSearch(Board board, SearchBudget budget) {
+        this.statistics = new SearchStatistics(this.getClass().getSimpleName());
+        this.budget = budget;
+        budget.start();
+        // Tabuleiros sem solução são descartados sem busca
+        if (!board.isSolvable()) {
+            this.statistics.finish(false, -1);
+            SearchMetrics.publish(this.statistics);
+            return new HashMap<>();
+        }
+        this.layout = board.getLayout();
+        int limit = this.maxDepth > 0 ? this.maxDepth : AbstractSearchMethod.getMaxHeight(this.layout);
+        // Descarta as estruturas de uma busca anterior
+        this.forward.clear();
+        this.backward.clear();
+        long start = board.getState();
+        long goal = this.layout.getGoal();
+        this.forward.put(start, BoardGameMoveEnum.UNKNOWN.ordinal());
+        this.backward.put(goal, BoardGameMoveEnum.UNKNOWN.ordinal());
+        this.bestLength = start == goal ? 0 : Integer.MAX_VALUE;
+        this.meeting = start;
+        this.partial.resetBlind(this.layout, budget, start);
+        Frontier forwardFrontier = new Frontier(start);
+        Frontier backwardFrontier = new Frontier(goal);
+        this.statistics.addGenerated(2L);
+        this.statistics.updateOpen(2L);
+        this.statistics.startSearch();
+        // Expande sempre o lado com a menor fronteira até os lados se encontrarem
+        while (this.bestLength == Integer.MAX_VALUE && forwardFrontier.size > 0 && backwardFrontier.size > 0
+                && forwardFrontier.depth + backwardFrontier.depth < limit
+                && !budget.isExhausted(this.statistics.getExpanded(), this.forward.size() + this.backward.size())) {
+            if (forwardFrontier.size <= backwardFrontier.size) {
+                forwardFrontier = this.expand(forwardFrontier, this.forward, this.backward);
+            } else {
+                backwardFrontier = this.expand(backwardFrontier, this.backward, this.forward);
+            }
+            this.statistics.updateOpen(forwardFrontier.size + backwardFrontier.size);
+        }
+        this.statistics.startPath();
+        this.statistics.updateClosed(this.forward.size() + this.backward.size());
+        boolean answerFound = this.bestLength <= limit;
+        // Um encontro em um nível interrompido pode não ser o menor caminho
+        this.statistics.setExhausted(budget.getExhausted());
+        Map<Integer, Board> result = new HashMap<>();
+        if (answerFound) {
+            // Refaz os movimentos do caminho a partir do tabuleiro inicial
+            result = AbstractSearchMethod.replay(board, this.path(start));
+        } else if (null != budget.getExhausted()) {
+            // Devolve o caminho até o estado de menor estimativa alcançado a partir do início
+            result = AbstractSearchMethod.replay(board, this.forwardPath(start, this.partial.getPosition()));
+        }
+        // Informa as estatísticas da operação
+        this.statistics.finish(answerFound, this.bestLength);
+        SearchMetrics.publish(this.statistics);
+        return result;
+    }
+
+    /**
+     * Expande um nível inteiro de um dos lados, procurando cada estado novo
+     * nos estados alcançados pelo outro lado.
+     * @param frontier Fronteira do nível atual.
+     * @param own      Estados alcançados pelo lado expandido.
+     * @param other    Estados alcançados pelo outro lado.
+     * @return a fronteira do próximo nível.
+     */
+    private Frontier expand(Frontier frontier, LongIntHashMap own, LongIntHashMap other) {
+        Frontier next = new Frontier(frontier.depth + 1, frontier.size * 2);
+        long generated = 0L;
+        boolean tracking = this.partial.isTracking() && own == this.forward;
+        int i;
+        for (i = 0; i < frontier.size; i++) {
+            // Verifica o orçamento a cada bloco de estados, interrompendo o nível
+            if ((i & BUDGET_CHECK_MASK) == 0 && this.budget.isExhausted(this.statistics.getExpanded() + i, own.size() + other.size())) {
+                break;
+            }
+            long state = frontier.states[i];
+            if (tracking) {
+                this.partial.offer(state);
+            }
+            BoardGameMoveEnum lastMove = MOVES[own.get(state, 0) & 0xFF];
+            int blank = this.layout.findBlank(state);
+            // Movimentos válidos da casa do branco, com as casas alcançadas e as máscaras de troca
+            BoardGameMoveEnum[] movements = this.layout.moves(blank);
+            int[] targets = this.layout.targets(blank);
+            long[] deltas = this.layout.deltas(blank);
+            BoardGameMoveEnum undo = lastMove.getOpposite();
+            for (int m = 0; m < movements.length; m++) {
+                BoardGameMoveEnum movement = movements[m];
+                // Descarta o movimento que desfaz o anterior
+                if (movement == undo) {
+                    continue;
+                }
+                long child = BoardState.swap(state, targets[m], deltas[m]);
+                generated++;
+                if (own.containsKey(child)) {
+                    continue;
+                }
+                own.put(child, (next.depth << 8) | movement.ordinal());
+                next.add(child);
+                // Verifica se o outro lado já alcançou o estado
+                int recorded = other.get(child, -1);
+                if (recorded >= 0 && next.depth + (recorded >>> 8) < this.bestLength) {
+                    this.bestLength = next.depth + (recorded >>> 8);
+                    this.meeting = child;
+                }
+            }
+        }
+        this.statistics.addGenerated(generated);
+        this.statistics.addExpanded(i);
+        this.statistics.addDuplicates(generated - next.size);
+        return next;
+    }
+
+    @Override
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Une as duas metades do caminho: do início até o encontro, desfazendo os
+     * movimentos do lado inicial, e do encontro até o resultado, aplicando o
+     * contrário dos movimentos do lado do resultado.
+     * @param start Estado inicial.
+     * @return os movimentos na ordem de execução.
+     */
+    private BoardGameMoveEnum[] path(long start) {
+        BoardGameMoveEnum[] result = Arrays.copyOf(this.forwardPath(start, this.meeting), this.bestLength);
+        int length = this.forward.get(this.meeting, 0) >>> 8;
+        long state = this.meeting;
+        while (state != this.layout.getGoal()) {
+            BoardGameMoveEnum movement = MOVES[this.backward.get(state, 0) & 0xFF].getOpposite();
+            result[length++] = movement;
+            int blank = this.layout.findBlank(state);
+            state = BoardState.move(state, blank, this.layout.target(blank, movement));
+        }
+        return result;
+    }
+
+    /**
+     * Refaz o caminho do início até um estado alcançado pelo lado inicial,
+     * desfazendo o movimento que alcançou cada estado.
+     * @param start Estado inicial.
+     * @param end   Estado alcançado pelo lado inicial.
+     * @return os movimentos na ordem de execução.
+     */
+    private BoardGameMoveEnum[] forwardPath(long start, long end) {
+        BoardGameMoveEnum[] result = new BoardGameMoveEnum[this.forward.get(end, 0) >>> 8];
+        int length = result.length;
+        long state = end;
+        while (state != start) {
+            BoardGameMoveEnum movement = MOVES[this.forward.get(state, 0) & 0xFF];
+            result[--length] = movement;
+            // O branco volta para a casa anterior ao movimento
+            int blank = this.layout.findBlank(state);
+            state = BoardState.move(state, blank, this.layout.target(blank, movement.getOpposite()));
+        }
+        return result;
+    }
+
+    /**
+     * Fronteira de um nível de um dos lados da busca.
+     */
+    private static final class Frontier {
+
+        /** Profundidade do nível. */
+        private final int depth;
+        /** Estados do nível. */
+        private long[] states;
+        /** Quantidade de estados do nível. */
+        private int size;
+
+        Frontier(long state) {
+            this(0, 1);
+            this.add(state);
+        }
+
+        Frontier(int depth, int capacity) {
+            this.depth = depth;
+            this.states = new long[Math.max(capacity, 16)];
+        }
+
+        /**
+         * Adiciona um estado no nível.
+         * @param state Estado compactado.
+         */
+        void add(long state) {
+            if (this.size == this.states.length) {
+                this.states = Arrays.copyOf(this.states, this.size * 2);
+            }
+            this.states[this.size++] = state;
+        }
+
+    }
+
+}
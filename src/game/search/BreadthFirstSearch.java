@@ -1,16 +1,11 @@
 package game.search;
 
-import game.Board;
-
 /**
  * Classe para busca pelo método de Busca em Largura.
+ * <p>
+ * Usa a busca da {@link AbstractSearchMethod}, que percorre os nós na ordem
+ * em que foram gravados na {@link NodeArena}.
  */
 public class BreadthFirstSearch extends AbstractSearchMethod implements ISearchMethod {
 
-    @Override
-    protected void insertInDeque(Board board) {
-        // Adiciona o primeiro tabuleiro na fila de verificações
-        this.getSearchQueue().addLast(board);
-    }
-
 }
@@ -0,0 +1,97 @@
+package game.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fila de prioridade por baldes para prioridades inteiras pequenas e não
+ * negativas, como o custo {@code f = g + h} da busca A*.
+ * <p>
+ * Inserção e remoção custam O(1) amortizado. Dentro de um mesmo balde os
+ * itens saem na ordem inversa de inserção, o que favorece os tabuleiros mais
+ * profundos no desempate.
+ * @param <T> Tipo dos itens da fila.
+ */
+public class BucketQueue<T> {
+
+    /** Baldes indexados pela prioridade. */
+    private final List<ArrayDeque<T>> buckets = new ArrayList<>();
+    /** Menor prioridade que pode conter itens. */
+    private int minPriority;
+    /** Quantidade de itens na fila. */
+    private int size;
+
+    /**
+     * Insere um item na fila.
+     * @param priority Prioridade do item, menor sai primeiro.
+     * @param item     Item a ser inserido.
+     */
+    public void add(int priority, T item) {
+        // Cria os baldes que ainda não existem até a prioridade informada
+        while (this.buckets.size() <= priority) {
+            this.buckets.add(new ArrayDeque<>());
+        }
+        this.buckets.get(priority).push(item);
+        if (priority < this.minPriority) {
+            this.minPriority = priority;
+        }
+        this.size++;
+    }
+
+    /**
+     * Remove o item de menor prioridade da fila.
+     * @return o item de menor prioridade, ou nulo se a fila estiver vazia.
+     */
+    public T poll() {
+        if (this.size == 0) {
+            return null;
+        }
+        // Avança até o primeiro balde com itens
+        while (this.buckets.get(this.minPriority).isEmpty()) {
+            this.minPriority++;
+        }
+        this.size--;
+        return this.buckets.get(this.minPriority).pop();
+    }
+
+    /**
+     * Retorna a menor prioridade presente na fila.
+     * @return a menor prioridade presente na fila, ou -1 se estiver vazia.
+     */
+    public int peekPriority() {
+        if (this.size == 0) {
+            return -1;
+        }
+        while (this.buckets.get(this.minPriority).isEmpty()) {
+            this.minPriority++;
+        }
+        return this.minPriority;
+    }
+
+    /**
+     * Verifica se a fila está vazia.
+     * @return Indicador de fila vazia.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Retorna a quantidade de itens na fila.
+     * @return a quantidade de itens na fila.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove todos os itens da fila, mantendo os baldes alocados.
+     */
+    public void clear() {
+        this.buckets.forEach(ArrayDeque::clear);
+        this.minPriority = 0;
+        this.size = 0;
+    }
+
+}
@@ -0,0 +1,97 @@
+package game.search;
+
+import game.Board;
+import game.BoardGameMoveEnum;
+import java.util.Map;
+
+/**
+ * Método de busca que consulta uma {@link SolutionCache} antes de buscar.
+ * <p>
+ * Tabuleiros cujo estado já está na memória são respondidos sem busca; os
+ * demais são solucionados pelo método decorado e a solução é guardada com
+ * todos os seus trechos finais. Como os trechos finais só são ótimos quando
+ * o caminho inteiro é ótimo, o método decorado deve encontrar o menor
+ * caminho, como todos os métodos de {@link SearchMethodFactory}. Tabuleiros
+ * de dimensões diferentes das da memória são repassados diretamente ao
+ * método decorado.
+ */
+public class CachedSearchMethod implements ISearchMethod {
+
+    /** Método de busca decorado. */
+    private final ISearchMethod delegate;
+    /** Memória de soluções, que pode ser compartilhada. */
+    private final SolutionCache cache;
+    /** Estatísticas da última consulta respondida pela memória. */
+    private SearchStatistics statistics;
+    /** Indicador de última busca respondida pela memória. */
+    private boolean lastHit;
+
+    /**
+     * Método de busca com memória de soluções.
+     * @param delegate Método de busca decorado.
+     * @param cache    Memória de soluções.
+     */
+    public CachedSearchMethod(ISearchMethod delegate, SolutionCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Map<Integer, Board> executeSearch(Board board, SearchBudget budget) {
+        this.lastHit = false;
+        if (!this.cache.getLayout().equals(board.getLayout())) {
+            return this.delegate.executeSearch(board, budget);
+        }
+        SearchStatistics hit = new SearchStatistics(this.getClass().getSimpleName());
+        BoardGameMoveEnum[] movements = board.isResult()
+                ? new BoardGameMoveEnum[0] : this.cache.lookup(board.getState());
+        if (null != movements) {
+            hit.startPath();
+            Map<Integer, Board> result = AbstractSearchMethod.replay(board, movements);
+            hit.finish(true, movements.length);
+            this.statistics = hit;
+            this.lastHit = true;
+            SearchMetrics.publish(hit);
+            return result;
+        }
+        Map<Integer, Board> result = this.delegate.executeSearch(board, budget);
+        // Caminhos parciais e respostas de buscas interrompidas não são guardados
+        SearchStatistics statistics = this.delegate.getStatistics();
+        if (null != result && result.size() > 1 && statistics.isAnswerFound() && null == statistics.getExhausted()) {
+            // Recupera os movimentos da sequência de tabuleiros
+            movements = new BoardGameMoveEnum[result.size() - 1];
+            for (int i = 1; i < result.size(); i++) {
+                movements[i - 1] = result.get(i).getLastMove();
+            }
+            this.cache.store(board.getState(), movements);
+        }
+        return result;
+    }
+
+    /**
+     * Retorna as estatísticas da última busca: as da consulta, quando a
+     * memória respondeu, ou as do método decorado.
+     * @return as estatísticas da última busca, nulo se não houve busca.
+     */
+    @Override
+    public SearchStatistics getStatistics() {
+        return this.lastHit ? this.statistics : this.delegate.getStatistics();
+    }
+
+    /**
+     * Retorna o método de busca decorado.
+     * @return o método de busca decorado.
+     */
+    public ISearchMethod getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Retorna a memória de soluções.
+     * @return a memória de soluções.
+     */
+    public SolutionCache getCache() {
+        return cache;
+    }
+
+}
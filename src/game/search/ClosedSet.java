@@ -0,0 +1,146 @@
+package game.search;
+
+import game.BoardLayout;
+import game.BoardSymmetry;
+import java.util.Arrays;
+
+/**
+ * Conjunto de estados já visitados pela busca.
+ * <p>
+ * Nos tabuleiros pequenos cada estado é identificado pelo ranking da sua
+ * permutação, de forma que o conjunto é um mapa de bits com
+ * {@link BoardLayout#permutations()} posições (cerca de 45 KB para o
+ * tabuleiro 3x3). Nos tabuleiros maiores o espaço de estados não cabe em
+ * memória e os estados visitados são guardados em um {@link LongIntHashMap}.
+ * <p>
+ * Com simetrias, cada estado é guardado pelo seu representante canônico
+ * (ver {@link BoardSymmetry}): um estado é considerado visitado quando algum
+ * estado equivalente foi visitado, o que divide o conjunto pela quantidade de
+ * simetrias nos tabuleiros maiores.
+ */
+public class ClosedSet {
+
+    /** Maior quantidade de casas que usa o mapa de bits (10! bits, cerca de 450 KB). */
+    private static final int MAX_BITSET_CELLS = 10;
+
+    /** Dimensões do tabuleiro. */
+    private final BoardLayout layout;
+    /** Mapa de bits dos estados visitados, nulo nos tabuleiros maiores. */
+    private final long[] bits;
+    /** Estados visitados nos tabuleiros maiores, nulo quando há mapa de bits. */
+    private final LongIntHashMap states;
+    /** Simetrias usadas para escolher o representante, nulo sem simetrias. */
+    private final BoardSymmetry symmetry;
+    /** Quantidade de estados visitados. */
+    private int size;
+
+    /**
+     * Conjunto de estados do tabuleiro padrão.
+     */
+    public ClosedSet() {
+        this(BoardLayout.DEFAULT);
+    }
+
+    /**
+     * Conjunto de estados.
+     * @param layout Dimensões do tabuleiro.
+     */
+    public ClosedSet(BoardLayout layout) {
+        this(layout, false);
+    }
+
+    /**
+     * Conjunto de estados.
+     * @param layout    Dimensões do tabuleiro.
+     * @param symmetric Indicador de estados guardados pelo representante canônico.
+     */
+    public ClosedSet(BoardLayout layout, boolean symmetric) {
+        this.layout = layout;
+        this.symmetry = symmetric ? new BoardSymmetry(layout) : null;
+        if (layout.getCells() <= MAX_BITSET_CELLS) {
+            this.bits = new long[(layout.permutations() + 63) >>> 6];
+            this.states = null;
+        } else {
+            this.bits = null;
+            this.states = new LongIntHashMap();
+        }
+    }
+
+    /**
+     * Adiciona o estado no conjunto.
+     * @param state Estado compactado.
+     * @return Indicador de estado ainda não visitado.
+     */
+    public boolean add(long state) {
+        long key = null == this.symmetry ? state : this.symmetry.canonical(state);
+        if (null == this.bits) {
+            if (this.states.containsKey(key)) {
+                return false;
+            }
+            this.states.put(key, 1);
+            this.size++;
+            return true;
+        }
+        int rank = this.layout.rank(key);
+        long mask = 1L << rank;
+        int word = rank >>> 6;
+        // Verifica se o estado já havia sido visitado
+        if ((this.bits[word] & mask) != 0) {
+            return false;
+        }
+        this.bits[word] |= mask;
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Verifica se o estado já foi visitado.
+     * @param state Estado compactado.
+     * @return Indicador de estado visitado.
+     */
+    public boolean contains(long state) {
+        long key = null == this.symmetry ? state : this.symmetry.canonical(state);
+        if (null == this.bits) {
+            return this.states.containsKey(key);
+        }
+        int rank = this.layout.rank(key);
+        return (this.bits[rank >>> 6] & (1L << rank)) != 0;
+    }
+
+    /**
+     * Remove todos os estados do conjunto.
+     */
+    public void clear() {
+        if (null == this.bits) {
+            this.states.clear();
+        } else {
+            Arrays.fill(this.bits, 0L);
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Retorna a quantidade de estados visitados.
+     * @return a quantidade de estados visitados.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Indica se os estados são guardados pelo representante canônico.
+     * @return Indicador de estados guardados pelo representante canônico.
+     */
+    public boolean isSymmetric() {
+        return null != this.symmetry;
+    }
+
+    /**
+     * Retorna as dimensões do tabuleiro.
+     * @return as dimensões do tabuleiro.
+     */
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+}
@@ -0,0 +1,52 @@
+package game.search;
+
+/**
+ * Observador que informa o resultado e o tempo decorrido de cada busca na
+ * saída padrão. Com o detalhamento ligado, informa todas as estatísticas.
+ */
+public class ConsoleSearchListener implements ISearchListener {
+
+    /** Quantidade de nanossegundos em um segundo. */
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /** Indicador de detalhamento das estatísticas. */
+    private final boolean detailed;
+
+    /**
+     * Observador que informa apenas o resultado e o tempo decorrido.
+     */
+    public ConsoleSearchListener() {
+        this(false);
+    }
+
+    /**
+     * Observador que informa as buscas na saída padrão.
+     * @param detailed Indicador de detalhamento das estatísticas.
+     */
+    public ConsoleSearchListener(boolean detailed) {
+        this.detailed = detailed;
+    }
+
+    @Override
+    public void searchFinished(SearchStatistics statistics) {
+        System.out.println(String.format("Resposta %s em %d segundos e %d iterações",
+                statistics.isAnswerFound() ? "encontrada " : "não encontrada",
+                statistics.getTotalNanos() / NANOS_PER_SECOND,
+                statistics.getGenerated()));
+        if (null != statistics.getExhausted()) {
+            System.out.println("Busca interrompida pelo limite de " + statistics.getExhausted().getDescription());
+        }
+        if (this.detailed) {
+            System.out.println(statistics);
+        }
+    }
+
+    /**
+     * Retorna o indicador de detalhamento das estatísticas.
+     * @return o indicador de detalhamento das estatísticas.
+     */
+    public boolean isDetailed() {
+        return detailed;
+    }
+
+}
@@ -1,16 +1,45 @@
 package game.search;
 
-import game.Board;
+import game.heuristic.ZeroHeuristic;
 
 /**
- * Classe para busca pelo método de Busca em Profundidade.
+ * Classe para busca pelo método de Busca em Profundidade com aprofundamento
+ * iterativo.
+ * <p>
+ * Executa buscas em profundidade sucessivas limitadas pela quantidade de
+ * movimentos, aumentando o limite em um a cada iteração, de forma que a
+ * primeira resposta encontrada é a mais curta. É o IDA* com a
+ * {@link ZeroHeuristic}: as expansões são feitas e desfeitas sobre um único
+ * estado compactado, a memória usada é proporcional apenas à profundidade e
+ * os caminhos repetidos são cortados pelo {@link MoveAutomaton}.
  */
-public class DepthSearch extends AbstractSearchMethod implements ISearchMethod {
+public class DepthSearch extends IterativeDeepeningAStarSearch {
 
-    @Override
-    protected void insertInDeque(Board board) {
-        // Adiciona o primeiro tabuleiro na fila de verificações
-        this.getSearchQueue().addFirst(board);
+    /**
+     * Classe para busca em profundidade com a profundidade máxima padrão das
+     * dimensões do tabuleiro.
+     */
+    public DepthSearch() {
+        this(0);
+    }
+
+    /**
+     * Classe para busca em profundidade com aprofundamento iterativo.
+     * @param maxDepth Profundidade máxima da busca, 0 para usar o padrão das
+     *                 dimensões do tabuleiro.
+     */
+    public DepthSearch(int maxDepth) {
+        this(maxDepth, MoveAutomaton.getDefault());
+    }
+
+    /**
+     * Classe para busca em profundidade com aprofundamento iterativo.
+     * @param maxDepth  Profundidade máxima da busca, 0 para usar o padrão das
+     *                  dimensões do tabuleiro.
+     * @param automaton Autômato de descarte das sequências de movimentos duplicadas.
+     */
+    public DepthSearch(int maxDepth, MoveAutomaton automaton) {
+        super(new ZeroHeuristic(), maxDepth, automaton);
     }
 
 }
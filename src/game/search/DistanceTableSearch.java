@@ -0,0 +1,98 @@
+package game.search;
+
+import game.Board;
+import game.BoardGameMoveEnum;
+import game.BoardLayout;
+import game.BoardState;
+import game.heuristic.DistanceTable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classe para solução por consulta à tabela completa de distâncias.
+ * <p>
+ * Não há busca: a partir do tabuleiro inicial, cada passo escolhe um vizinho
+ * cuja distância na {@link DistanceTable} é uma unidade menor, até chegar ao
+ * resultado esperado. O caminho é ótimo e custa no máximo quatro consultas
+ * por movimento.
+ */
+public class DistanceTableSearch implements ISearchMethod {
+
+    /** Distâncias exatas até o resultado esperado. */
+    private final DistanceTable table;
+    /** Estatísticas da última busca. */
+    private SearchStatistics statistics;
+
+    /**
+     * Classe para solução pela tabela de distâncias.
+     * @param table Distâncias exatas até o resultado esperado.
+     */
+    public DistanceTableSearch(DistanceTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Soluciona o tabuleiro pela tabela. A consulta custa no máximo quatro
+     * acessos por movimento e não é limitada pelo orçamento.
+     * @param board  Tabuleiro inicial.
+     * @param budget Limites da busca, ignorados.
+     * @return Mapeamento da sequência de tabuleiros pela quantidade de movimentos.
+     */
+    @Override
+    public Map<Integer, Board> executeSearch(Board board, SearchBudget budget) {
+        AbstractSearchMethod.checkLayout(this.table, board);
+        this.statistics = new SearchStatistics(this.getClass().getSimpleName());
+        BoardLayout layout = board.getLayout();
+        long state = board.getState();
+        int distance = this.table.distance(state);
+        if (distance == DistanceTable.UNREACHABLE) {
+            this.statistics.finish(false, -1);
+            SearchMetrics.publish(this.statistics);
+            return new HashMap<>();
+        }
+        this.statistics.startSearch();
+        BoardGameMoveEnum[] movements = new BoardGameMoveEnum[distance];
+        long generated = 1L;
+        int blank = board.getBlankIndex();
+        // Desce pela tabela escolhendo sempre um vizinho mais próximo do resultado
+        for (int moves = 0; moves < movements.length; moves++) {
+            for (BoardGameMoveEnum movement : AbstractSearchMethod.MOVEMENTS) {
+                int target = layout.target(blank, movement);
+                if (target < 0) {
+                    continue;
+                }
+                long child = BoardState.move(state, blank, target);
+                generated++;
+                if (this.table.distance(child) == distance - moves - 1) {
+                    movements[moves] = movement;
+                    state = child;
+                    blank = target;
+                    break;
+                }
+            }
+        }
+        this.statistics.startPath();
+        Map<Integer, Board> result = AbstractSearchMethod.replay(board, movements);
+        // Informa as estatísticas da operação
+        this.statistics.addGenerated(generated);
+        this.statistics.addExpanded(distance);
+        this.statistics.updateOpen(1L);
+        this.statistics.finish(true, distance);
+        SearchMetrics.publish(this.statistics);
+        return result;
+    }
+
+    @Override
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Retorna a tabela de distâncias.
+     * @return a tabela de distâncias.
+     */
+    public DistanceTable getTable() {
+        return table;
+    }
+
+}
@@ -0,0 +1,723 @@
+package game.search;
+
+import game.Board;
+import game.BoardGameMoveEnum;
+import game.BoardLayout;
+import game.BoardState;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Classe para busca pelo método de Busca em Largura em memória externa.
+ * <p>
+ * Cada nível da busca é gravado em disco como um arquivo de estados
+ * compactados ordenados e sem repetição. Para gerar o próximo nível, o nível
+ * atual é lido em sequência e os sucessores são acumulados em um vetor de
+ * tamanho fixo; cada vez que o vetor enche ele é ordenado e gravado como um
+ * arquivo parcial. Ao final os arquivos parciais são intercalados e os
+ * estados repetidos são descartados de uma só vez, comparando-os com o nível
+ * atual e o anterior (detecção de repetidos adiada). Como todo movimento pode
+ * ser desfeito, os sucessores de um nível só podem estar no nível anterior,
+ * no próprio nível ou no seguinte, e os dois últimos níveis bastam.
+ * <p>
+ * A memória usada é apenas o vetor de sucessores e os blocos de leitura, e
+ * não depende do tamanho dos níveis. Os estados não guardam o caminho: ao
+ * encontrar o resultado, o caminho é refeito de trás para frente procurando,
+ * em cada nível, um vizinho do estado no nível anterior por busca binária no
+ * arquivo.
+ * <p>
+ * Os arquivos de cada tabuleiro inicial ficam em um subdiretório próprio, com
+ * um arquivo de progresso gravado ao final de cada nível e a cada arquivo
+ * parcial. Uma busca interrompida, por queda do processo ou por esgotar o
+ * orçamento, continua do último ponto gravado na próxima execução com o mesmo
+ * tabuleiro. O subdiretório é removido quando a busca termina. Um
+ * subdiretório é usado por uma busca de cada vez.
+ */
+public class ExternalBreadthFirstSearch implements ISearchMethod {
+
+    /** Identificador do arquivo de progresso. */
+    private static final int MAGIC = 0x38504246;
+    /** Versão do formato do arquivo de progresso. */
+    private static final int VERSION = 1;
+    /** Nome do arquivo de progresso. */
+    private static final String PROGRESS_FILE = "progress.bin";
+    /** Nome do arquivo de bloqueio do subdiretório. */
+    private static final String LOCK_FILE = "lock";
+    /** Tamanho padrão do vetor de sucessores, em estados (16 MiB). */
+    public static final int DEFAULT_RUN_CAPACITY = 1 << 21;
+    /** Tamanho dos blocos de leitura e gravação, em bytes. */
+    private static final int BLOCK_BYTES = 1 << 16;
+    /** Máscara da quantidade de estados expandidos entre verificações do orçamento. */
+    private static final long BUDGET_CHECK_MASK = 0xFFL;
+
+    /** Diretório dos arquivos das buscas. */
+    private final Path directory;
+    /** Tamanho do vetor de sucessores, em estados. */
+    private final int runCapacity;
+    /** Vetor de sucessores do arquivo parcial atual, criado na primeira busca. */
+    private long[] run;
+    /** Estatísticas da última busca. */
+    private SearchStatistics statistics;
+    /** Estado de menor estimativa expandido na busca atual. */
+    private final PartialResult partial = new PartialResult();
+
+    /**
+     * Classe para busca em largura em memória externa no diretório indicado
+     * na propriedade de sistema {@code game.externalDirectory}, ou em um
+     * subdiretório do diretório temporário quando ela não for informada.
+     */
+    public ExternalBreadthFirstSearch() {
+        this(defaultDirectory(), DEFAULT_RUN_CAPACITY);
+    }
+
+    /**
+     * Classe para busca em largura em memória externa.
+     * @param directory   Diretório dos arquivos das buscas.
+     * @param runCapacity Quantidade de sucessores mantidos em memória antes de
+     *                    gravar um arquivo parcial.
+     */
+    public ExternalBreadthFirstSearch(Path directory, int runCapacity) {
+        if (runCapacity < AbstractSearchMethod.MOVEMENTS.size()) {
+            throw new IllegalArgumentException("Tamanho do vetor de sucessores inválido: " + runCapacity);
+        }
+        this.directory = directory;
+        this.runCapacity = runCapacity;
+    }
+
+    /**
+     * Retorna o diretório padrão dos arquivos das buscas.
+     * @return o diretório padrão.
+     */
+    private static Path defaultDirectory() {
+        String path = System.getProperty("game.externalDirectory");
+        return null == path ? Paths.get(System.getProperty("java.io.tmpdir"), "game-bfs") : Paths.get(path);
+    }
+
+    @Override
+    public Map<Integer, Board> executeSearch(Board board, SearchBudget budget) {
+        this.statistics = new SearchStatistics(this.getClass().getSimpleName());
+        budget.start();
+        // Tabuleiros sem solução são descartados sem busca
+        if (!board.isSolvable()) {
+            this.statistics.finish(false, -1);
+            SearchMetrics.publish(this.statistics);
+            return new HashMap<>();
+        }
+        BoardLayout layout = board.getLayout();
+        Path searchDirectory = this.directory.resolve(String.format("%dx%d-%016x",
+                layout.getWidth(), layout.getHeight(), board.getState()));
+        try {
+            Files.createDirectories(searchDirectory);
+            Map<Integer, Board> result;
+            boolean completed;
+            try (FileChannel lockChannel = FileChannel.open(searchDirectory.resolve(LOCK_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    FileLock lock = lockChannel.tryLock()) {
+                if (null == lock) {
+                    throw new IllegalStateException("Diretório em uso por outra busca: " + searchDirectory);
+                }
+                result = this.search(board, budget, searchDirectory);
+                // Sem limite esgotado a busca terminou e não há o que continuar
+                completed = null == budget.getExhausted();
+                if (completed) {
+                    this.deleteFiles(searchDirectory);
+                }
+            }
+            // O subdiretório só é removido depois de liberado o bloqueio
+            if (completed) {
+                Files.deleteIfExists(searchDirectory.resolve(LOCK_FILE));
+                Files.deleteIfExists(searchDirectory);
+            }
+            return result;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Executa a busca nível a nível, continuando do ponto gravado no arquivo
+     * de progresso quando houver.
+     * @param board           Tabuleiro inicial.
+     * @param budget          Limites da busca.
+     * @param searchDirectory Subdiretório dos arquivos do tabuleiro inicial.
+     * @return Mapeamento da sequência de tabuleiros pela quantidade de movimentos.
+     * @throws IOException Erro na leitura ou gravação dos arquivos.
+     */
+    private Map<Integer, Board> search(Board board, SearchBudget budget, Path searchDirectory)
+            throws IOException {
+        BoardLayout layout = board.getLayout();
+        long start = board.getState();
+        long goal = layout.getGoal();
+        int maxHeight = AbstractSearchMethod.getMaxHeight(layout);
+        if (null == this.run) {
+            this.run = new long[this.runCapacity];
+        }
+        this.partial.resetBlind(layout, budget, start);
+        int bestDepth = 0;
+        // Continua do ponto gravado, ou grava o nível inicial
+        Progress progress = this.loadProgress(searchDirectory, layout, start);
+        if (null == progress) {
+            try (LayerWriter writer = new LayerWriter(layerFile(searchDirectory, 0))) {
+                writer.write(start);
+            }
+            progress = new Progress(0, 0L, 0);
+            this.saveProgress(searchDirectory, layout, start, progress);
+        }
+        int depth = progress.depth;
+        long closed = 0L;
+        for (int i = 0; i <= depth; i++) {
+            closed += Files.size(layerFile(searchDirectory, i)) / Long.BYTES;
+        }
+        long layerSize = Files.size(layerFile(searchDirectory, depth)) / Long.BYTES;
+        boolean found = contains(layerFile(searchDirectory, depth), goal);
+        long generated = closed;
+        long expanded = 0L;
+        this.statistics.updateOpen(layerSize);
+        this.statistics.startSearch();
+        // Expande um nível por vez enquanto houver estados novos
+        while (!found && layerSize > 0L && depth < maxHeight && !budget.isExhausted(expanded, 0L)) {
+            // Recupera os arquivos parciais já gravados do nível
+            List<Path> runs = new ArrayList<>();
+            for (int i = 0; i < progress.runs; i++) {
+                runs.add(runFile(searchDirectory, i));
+            }
+            long position = progress.position;
+            int count = 0;
+            boolean exhausted = false;
+            try (LayerReader reader = new LayerReader(layerFile(searchDirectory, depth), position)) {
+                while (reader.hasNext() && !exhausted) {
+                    // Grava um arquivo parcial antes que os sucessores do
+                    // próximo estado não caibam no vetor, registrando até
+                    // onde o nível foi expandido
+                    if (count + AbstractSearchMethod.MOVEMENTS.size() > this.run.length) {
+                        runs.add(this.writeRun(searchDirectory, runs.size(), count));
+                        count = 0;
+                        progress = new Progress(depth, position, runs.size());
+                        this.saveProgress(searchDirectory, layout, start, progress);
+                    }
+                    long state = reader.next();
+                    position++;
+                    expanded++;
+                    if (this.partial.offer(state)) {
+                        bestDepth = depth;
+                    }
+                    int blank = layout.findBlank(state);
+                    for (BoardGameMoveEnum movement : AbstractSearchMethod.MOVEMENTS) {
+                        int target = layout.target(blank, movement);
+                        if (target >= 0) {
+                            this.run[count++] = BoardState.move(state, blank, target);
+                            generated++;
+                        }
+                    }
+                    // Verifica o orçamento a cada bloco de expansões
+                    exhausted = (expanded & BUDGET_CHECK_MASK) == 0L && budget.isExhausted(expanded, count);
+                }
+            }
+            if (exhausted) {
+                // Grava os sucessores acumulados para continuar na próxima execução
+                if (count > 0) {
+                    runs.add(this.writeRun(searchDirectory, runs.size(), count));
+                }
+                this.saveProgress(searchDirectory, layout, start, new Progress(depth, position, runs.size()));
+                break;
+            }
+            runs.add(this.writeRun(searchDirectory, runs.size(), count));
+            // Intercala os arquivos parciais descartando os estados dos dois últimos níveis
+            Path next = layerFile(searchDirectory, depth + 1);
+            Path temporary = next.resolveSibling(next.getFileName() + ".tmp");
+            layerSize = merge(runs, layerFile(searchDirectory, depth),
+                    depth > 0 ? layerFile(searchDirectory, depth - 1) : null, temporary, goal);
+            found = layerSize < 0L;
+            layerSize = Math.abs(layerSize);
+            Files.move(temporary, next, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            depth++;
+            progress = new Progress(depth, 0L, 0);
+            this.saveProgress(searchDirectory, layout, start, progress);
+            // Os arquivos parciais só são removidos depois de registrado o novo nível
+            for (Path path : runs) {
+                Files.delete(path);
+            }
+            closed += layerSize;
+            this.statistics.updateOpen(layerSize);
+        }
+        this.statistics.startPath();
+        this.statistics.addGenerated(generated);
+        this.statistics.addExpanded(expanded);
+        this.statistics.addDuplicates(Math.max(0L, generated - closed));
+        this.statistics.updateClosed(closed);
+        Map<Integer, Board> result = new HashMap<>();
+        if (found) {
+            // Refaz o caminho de trás para frente a partir do resultado
+            result = AbstractSearchMethod.replay(board, this.path(searchDirectory, layout, goal, depth));
+        } else if (null != budget.getExhausted()) {
+            // Devolve o caminho até o estado de menor estimativa
+            this.statistics.setExhausted(budget.getExhausted());
+            if (this.partial.isTracking()) {
+                result = AbstractSearchMethod.replay(board,
+                        this.path(searchDirectory, layout, this.partial.getPosition(), bestDepth));
+            }
+        }
+        this.statistics.finish(found, found ? depth : -1);
+        SearchMetrics.publish(this.statistics);
+        return result;
+    }
+
+    /**
+     * Ordena os sucessores acumulados, descartando os repetidos, e os grava
+     * em um arquivo parcial.
+     * @param searchDirectory Subdiretório dos arquivos do tabuleiro inicial.
+     * @param index           Número do arquivo parcial.
+     * @param count           Quantidade de sucessores acumulados.
+     * @return o caminho do arquivo parcial.
+     * @throws IOException Erro na gravação do arquivo.
+     */
+    private Path writeRun(Path searchDirectory, int index, int count) throws IOException {
+        Arrays.sort(this.run, 0, count);
+        Path path = runFile(searchDirectory, index);
+        try (LayerWriter writer = new LayerWriter(path)) {
+            for (int i = 0; i < count; i++) {
+                if (i == 0 || this.run[i] != this.run[i - 1]) {
+                    writer.write(this.run[i]);
+                }
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Intercala os arquivos parciais em um novo nível, descartando os estados
+     * repetidos e os presentes no nível atual e no anterior.
+     * @param runs     Arquivos parciais ordenados.
+     * @param current  Arquivo do nível atual.
+     * @param previous Arquivo do nível anterior, nulo no primeiro nível.
+     * @param target   Arquivo do novo nível.
+     * @param goal     Resultado esperado.
+     * @return a quantidade de estados do novo nível, negativa se o resultado
+     *         esperado estiver entre eles.
+     * @throws IOException Erro na leitura ou gravação dos arquivos.
+     */
+    private static long merge(List<Path> runs, Path current, Path previous, Path target, long goal)
+            throws IOException {
+        PriorityQueue<LayerReader> queue = new PriorityQueue<>(Math.max(1, runs.size()),
+                Comparator.comparingLong(LayerReader::peek));
+        List<LayerReader> readers = new ArrayList<>();
+        boolean found = false;
+        try (LayerWriter writer = new LayerWriter(target);
+                LayerReader currentReader = new LayerReader(current);
+                LayerReader previousReader = null == previous ? null : new LayerReader(previous)) {
+            for (Path path : runs) {
+                LayerReader reader = new LayerReader(path);
+                readers.add(reader);
+                if (reader.hasNext()) {
+                    queue.add(reader);
+                }
+            }
+            long last = 0L;
+            boolean first = true;
+            while (!queue.isEmpty()) {
+                LayerReader reader = queue.poll();
+                long state = reader.next();
+                if (reader.hasNext()) {
+                    queue.add(reader);
+                }
+                // Descarta repetidos entre os arquivos parciais
+                if (!first && state == last) {
+                    continue;
+                }
+                first = false;
+                last = state;
+                // Descarta os estados já alcançados nos dois últimos níveis
+                if (currentReader.skipTo(state) || (null != previousReader && previousReader.skipTo(state))) {
+                    continue;
+                }
+                writer.write(state);
+                found |= state == goal;
+            }
+            return found ? -writer.getCount() : writer.getCount();
+        } finally {
+            for (LayerReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Refaz os movimentos do tabuleiro inicial até um estado, procurando em
+     * cada nível um vizinho no nível anterior.
+     * @param searchDirectory Subdiretório dos arquivos do tabuleiro inicial.
+     * @param layout          Dimensões do tabuleiro.
+     * @param state           Estado final do caminho.
+     * @param depth           Nível do estado final.
+     * @return os movimentos na ordem de execução.
+     * @throws IOException Erro na leitura dos arquivos.
+     */
+    private BoardGameMoveEnum[] path(Path searchDirectory, BoardLayout layout, long state, int depth)
+            throws IOException {
+        BoardGameMoveEnum[] result = new BoardGameMoveEnum[depth];
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        long current = state;
+        for (int level = depth; level > 0; level--) {
+            int blank = layout.findBlank(current);
+            BoardGameMoveEnum step = null;
+            long parent = 0L;
+            // O arquivo do nível anterior é aberto uma vez para todos os vizinhos
+            try (FileChannel layer = FileChannel.open(layerFile(searchDirectory, level - 1),
+                    StandardOpenOption.READ)) {
+                for (BoardGameMoveEnum movement : AbstractSearchMethod.MOVEMENTS) {
+                    int target = layout.target(blank, movement);
+                    if (target >= 0) {
+                        parent = BoardState.move(current, blank, target);
+                        if (contains(layer, buffer, parent)) {
+                            step = movement;
+                            break;
+                        }
+                    }
+                }
+            }
+            if (null == step) {
+                throw new IOException("Nível " + (level - 1) + " inconsistente em " + searchDirectory);
+            }
+            // O movimento do pai até o estado desfaz o movimento encontrado
+            result[level - 1] = step.getOpposite();
+            current = parent;
+        }
+        return result;
+    }
+
+    /**
+     * Verifica se um estado está em um nível, por busca binária no arquivo.
+     * @param layer Arquivo do nível.
+     * @param state Estado procurado.
+     * @return Indicador de estado presente no nível.
+     * @throws IOException Erro na leitura do arquivo.
+     */
+    private static boolean contains(Path layer, long state) throws IOException {
+        try (FileChannel channel = FileChannel.open(layer, StandardOpenOption.READ)) {
+            return contains(channel, ByteBuffer.allocate(Long.BYTES), state);
+        }
+    }
+
+    /**
+     * Verifica se um estado está em um nível já aberto, por busca binária no
+     * arquivo.
+     * @param layer  Arquivo do nível, aberto para leitura.
+     * @param buffer Bloco de leitura de um estado.
+     * @param state  Estado procurado.
+     * @return Indicador de estado presente no nível.
+     * @throws IOException Erro na leitura do arquivo.
+     */
+    private static boolean contains(FileChannel layer, ByteBuffer buffer, long state) throws IOException {
+        long low = 0L;
+        long high = layer.size() / Long.BYTES - 1L;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                if (layer.read(buffer, middle * Long.BYTES + buffer.position()) < 0) {
+                    throw new IOException("Fim inesperado do arquivo do nível");
+                }
+            }
+            long value = buffer.getLong(0);
+            if (value < state) {
+                low = middle + 1L;
+            } else if (value > state) {
+                high = middle - 1L;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Carrega o ponto da busca do arquivo de progresso. Arquivos de outro
+     * tabuleiro, de níveis incompletos e arquivos parciais não registrados
+     * são descartados.
+     * @param searchDirectory Subdiretório dos arquivos do tabuleiro inicial.
+     * @param layout          Dimensões e resultado esperado do tabuleiro.
+     * @param start           Estado inicial.
+     * @return o ponto da busca, ou nulo se não houver progresso válido.
+     * @throws IOException Erro na leitura ou remoção dos arquivos.
+     */
+    private Progress loadProgress(Path searchDirectory, BoardLayout layout, long start) throws IOException {
+        Path file = searchDirectory.resolve(PROGRESS_FILE);
+        Progress progress = null;
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+                if (in.readInt() == MAGIC && in.readInt() == VERSION && in.readInt() == layout.getWidth()
+                        && in.readInt() == layout.getHeight() && in.readLong() == layout.getGoal()
+                        && in.readLong() == start) {
+                    progress = new Progress(in.readInt(), in.readLong(), in.readInt());
+                }
+            }
+        }
+        // Mantém apenas os arquivos registrados no progresso
+        Set<Path> kept = new HashSet<>();
+        kept.add(file);
+        kept.add(searchDirectory.resolve(LOCK_FILE));
+        if (null != progress) {
+            for (int i = 0; i <= progress.depth; i++) {
+                kept.add(layerFile(searchDirectory, i));
+            }
+            for (int i = 0; i < progress.runs; i++) {
+                kept.add(runFile(searchDirectory, i));
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(searchDirectory)) {
+            for (Path path : files) {
+                if (!kept.contains(path)) {
+                    Files.delete(path);
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Grava o ponto da busca no arquivo de progresso. O arquivo é escrito em
+     * um temporário e movido ao final, para que uma queda durante a gravação
+     * mantenha o progresso anterior.
+     * @param searchDirectory Subdiretório dos arquivos do tabuleiro inicial.
+     * @param layout          Dimensões e resultado esperado do tabuleiro.
+     * @param start           Estado inicial.
+     * @param progress        Ponto da busca.
+     * @throws IOException Erro na gravação do arquivo.
+     */
+    private void saveProgress(Path searchDirectory, BoardLayout layout, long start, Progress progress)
+            throws IOException {
+        Path file = searchDirectory.resolve(PROGRESS_FILE);
+        Path temporary = searchDirectory.resolve(PROGRESS_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temporary))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(layout.getWidth());
+            out.writeInt(layout.getHeight());
+            out.writeLong(layout.getGoal());
+            out.writeLong(start);
+            out.writeInt(progress.depth);
+            out.writeLong(progress.position);
+            out.writeInt(progress.runs);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Remove os arquivos de níveis e de progresso do subdiretório.
+     * @param searchDirectory Subdiretório dos arquivos do tabuleiro inicial.
+     * @throws IOException Erro na remoção dos arquivos.
+     */
+    private void deleteFiles(Path searchDirectory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(searchDirectory)) {
+            for (Path path : files) {
+                if (!path.getFileName().toString().equals(LOCK_FILE)) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retorna o caminho do arquivo de um nível.
+     * @param searchDirectory Subdiretório dos arquivos do tabuleiro inicial.
+     * @param depth           Nível.
+     * @return o caminho do arquivo do nível.
+     */
+    private static Path layerFile(Path searchDirectory, int depth) {
+        return searchDirectory.resolve(String.format("layer-%03d.bin", depth));
+    }
+
+    /**
+     * Retorna o caminho de um arquivo parcial do nível em expansão.
+     * @param searchDirectory Subdiretório dos arquivos do tabuleiro inicial.
+     * @param index           Número do arquivo parcial.
+     * @return o caminho do arquivo parcial.
+     */
+    private static Path runFile(Path searchDirectory, int index) {
+        return searchDirectory.resolve(String.format("run-%05d.bin", index));
+    }
+
+    @Override
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Retorna o diretório dos arquivos das buscas.
+     * @return o diretório dos arquivos das buscas.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Retorna a quantidade de sucessores mantidos em memória antes de gravar
+     * um arquivo parcial.
+     * @return o tamanho do vetor de sucessores, em estados.
+     */
+    public int getRunCapacity() {
+        return runCapacity;
+    }
+
+    /**
+     * Ponto da busca gravado no arquivo de progresso.
+     */
+    private static final class Progress {
+
+        /** Último nível concluído, que está em expansão. */
+        private final int depth;
+        /** Quantidade de estados do nível já expandidos nos arquivos parciais. */
+        private final long position;
+        /** Quantidade de arquivos parciais gravados do nível. */
+        private final int runs;
+
+        Progress(int depth, long position, int runs) {
+            this.depth = depth;
+            this.position = position;
+            this.runs = runs;
+        }
+
+    }
+
+    /**
+     * Gravação sequencial de estados em arquivo por blocos.
+     */
+    private static final class LayerWriter implements AutoCloseable {
+
+        /** Canal do arquivo. */
+        private final FileChannel channel;
+        /** Bloco de gravação. */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_BYTES);
+        /** Quantidade de estados gravados. */
+        private long count;
+
+        LayerWriter(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void write(long state) throws IOException {
+            if (!this.buffer.hasRemaining()) {
+                this.flush();
+            }
+            this.buffer.putLong(state);
+            this.count++;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        private void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                this.flush();
+                // O nível precisa estar em disco antes do registro no progresso
+                this.channel.force(false);
+            } finally {
+                this.channel.close();
+            }
+        }
+
+    }
+
+    /**
+     * Leitura sequencial de estados de um arquivo por blocos.
+     */
+    private static final class LayerReader implements AutoCloseable {
+
+        /** Canal do arquivo. */
+        private final FileChannel channel;
+        /** Bloco de leitura. */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_BYTES);
+        /** Próximo estado, válido quando {@link #available} for verdadeiro. */
+        private long next;
+        /** Indicador de próximo estado disponível. */
+        private boolean available;
+
+        LayerReader(Path path) throws IOException {
+            this(path, 0L);
+        }
+
+        LayerReader(Path path, long first) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.channel.position(first * Long.BYTES);
+            this.buffer.flip();
+            this.advance();
+        }
+
+        boolean hasNext() {
+            return available;
+        }
+
+        long peek() {
+            return next;
+        }
+
+        long next() throws IOException {
+            long result = this.next;
+            this.advance();
+            return result;
+        }
+
+        /**
+         * Avança até o primeiro estado maior ou igual ao informado.
+         * @param state Estado procurado.
+         * @return Indicador de estado encontrado.
+         */
+        boolean skipTo(long state) throws IOException {
+            while (this.available && this.next < state) {
+                this.advance();
+            }
+            return this.available && this.next == state;
+        }
+
+        private void advance() throws IOException {
+            if (this.buffer.remaining() < Long.BYTES) {
+                this.buffer.compact();
+                while (this.buffer.position() < Long.BYTES && this.channel.read(this.buffer) >= 0) {
+                    // Continua lendo até completar um estado ou chegar ao fim
+                }
+                this.buffer.flip();
+            }
+            this.available = this.buffer.remaining() >= Long.BYTES;
+            if (this.available) {
+                this.next = this.buffer.getLong();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+
+    }
+
+}
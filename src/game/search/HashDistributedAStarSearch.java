@@ -0,0 +1,575 @@
+package game.search;
+
+import game.Board;
+import game.BoardGameMoveEnum;
+import game.BoardLayout;
+import game.BoardState;
+import game.heuristic.IHeuristic;
+import game.heuristic.ManhattanHeuristic;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Classe para busca pelo método A* distribuído por espalhamento (HDA*).
+ * <p>
+ * Cada thread é dona dos estados cujo código de espalhamento cai na sua
+ * parte e mantém a sua própria lista aberta, sobre uma {@link NodeArena}, e o
+ * seu próprio mapa de estados alcançados. Os estados gerados são enviados à
+ * thread dona como mensagens de dois inteiros longos, o estado e
+ * {@code (g << 8 | movimento) << 32 | h}, em anéis de capacidade fixa com um
+ * único produtor e um único consumidor para cada par de threads, sem objetos
+ * por estado. Ao encontrar uma resposta a busca continua até que nenhuma thread
+ * tenha estados de custo menor e não haja estados em trânsito, o que mantém o
+ * caminho encontrado ótimo.
+ * <p>
+ * As threads são criadas a cada busca e encerradas ao seu término, de forma
+ * que uma instância sem busca em andamento não mantém threads. Threads sem
+ * trabalho ficam paradas até receberem um estado ou a busca terminar. As
+ * arenas, listas e anéis são mantidos entre as buscas.
+ */
+public class HashDistributedAStarSearch implements ISearchMethod {
+
+    /** Movimentos indexados pelo ordinal. */
+    private static final BoardGameMoveEnum[] MOVES = BoardGameMoveEnum.values();
+    /** Máscara da quantidade de expansões de uma thread entre verificações do orçamento. */
+    private static final long BUDGET_CHECK_MASK = 0xFFL;
+    /**
+     * Tempo máximo, em nanossegundos, que uma thread sem trabalho fica parada
+     * antes de verificar de novo o término da busca.
+     */
+    private static final long IDLE_PARK_NANOS = 100_000L;
+    /** Quantidade de mensagens de cada anel, potência de 2. */
+    private static final int RING_CAPACITY = 1 << 10;
+    /** Máscara da posição de uma mensagem no anel. */
+    private static final int RING_MASK = RING_CAPACITY - 1;
+
+    /** Estimativa de movimentos restantes. */
+    private final IHeuristic heuristic;
+    /** Quantidade de threads. */
+    private final int parallelism;
+    /** Profundidade máxima da busca, 0 para usar o padrão das dimensões do tabuleiro. */
+    private final int maxDepth;
+    /** Menor custo de resposta encontrado. */
+    private final AtomicInteger incumbent = new AtomicInteger();
+    /** Quantidade de estados enviados e ainda não recebidos. */
+    private final AtomicLong inFlight = new AtomicLong();
+    /** Contador de retomadas de trabalho, usado na detecção de término. */
+    private final AtomicLong epoch = new AtomicLong();
+    /** Quantidade de estados gerados. */
+    private final LongAdder generated = new LongAdder();
+    /** Quantidade de estados expandidos. */
+    private final LongAdder expanded = new LongAdder();
+    /** Quantidade de estados descartados por já terem sido alcançados com custo menor. */
+    private final LongAdder duplicates = new LongAdder();
+    /** Estatísticas da última busca. */
+    private SearchStatistics statistics;
+    /** Limites da busca atual. */
+    private SearchBudget budget;
+    /** Dimensões e resultado esperado do tabuleiro da busca atual. */
+    private BoardLayout layout;
+    /** Profundidade máxima da busca atual. */
+    private int depthLimit;
+    /** Threads de trabalho da busca atual. */
+    private Worker[] workers;
+    /** Indicador de término da busca. */
+    private volatile boolean terminated;
+
+    /**
+     * Classe para busca pelo método HDA* com a distância de Manhattan, usando
+     * todos os processadores.
+     */
+    public HashDistributedAStarSearch() {
+        this(new ManhattanHeuristic(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Classe para busca pelo método HDA*.
+     * @param heuristic   Estimativa de movimentos restantes.
+     * @param parallelism Quantidade de threads.
+     */
+    public HashDistributedAStarSearch(IHeuristic heuristic, int parallelism) {
+        this(heuristic, parallelism, 0);
+    }
+
+    /**
+     * Classe para busca pelo método HDA*.
+     * @param heuristic   Estimativa de movimentos restantes.
+     * @param parallelism Quantidade de threads.
+     * @param maxDepth    Profundidade máxima da busca, 0 para usar o padrão
+     *                    das dimensões do tabuleiro.
+     */
+    public HashDistributedAStarSearch(IHeuristic heuristic, int parallelism, int maxDepth) {
+        this.heuristic = heuristic;
+        this.parallelism = parallelism;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public Map<Integer, Board> executeSearch(Board board, SearchBudget budget) {
+        // A estimativa precisa ter sido montada para o mesmo tabuleiro
+        AbstractSearchMethod.checkLayout(this.heuristic, board);
+        this.statistics = new SearchStatistics(this.getClass().getSimpleName());
+        this.budget = budget;
+        budget.start();
+        // Tabuleiros sem solução são descartados sem busca
+        if (!board.isSolvable()) {
+            this.statistics.finish(false, -1);
+            SearchMetrics.publish(this.statistics);
+            return new HashMap<>();
+        }
+        this.layout = board.getLayout();
+        this.depthLimit = this.maxDepth > 0 ? this.maxDepth : AbstractSearchMethod.getMaxHeight(this.layout);
+        // Reaproveita as estruturas da busca anterior
+        if (null == this.workers) {
+            this.workers = new Worker[this.parallelism];
+            for (int i = 0; i < this.parallelism; i++) {
+                this.workers[i] = new Worker(i);
+            }
+        }
+        for (Worker worker : this.workers) {
+            worker.reset();
+        }
+        this.incumbent.set(Integer.MAX_VALUE);
+        this.inFlight.set(0L);
+        this.generated.reset();
+        this.generated.increment();
+        this.expanded.reset();
+        this.duplicates.reset();
+        this.terminated = false;
+        // Entrega o tabuleiro inicial à sua thread dona
+        long start = board.getState();
+        this.ownerOf(start).receive(start, BoardGameMoveEnum.UNKNOWN.ordinal(), this.heuristic.estimate(start));
+        this.statistics.startSearch();
+        List<Future<Void>> futures = new ArrayList<>();
+        // Um orçamento já cancelado não inicia as threads
+        if (!budget.isExhausted(0L, 1L)) {
+            ExecutorService executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "hda-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                for (Worker worker : this.workers) {
+                    futures.add(executor.submit(worker));
+                }
+                for (Future<Void> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                this.terminate();
+            } catch (ExecutionException ex) {
+                this.terminate();
+                throw new IllegalStateException(ex.getCause());
+            } finally {
+                // As threads terminam assim que percebem o fim da busca
+                executor.shutdown();
+            }
+        }
+        this.statistics.startPath();
+        boolean answerFound = this.incumbent.get() != Integer.MAX_VALUE;
+        // Uma resposta encontrada antes do orçamento se esgotar pode não ser a menor
+        this.statistics.setExhausted(budget.getExhausted());
+        Map<Integer, Board> result = new HashMap<>();
+        if (answerFound) {
+            result = AbstractSearchMethod.replay(board, this.path(start, this.layout.getGoal()));
+        } else if (null != budget.getExhausted()) {
+            // Devolve o caminho até o estado de menor estimativa entre as threads
+            PartialResult partial = new PartialResult();
+            partial.reset(this.heuristic, start);
+            for (Worker worker : this.workers) {
+                partial.merge(worker.partial);
+            }
+            result = AbstractSearchMethod.replay(board, this.path(start, partial.getPosition()));
+        }
+        // Informa as estatísticas da operação; os picos das threads são somados
+        long peakOpen = 0L;
+        long closed = 0L;
+        for (Worker worker : this.workers) {
+            peakOpen += worker.peakOpen;
+            closed += worker.closed.size();
+        }
+        this.statistics.addGenerated(this.generated.sum());
+        this.statistics.addExpanded(this.expanded.sum());
+        this.statistics.addDuplicates(this.duplicates.sum());
+        this.statistics.updateOpen(peakOpen);
+        this.statistics.updateClosed(closed);
+        this.statistics.finish(answerFound, this.incumbent.get());
+        SearchMetrics.publish(this.statistics);
+        return result;
+    }
+
+    /**
+     * Refaz o caminho de um estado alcançado até o estado inicial, consultando
+     * o movimento registrado pela thread dona de cada estado.
+     * @param start Estado inicial.
+     * @param end   Estado alcançado.
+     * @return os movimentos na ordem de execução.
+     */
+    private BoardGameMoveEnum[] path(long start, long end) {
+        BoardGameMoveEnum[] result = new BoardGameMoveEnum[this.ownerOf(end).closed.get(end, 0) >>> 8];
+        int length = 0;
+        long state = end;
+        while (state != start) {
+            BoardGameMoveEnum movement = MOVES[this.ownerOf(state).closed.get(state, 0) & 0xFF];
+            result[length++] = movement;
+            // O branco volta para a casa anterior ao movimento
+            int blank = this.layout.findBlank(state);
+            state = BoardState.move(state, blank, this.layout.target(blank, movement.getOpposite()));
+        }
+        // Inverte os movimentos para a ordem de execução
+        for (int i = 0; i < length / 2; i++) {
+            BoardGameMoveEnum swap = result[i];
+            result[i] = result[length - 1 - i];
+            result[length - 1 - i] = swap;
+        }
+        // Caminhos melhorados depois do registro podem ser mais curtos
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Retorna a thread dona de um estado.
+     * @param state Estado compactado.
+     * @return a thread dona do estado.
+     */
+    private Worker ownerOf(long state) {
+        return this.workers[(LongIntHashMap.hash(state) & Integer.MAX_VALUE) % this.workers.length];
+    }
+
+    /**
+     * Verifica se todas as threads estão paradas e não há estados em trânsito.
+     * O contador de retomadas garante que nenhuma thread voltou a trabalhar
+     * durante a verificação.
+     */
+    private void checkTermination() {
+        long before = this.epoch.get();
+        for (Worker worker : this.workers) {
+            if (!worker.idle) {
+                return;
+            }
+        }
+        if (this.inFlight.get() == 0L && this.epoch.get() == before) {
+            this.terminate();
+        }
+    }
+
+    /**
+     * Encerra a busca, acordando as threads paradas.
+     */
+    private void terminate() {
+        this.terminated = true;
+        for (Worker worker : this.workers) {
+            LockSupport.unpark(worker.thread);
+        }
+    }
+
+    @Override
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Retorna a estimativa de movimentos restantes.
+     * @return a estimativa de movimentos restantes.
+     */
+    public IHeuristic getHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * Retorna a quantidade de threads.
+     * @return a quantidade de threads.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Anel de mensagens de capacidade fixa entre duas threads, com um único
+     * produtor e um único consumidor. Cada mensagem ocupa duas posições do
+     * vetor: o estado e {@code (g << 8 | movimento) << 32 | h}.
+     */
+    private static final class MessageRing {
+
+        /** Mensagens do anel. */
+        private final long[] messages = new long[RING_CAPACITY << 1];
+        /** Quantidade de mensagens lidas, escrita apenas pelo consumidor. */
+        private volatile long head;
+        /** Quantidade de mensagens escritas, escrita apenas pelo produtor. */
+        private volatile long tail;
+
+        /**
+         * Escreve uma mensagem, pelo produtor.
+         * @param state Estado compactado.
+         * @param info  Custo, movimento e estimativa do estado.
+         * @return Indicador de mensagem escrita, falso com o anel cheio.
+         */
+        boolean offer(long state, long info) {
+            long position = this.tail;
+            if (position - this.head == RING_CAPACITY) {
+                return false;
+            }
+            int index = ((int) position & RING_MASK) << 1;
+            this.messages[index] = state;
+            this.messages[index + 1] = info;
+            // A escrita volátil publica a mensagem ao consumidor
+            this.tail = position + 1;
+            return true;
+        }
+
+        /**
+         * Verifica se o anel está vazio.
+         * @return Indicador de anel vazio.
+         */
+        boolean isEmpty() {
+            return this.head == this.tail;
+        }
+
+        /**
+         * Descarta as mensagens, sem threads em execução.
+         */
+        void clear() {
+            this.head = 0L;
+            this.tail = 0L;
+        }
+
+    }
+
+    /**
+     * Thread de trabalho, dona de uma parte dos estados.
+     */
+    private final class Worker implements Callable<Void> {
+
+        /** Posição da thread entre as threads de trabalho. */
+        private final int index;
+        /** Anéis de estados enviados por cada uma das threads, indexados pela remetente. */
+        private final MessageRing[] inboxes = new MessageRing[parallelism];
+        /** Estados da lista aberta. */
+        private final NodeArena arena = new NodeArena();
+        /** Lista aberta com os nós da arena, ordenada pelo custo f. */
+        private final IntBucketQueue openList = new IntBucketQueue();
+        /** Menor custo e movimento de cada estado alcançado, {@code g << 8 | movimento}. */
+        private final LongIntHashMap closed = new LongIntHashMap();
+        /** Indicador de thread sem trabalho. */
+        private volatile boolean idle;
+        /** Thread que executa o trabalho, nula antes do início. */
+        private volatile Thread thread;
+        /** Maior tamanho da lista aberta da thread. */
+        private int peakOpen;
+        /** Quantidade de estados expandidos pela thread. */
+        private long localExpanded;
+        /** Estado de menor estimativa expandido pela thread. */
+        private final PartialResult partial = new PartialResult();
+
+        Worker(int index) {
+            this.index = index;
+            for (int i = 0; i < this.inboxes.length; i++) {
+                this.inboxes[i] = new MessageRing();
+            }
+        }
+
+        /**
+         * Prepara a thread para uma nova busca, mantendo as estruturas alocadas.
+         */
+        void reset() {
+            for (MessageRing inbox : this.inboxes) {
+                inbox.clear();
+            }
+            this.arena.clear();
+            this.openList.clear();
+            this.closed.clear();
+            this.idle = false;
+            this.thread = null;
+            this.peakOpen = 0;
+            this.localExpanded = 0L;
+            this.partial.reset(heuristic, 0L);
+        }
+
+        @Override
+        public Void call() {
+            this.thread = Thread.currentThread();
+            while (!terminated) {
+                // Recebe os estados enviados pelas outras threads
+                boolean worked = this.receiveAll();
+                if (!this.openList.isEmpty() && this.openList.peekPriority() < incumbent.get()) {
+                    this.resume();
+                    this.expand(this.openList.poll());
+                } else if (!worked) {
+                    this.idle = true;
+                    checkTermination();
+                    // Quem envia um estado vê a thread parada e a acorda; o
+                    // tempo máximo cobre o término e o orçamento
+                    if (!terminated && this.isInboxEmpty()) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Marca a thread como em trabalho.
+         */
+        private void resume() {
+            if (this.idle) {
+                this.idle = false;
+                epoch.incrementAndGet();
+            }
+        }
+
+        /**
+         * Recebe os estados de todos os anéis da thread.
+         * @return Indicador de estado recebido.
+         */
+        private boolean receiveAll() {
+            boolean received = false;
+            for (MessageRing inbox : this.inboxes) {
+                long start = inbox.head;
+                long end = inbox.tail;
+                if (start == end) {
+                    continue;
+                }
+                this.resume();
+                for (long position = start; position < end; position++) {
+                    int index = ((int) position & RING_MASK) << 1;
+                    long info = inbox.messages[index + 1];
+                    this.receive(inbox.messages[index], (int) (info >>> 32), (int) info);
+                }
+                // Libera as posições lidas ao produtor
+                inbox.head = end;
+                inFlight.addAndGet(start - end);
+                received = true;
+            }
+            return received;
+        }
+
+        /**
+         * Verifica se todos os anéis da thread estão vazios.
+         * @return Indicador de anéis vazios.
+         */
+        private boolean isInboxEmpty() {
+            for (MessageRing inbox : this.inboxes) {
+                if (!inbox.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Recebe um estado, descartando-o se já foi alcançado com custo menor.
+         * @param state    Estado recebido.
+         * @param record   Custo e movimento do estado, {@code g << 8 | movimento}.
+         * @param estimate Estimativa de movimentos restantes.
+         */
+        private void receive(long state, int record, int estimate) {
+            int moves = record >>> 8;
+            int recorded = this.closed.get(state, -1);
+            if (recorded >= 0 && (recorded >>> 8) <= moves) {
+                duplicates.increment();
+                return;
+            }
+            this.closed.put(state, record);
+            int node = this.arena.add(state, moves, estimate, -1, MOVES[record & 0xFF]);
+            this.openList.add(moves + estimate, node);
+            this.peakOpen = Math.max(this.peakOpen, this.openList.size());
+        }
+
+        /**
+         * Envia um estado a outra thread, recebendo os próprios estados
+         * enquanto o anel de destino estiver cheio.
+         * @param owner Thread dona do estado.
+         * @param state Estado compactado.
+         * @param info  Custo, movimento e estimativa do estado.
+         */
+        private void send(Worker owner, long state, long info) {
+            inFlight.incrementAndGet();
+            MessageRing ring = owner.inboxes[this.index];
+            while (!ring.offer(state, info)) {
+                // A dona pode estar esperando por um anel desta thread
+                if (terminated) {
+                    return;
+                }
+                this.receiveAll();
+                LockSupport.unpark(owner.thread);
+                Thread.yield();
+            }
+            if (owner.idle) {
+                LockSupport.unpark(owner.thread);
+            }
+        }
+
+        /**
+         * Expande um estado, enviando os filhos às threads donas.
+         * @param node Nó da arena a ser expandido.
+         */
+        private void expand(int node) {
+            long state = this.arena.getState(node);
+            int moves = this.arena.getMoves(node);
+            int estimate = this.arena.getEstimate(node);
+            // Descarta cópias obsoletas
+            if ((this.closed.get(state, 0) >>> 8) < moves) {
+                duplicates.increment();
+                return;
+            }
+            if (state == layout.getGoal()) {
+                // Atualiza o menor custo de resposta
+                int best;
+                do {
+                    best = incumbent.get();
+                } while (moves < best && !incumbent.compareAndSet(best, moves));
+                return;
+            }
+            expanded.increment();
+            this.partial.offer(estimate, state);
+            // Verifica o orçamento a cada bloco de expansões da thread
+            if ((++this.localExpanded & BUDGET_CHECK_MASK) == 0L
+                    && budget.isExhausted(expanded.sum(), generated.sum() - duplicates.sum())) {
+                terminate();
+                return;
+            }
+            int blank = layout.findBlank(state);
+            // Movimentos válidos da casa do branco, com as casas alcançadas e as máscaras de troca
+            BoardGameMoveEnum[] movements = layout.moves(blank);
+            int[] targets = layout.targets(blank);
+            long[] deltas = layout.deltas(blank);
+            BoardGameMoveEnum undo = this.arena.getMove(node).getOpposite();
+            for (int i = 0; i < movements.length && moves < depthLimit; i++) {
+                BoardGameMoveEnum movement = movements[i];
+                if (movement == undo) {
+                    continue;
+                }
+                int target = targets[i];
+                int tile = BoardState.tileAt(state, target);
+                long child = BoardState.swap(state, target, deltas[i]);
+                int childEstimate = heuristic.update(state, estimate, child, tile, target, blank);
+                // Descarta filhos que não podem melhorar a resposta atual
+                if (moves + 1 + childEstimate >= incumbent.get()) {
+                    continue;
+                }
+                generated.increment();
+                int record = ((moves + 1) << 8) | movement.ordinal();
+                Worker owner = ownerOf(child);
+                if (owner == this) {
+                    this.receive(child, record, childEstimate);
+                } else {
+                    this.send(owner, child, ((long) record << 32) | childEstimate);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,22 @@
+package game.search;
+
+import game.Board;
+import java.util.Map;
+
+/**
+ * Observador das soluções intermediárias de uma busca incremental, como a
+ * {@link AnytimeRepairingAStarSearch}.
+ */
+public interface IImprovementListener {
+
+    /**
+     * Recebe uma solução melhor que as anteriores. É chamado pela thread que
+     * executa a busca, que só continua depois do retorno.
+     * @param solution       Sequência de tabuleiros da solução.
+     * @param suboptimality  Limite de subotimalidade: a solução tem no máximo
+     *                       este múltiplo da quantidade ótima de movimentos.
+     * @param elapsedNanos   Tempo desde o início da busca, em nanossegundos.
+     */
+    public void solutionImproved(Map<Integer, Board> solution, double suboptimality, long elapsedNanos);
+
+}
@@ -0,0 +1,15 @@
+package game.search;
+
+/**
+ * Observador das execuções de busca, registrado em {@link SearchMetrics}.
+ */
+public interface ISearchListener {
+
+    /**
+     * Recebe as estatísticas de uma busca concluída. Pode ser chamado ao
+     * mesmo tempo por várias threads quando há buscas simultâneas.
+     * @param statistics Estatísticas da busca.
+     */
+    public void searchFinished(SearchStatistics statistics);
+
+}
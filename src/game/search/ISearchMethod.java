@@ -9,6 +9,31 @@ import java.util.Map;
  */
 public interface ISearchMethod {
 
-    public Map<Integer, Board> executeSearch(Board board);
+    /**
+     * Executa a busca sem limites.
+     * @param board Tabuleiro inicial.
+     * @return Mapeamento da sequência de tabuleiros pela quantidade de movimentos.
+     */
+    public default Map<Integer, Board> executeSearch(Board board) {
+        return this.executeSearch(board, new SearchBudget());
+    }
+
+    /**
+     * Executa a busca respeitando os limites do orçamento. Quando um limite
+     * se esgota, retorna o caminho até o melhor tabuleiro alcançado, que não
+     * é o resultado esperado, ou vazio se a busca não acompanha o melhor
+     * tabuleiro; {@link SearchStatistics#isAnswerFound()} distingue os dois
+     * casos.
+     * @param board  Tabuleiro inicial.
+     * @param budget Limites da busca.
+     * @return Mapeamento da sequência de tabuleiros pela quantidade de movimentos.
+     */
+    public Map<Integer, Board> executeSearch(Board board, SearchBudget budget);
+
+    /**
+     * Retorna as estatísticas da última busca executada.
+     * @return as estatísticas da última busca, nulo se não houve busca.
+     */
+    public SearchStatistics getStatistics();
 
 }
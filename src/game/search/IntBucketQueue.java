@@ -0,0 +1,112 @@
+package game.search;
+
+import java.util.Arrays;
+
+/**
+ * Fila de prioridade por baldes de inteiros, usada para os índices dos nós da
+ * {@link NodeArena} com o custo {@code f = g + h} da busca A*.
+ * <p>
+ * Segue a mesma ordem da {@link BucketQueue}: dentro de um mesmo balde os
+ * itens saem na ordem inversa de inserção. Cada balde é um vetor de inteiros
+ * usado como pilha, sem objetos por item, e os vetores são mantidos entre as
+ * buscas.
+ */
+public class IntBucketQueue {
+
+    /** Capacidade inicial de cada balde. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Itens de cada balde, indexados pela prioridade. */
+    private int[][] buckets = new int[0][];
+    /** Quantidade de itens de cada balde. */
+    private int[] counts = new int[0];
+    /** Menor prioridade que pode conter itens. */
+    private int minPriority;
+    /** Quantidade de itens na fila. */
+    private int size;
+
+    /**
+     * Insere um item na fila.
+     * @param priority Prioridade do item, menor sai primeiro.
+     * @param item     Item a ser inserido.
+     */
+    public void add(int priority, int item) {
+        // Cria os baldes que ainda não existem até a prioridade informada
+        if (priority >= this.buckets.length) {
+            int length = this.buckets.length;
+            this.buckets = Arrays.copyOf(this.buckets, priority + 1);
+            this.counts = Arrays.copyOf(this.counts, priority + 1);
+            for (int i = length; i < this.buckets.length; i++) {
+                this.buckets[i] = new int[INITIAL_CAPACITY];
+            }
+        }
+        int[] bucket = this.buckets[priority];
+        int count = this.counts[priority];
+        if (count == bucket.length) {
+            bucket = Arrays.copyOf(bucket, count << 1);
+            this.buckets[priority] = bucket;
+        }
+        bucket[count] = item;
+        this.counts[priority] = count + 1;
+        if (priority < this.minPriority) {
+            this.minPriority = priority;
+        }
+        this.size++;
+    }
+
+    /**
+     * Remove o item de menor prioridade da fila.
+     * @return o item de menor prioridade, ou -1 se a fila estiver vazia.
+     */
+    public int poll() {
+        if (this.size == 0) {
+            return -1;
+        }
+        // Avança até o primeiro balde com itens
+        while (this.counts[this.minPriority] == 0) {
+            this.minPriority++;
+        }
+        this.size--;
+        return this.buckets[this.minPriority][--this.counts[this.minPriority]];
+    }
+
+    /**
+     * Retorna a menor prioridade presente na fila.
+     * @return a menor prioridade presente na fila, ou -1 se estiver vazia.
+     */
+    public int peekPriority() {
+        if (this.size == 0) {
+            return -1;
+        }
+        while (this.counts[this.minPriority] == 0) {
+            this.minPriority++;
+        }
+        return this.minPriority;
+    }
+
+    /**
+     * Verifica se a fila está vazia.
+     * @return Indicador de fila vazia.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Retorna a quantidade de itens na fila.
+     * @return a quantidade de itens na fila.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove todos os itens da fila, mantendo os baldes alocados.
+     */
+    public void clear() {
+        Arrays.fill(this.counts, 0);
+        this.minPriority = 0;
+        this.size = 0;
+    }
+
+}
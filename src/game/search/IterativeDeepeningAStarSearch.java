@@ -0,0 +1,367 @@
+package game.search;
+
+import game.Board;
+import game.BoardGameMoveEnum;
+import game.BoardLayout;
+import game.BoardState;
+import game.heuristic.IHeuristic;
+import game.heuristic.ManhattanHeuristic;
+import game.heuristic.ZeroHeuristic;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classe para busca pelo método IDA* (A* por aprofundamento iterativo).
+ * <p>
+ * Executa buscas em profundidade sucessivas limitadas pelo custo
+ * {@code f = g + h}, aumentando o limite para o menor custo que o excedeu.
+ * Todas as expansões são feitas e desfeitas sobre um único estado
+ * compactado, sem criar tabuleiros, de forma que a memória usada é
+ * proporcional apenas à profundidade da solução. Sem conjunto de estados
+ * visitados, os caminhos repetidos são cortados pelo {@link MoveAutomaton},
+ * carregado em cada nó.
+ * <p>
+ * Nos tabuleiros com mais de 16 casas, como o 5x5, o estado largo de cada
+ * profundidade fica em um vetor pré-alocado no início da busca, e cada filho
+ * é copiado do pai antes do movimento, também sem criar objetos por nó. A
+ * estimativa precisa suportar o estado largo (ver {@link IHeuristic}).
+ * <p>
+ * Com a {@link ZeroHeuristic} o limite cresce um movimento por iteração e a
+ * busca é a busca em profundidade com aprofundamento iterativo (ver
+ * {@link DepthSearch}); o melhor estado alcançado é então estimado como nas
+ * buscas cegas.
+ */
+public class IterativeDeepeningAStarSearch implements ISearchMethod {
+
+    /** Indicador de resposta encontrada no retorno da busca em profundidade. */
+    private static final int FOUND = -1;
+    /** Indicador de orçamento esgotado no retorno da busca em profundidade. */
+    private static final int EXHAUSTED = -2;
+    /** Máscara da quantidade de expansões entre verificações do orçamento. */
+    private static final long BUDGET_CHECK_MASK = 0xFFL;
+
+    /** Estimativa de movimentos restantes. */
+    private final IHeuristic heuristic;
+    /** Profundidade máxima da busca, 0 para usar o padrão das dimensões do tabuleiro. */
+    private final int maxDepth;
+    /** Autômato de descarte das sequências de movimentos duplicadas. */
+    private final MoveAutomaton automaton;
+    /** Dimensões e resultado esperado do tabuleiro da busca atual. */
+    private BoardLayout layout;
+    /** Estado atual da busca. */
+    private long state;
+    /** Estado largo de cada profundidade do caminho atual, nos tabuleiros com mais de 16 casas. */
+    private long[][] wideStates = new long[0][];
+    /** Índice do quadrado branco no estado atual. */
+    private int blank;
+    /** Movimentos executados desde o tabuleiro inicial. */
+    private BoardGameMoveEnum[] path = new BoardGameMoveEnum[0];
+    /** Quantidade de estados gerados. */
+    private long generated;
+    /** Quantidade de estados expandidos. */
+    private long expanded;
+    /** Maior profundidade alcançada, que é o maior tamanho da pilha de recursão. */
+    private int deepest;
+    /** Estatísticas da última busca. */
+    private SearchStatistics statistics;
+    /** Limites da busca atual. */
+    private SearchBudget budget;
+    /** Profundidade de menor estimativa alcançada na busca atual. */
+    private final PartialResult partial = new PartialResult();
+    /**
+     * Estimativa do melhor estado alcançado quando diferente da estimativa
+     * da busca, nula quando são a mesma ou quando não há registro.
+     */
+    private IHeuristic partialHeuristic;
+    /** Movimentos até o estado de menor estimativa alcançado. */
+    private BoardGameMoveEnum[] bestPath = new BoardGameMoveEnum[0];
+
+    /**
+     * Classe para busca pelo método IDA* com a distância de Manhattan.
+     */
+    public IterativeDeepeningAStarSearch() {
+        this(new ManhattanHeuristic());
+    }
+
+    /**
+     * Classe para busca pelo método IDA*.
+     * @param heuristic Estimativa de movimentos restantes.
+     */
+    public IterativeDeepeningAStarSearch(IHeuristic heuristic) {
+        this(heuristic, 0);
+    }
+
+    /**
+     * Classe para busca pelo método IDA*.
+     * @param heuristic Estimativa de movimentos restantes.
+     * @param maxDepth  Profundidade máxima da busca, 0 para usar o padrão das
+     *                  dimensões do tabuleiro.
+     */
+    public IterativeDeepeningAStarSearch(IHeuristic heuristic, int maxDepth) {
+        this(heuristic, maxDepth, MoveAutomaton.getDefault());
+    }
+
+    /**
+     * Classe para busca pelo método IDA*.
+     * @param heuristic Estimativa de movimentos restantes.
+     * @param maxDepth  Profundidade máxima da busca, 0 para usar o padrão das
+     *                  dimensões do tabuleiro.
+     * @param automaton Autômato de descarte das sequências de movimentos duplicadas.
+     */
+    public IterativeDeepeningAStarSearch(IHeuristic heuristic, int maxDepth, MoveAutomaton automaton) {
+        this.heuristic = heuristic;
+        this.maxDepth = maxDepth;
+        this.automaton = automaton;
+    }
+
+    @Override
+    public Map<Integer, Board> executeSearch(Board board, SearchBudget budget) {
+        // A estimativa precisa ter sido montada para o mesmo tabuleiro
+        AbstractSearchMethod.checkLayout(this.heuristic, board);
+        this.statistics = new SearchStatistics(this.getClass().getSimpleName());
+        this.budget = budget;
+        budget.start();
+        // Tabuleiros sem solução são descartados sem busca
+        if (!board.isSolvable()) {
+            this.statistics.finish(false, -1);
+            SearchMetrics.publish(this.statistics);
+            return new HashMap<>();
+        }
+        this.layout = board.getLayout();
+        int limit = this.maxDepth > 0 ? this.maxDepth : AbstractSearchMethod.getMaxHeight(this.layout);
+        boolean wide = !this.layout.isCompact();
+        if (wide) {
+            // Reserva o estado largo de cada profundidade até o limite
+            long[] start = board.getWideState();
+            if (this.wideStates.length < limit + 1 || this.wideStates[0].length != start.length) {
+                this.wideStates = new long[limit + 1][start.length];
+            }
+            System.arraycopy(start, 0, this.wideStates[0], 0, start.length);
+        } else {
+            this.state = board.getState();
+        }
+        this.blank = board.getBlankIndex();
+        this.generated = 1L;
+        this.expanded = 0L;
+        this.deepest = 0;
+        int estimate = wide ? this.heuristic.estimate(this.wideStates[0]) : this.heuristic.estimate(this.state);
+        int bound = estimate;
+        int depth = -1;
+        if (this.heuristic instanceof ZeroHeuristic) {
+            this.partial.resetBlind(this.layout, budget, 0L);
+        } else {
+            this.partial.reset(this.heuristic, 0L);
+        }
+        this.partialHeuristic = this.partial.getHeuristic() == this.heuristic ? null : this.partial.getHeuristic();
+        int partialEstimate = null == this.partialHeuristic ? estimate : wide
+                ? this.partialHeuristic.estimate(this.wideStates[0]) : this.partialHeuristic.estimate(this.state);
+        this.bestPath = new BoardGameMoveEnum[0];
+        this.statistics.startSearch();
+        // Aumenta o limite até encontrar a resposta ou ultrapassar a profundidade máxima
+        while (depth < 0 && bound <= limit && !budget.isExhausted(this.expanded, 1L)) {
+            if (this.path.length < bound + 1) {
+                this.path = new BoardGameMoveEnum[bound + 1];
+            }
+            int next = wide ? this.searchWide(0, estimate, partialEstimate, bound, MoveAutomaton.START)
+                    : this.search(0, estimate, partialEstimate, bound, MoveAutomaton.START);
+            if (next == FOUND) {
+                depth = bound;
+            } else if (next == EXHAUSTED) {
+                break;
+            } else {
+                bound = next;
+            }
+        }
+        this.statistics.startPath();
+        Map<Integer, Board> result = new HashMap<>();
+        if (depth >= 0) {
+            // Refaz os movimentos do caminho a partir do tabuleiro inicial
+            result = AbstractSearchMethod.replay(board, Arrays.copyOf(this.path, depth));
+        } else if (null != budget.getExhausted()) {
+            // Devolve o caminho até o estado de menor estimativa
+            this.statistics.setExhausted(budget.getExhausted());
+            result = AbstractSearchMethod.replay(board, this.bestPath);
+        }
+        // Informa as estatísticas da operação
+        this.statistics.addGenerated(this.generated);
+        this.statistics.addExpanded(this.expanded);
+        this.statistics.updateOpen(this.deepest + 1);
+        this.statistics.finish(depth >= 0, depth);
+        SearchMetrics.publish(this.statistics);
+        return result;
+    }
+
+    /**
+     * Busca em profundidade limitada pelo custo, a partir do estado atual.
+     * @param moves           Quantidade de movimentos até o estado atual.
+     * @param estimate        Estimativa do estado atual.
+     * @param partialEstimate Estimativa do estado atual usada no registro do
+     *                        melhor estado alcançado.
+     * @param bound           Limite de custo da iteração.
+     * @param pruning         Estado do autômato de descarte após os movimentos executados.
+     * @return {@link #FOUND} se encontrou a resposta, {@link #EXHAUSTED} se o
+     *         orçamento se esgotou, senão o menor custo que excedeu o limite.
+     */
+    private int search(int moves, int estimate, int partialEstimate, int bound, int pruning) {
+        int cost = moves + estimate;
+        if (cost > bound) {
+            return cost;
+        }
+        if (this.state == this.layout.getGoal()) {
+            // Marca o fim do caminho encontrado
+            return FOUND;
+        }
+        // No limite a estimativa é nula e todos os filhos o excedem, sem precisar gerá-los
+        if (moves == bound) {
+            return bound + 1;
+        }
+        if (this.expand(moves, partialEstimate)) {
+            return EXHAUSTED;
+        }
+        int min = Integer.MAX_VALUE;
+        // Movimentos válidos da casa do branco, com as casas alcançadas e as máscaras de troca
+        BoardGameMoveEnum[] movements = this.layout.moves(this.blank);
+        int[] targets = this.layout.targets(this.blank);
+        long[] deltas = this.layout.deltas(this.blank);
+        for (int i = 0; i < movements.length; i++) {
+            BoardGameMoveEnum movement = movements[i];
+            // Descarta o movimento que completa uma sequência duplicada
+            int next = this.automaton.next(pruning, movement);
+            if (next == MoveAutomaton.PRUNED) {
+                continue;
+            }
+            int target = targets[i];
+            int oldBlank = this.blank;
+            long oldState = this.state;
+            int tile = BoardState.tileAt(oldState, target);
+            // Executa o movimento sobre o estado atual
+            this.state = BoardState.swap(oldState, target, deltas[i]);
+            this.blank = target;
+            this.generated++;
+            this.path[moves] = movement;
+            int childEstimate = this.heuristic.update(oldState, estimate, this.state, tile, target, oldBlank);
+            int childPartial = null == this.partialHeuristic ? childEstimate
+                    : this.partialHeuristic.update(oldState, partialEstimate, this.state, tile, target, oldBlank);
+            int result = this.search(moves + 1, childEstimate, childPartial, bound, next);
+            // Desfaz o movimento
+            this.state = oldState;
+            this.blank = oldBlank;
+            if (result == FOUND || result == EXHAUSTED) {
+                return result;
+            }
+            min = Math.min(min, result);
+        }
+        return min;
+    }
+
+    /**
+     * Busca em profundidade limitada pelo custo sobre o estado largo da
+     * profundidade atual, gerando cada filho no estado largo da profundidade
+     * seguinte (ver {@link #search(int, int, int, int, int)}).
+     * @param moves           Quantidade de movimentos até o estado atual.
+     * @param estimate        Estimativa do estado atual.
+     * @param partialEstimate Estimativa do estado atual usada no registro do
+     *                        melhor estado alcançado.
+     * @param bound           Limite de custo da iteração.
+     * @param pruning         Estado do autômato de descarte após os movimentos executados.
+     * @return {@link #FOUND} se encontrou a resposta, {@link #EXHAUSTED} se o
+     *         orçamento se esgotou, senão o menor custo que excedeu o limite.
+     */
+    private int searchWide(int moves, int estimate, int partialEstimate, int bound, int pruning) {
+        int cost = moves + estimate;
+        if (cost > bound) {
+            return cost;
+        }
+        long[] current = this.wideStates[moves];
+        if (this.layout.isGoal(current)) {
+            return FOUND;
+        }
+        if (moves == bound) {
+            return bound + 1;
+        }
+        if (this.expand(moves, partialEstimate)) {
+            return EXHAUSTED;
+        }
+        int min = Integer.MAX_VALUE;
+        long[] child = this.wideStates[moves + 1];
+        BoardGameMoveEnum[] movements = this.layout.moves(this.blank);
+        int[] targets = this.layout.targets(this.blank);
+        for (int i = 0; i < movements.length; i++) {
+            BoardGameMoveEnum movement = movements[i];
+            int next = this.automaton.next(pruning, movement);
+            if (next == MoveAutomaton.PRUNED) {
+                continue;
+            }
+            int target = targets[i];
+            int oldBlank = this.blank;
+            int tile = BoardState.tileAt(current, target);
+            // Executa o movimento sobre a cópia do estado atual
+            System.arraycopy(current, 0, child, 0, current.length);
+            BoardState.move(child, oldBlank, target);
+            this.blank = target;
+            this.generated++;
+            this.path[moves] = movement;
+            int childEstimate = this.heuristic.update(current, estimate, child, tile, target, oldBlank);
+            int childPartial = null == this.partialHeuristic ? childEstimate
+                    : this.partialHeuristic.update(current, partialEstimate, child, tile, target, oldBlank);
+            int result = this.searchWide(moves + 1, childEstimate, childPartial, bound, next);
+            this.blank = oldBlank;
+            if (result == FOUND || result == EXHAUSTED) {
+                return result;
+            }
+            min = Math.min(min, result);
+        }
+        return min;
+    }
+
+    /**
+     * Contabiliza a expansão do estado atual, registrando-o como candidato a
+     * melhor estado alcançado, e verifica o orçamento a cada bloco de
+     * expansões.
+     * @param moves           Quantidade de movimentos até o estado atual.
+     * @param partialEstimate Estimativa do estado atual usada no registro do
+     *                        melhor estado alcançado.
+     * @return Indicador de orçamento esgotado.
+     */
+    private boolean expand(int moves, int partialEstimate) {
+        this.expanded++;
+        if (moves > this.deepest) {
+            this.deepest = moves;
+        }
+        if (this.partial.isTracking() && this.partial.offer(partialEstimate, moves)) {
+            this.bestPath = Arrays.copyOf(this.path, moves);
+        }
+        return (this.expanded & BUDGET_CHECK_MASK) == 0L && this.budget.isExhausted(this.expanded, moves + 1);
+    }
+
+    @Override
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Retorna a estimativa de movimentos restantes.
+     * @return a estimativa de movimentos restantes.
+     */
+    public IHeuristic getHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * Retorna a profundidade máxima da busca.
+     * @return a profundidade máxima, 0 quando usa o padrão das dimensões do tabuleiro.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Retorna o autômato de descarte das sequências de movimentos duplicadas.
+     * @return o autômato de descarte.
+     */
+    public MoveAutomaton getAutomaton() {
+        return automaton;
+    }
+
+}
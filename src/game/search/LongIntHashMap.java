@@ -0,0 +1,133 @@
+package game.search;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de estados compactados para inteiros, sem objetos por entrada.
+ * <p>
+ * Usa endereçamento aberto com sondagem linear. A chave 0 é reservada para
+ * posições vazias, o que não limita o uso com estados, pois nenhum tabuleiro
+ * válido é compactado em 0.
+ */
+public class LongIntHashMap {
+
+    /** Capacidade inicial da tabela. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Chaves da tabela, 0 para posição vazia. */
+    private long[] keys = new long[INITIAL_CAPACITY];
+    /** Valores da tabela. */
+    private int[] values = new int[INITIAL_CAPACITY];
+    /** Quantidade de entradas. */
+    private int size;
+
+    /**
+     * Retorna o valor de uma chave.
+     * @param key          Chave procurada, diferente de 0.
+     * @param defaultValue Valor retornado quando a chave não existir.
+     * @return o valor da chave.
+     */
+    public int get(long key, int defaultValue) {
+        int mask = this.keys.length - 1;
+        for (int slot = hash(key) & mask; this.keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (this.keys[slot] == key) {
+                return this.values[slot];
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Verifica se a chave existe.
+     * @param key Chave procurada, diferente de 0.
+     * @return Indicador de chave existente.
+     */
+    public boolean containsKey(long key) {
+        int mask = this.keys.length - 1;
+        for (int slot = hash(key) & mask; this.keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (this.keys[slot] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determina o valor de uma chave.
+     * @param key   Chave, diferente de 0.
+     * @param value Valor da chave.
+     */
+    public void put(long key, int value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("A chave 0 é reservada");
+        }
+        // Mantém a ocupação abaixo da metade da tabela
+        if (2 * (this.size + 1) > this.keys.length) {
+            this.resize(this.keys.length * 2);
+        }
+        int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.keys[slot] != 0 && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (this.keys[slot] == 0) {
+            this.keys[slot] = key;
+            this.size++;
+        }
+        this.values[slot] = value;
+    }
+
+    /**
+     * Retorna a quantidade de entradas.
+     * @return a quantidade de entradas.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove todas as entradas, mantendo a tabela alocada.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, 0L);
+        this.size = 0;
+    }
+
+    /**
+     * Realoca a tabela com uma nova capacidade.
+     * @param capacity Nova capacidade, potência de 2.
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (this.keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Espalha os bits do estado compactado.
+     * @param key Chave.
+     * @return o código de espalhamento da chave.
+     */
+    static int hash(long key) {
+        // Finalizador do MurmurHash3
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+}
@@ -0,0 +1,378 @@
+package game.search;
+
+import game.BoardGameMoveEnum;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Autômato de descarte de sequências de movimentos duplicadas.
+ * <p>
+ * Uma sequência de movimentos é duplicada quando existe outra sequência com
+ * o mesmo efeito (mesma posição final do branco e mesma troca das peças) que
+ * é mais curta, ou do mesmo tamanho e menor na ordem dos movimentos, e que
+ * não sai do retângulo percorrido pela primeira. Nesse caso a outra sequência
+ * é válida em qualquer tabuleiro em que a primeira seja, e um caminho que
+ * contenha a duplicada nunca é o menor caminho mais curto até um estado, de
+ * forma que pode ser descartado sem perder a resposta ótima. O par de
+ * movimentos contrários, que volta ao estado anterior, é o caso mais curto;
+ * as voltas de 12 movimentos em torno de um bloco 2x2 já são cortadas no
+ * sétimo movimento, pois duas voltas de 4 movimentos têm o mesmo efeito de
+ * uma volta no sentido contrário.
+ * <p>
+ * As sequências duplicadas mínimas são encontradas por uma busca em largura
+ * limitada pela profundidade, feita uma única vez sobre um tabuleiro sem
+ * bordas, e reunidas em um autômato de Aho-Corasick. O estado do autômato
+ * representa o maior final do caminho que ainda pode completar uma
+ * duplicada; as buscas em profundidade o carregam em cada nó no lugar do
+ * último movimento e consultam {@link #next(int, BoardGameMoveEnum)} ao gerar
+ * os movimentos.
+ */
+public class MoveAutomaton {
+
+    /** Estado inicial, sem movimentos anteriores. */
+    public static final int START = 0;
+    /** Indicador de movimento descartado no retorno de {@link #next(int, BoardGameMoveEnum)}. */
+    public static final int PRUNED = -1;
+    /**
+     * Profundidade padrão das sequências duplicadas. A quantidade de
+     * sequências percorridas na montagem cresce cerca de três vezes a cada
+     * nível; com 10 a montagem leva menos de um segundo e corta cerca de
+     * metade dos nós do IDA* no tabuleiro 4x4.
+     */
+    public static final int DEFAULT_DEPTH = 10;
+    /** Menor profundidade aceita, que descarta os movimentos contrários. */
+    public static final int MIN_DEPTH = 2;
+    /** Movimentos indexados pelo ordinal. */
+    private static final BoardGameMoveEnum[] MOVES = BoardGameMoveEnum.values();
+    /** Quantidade de movimentos, incluindo o desconhecido. */
+    private static final int COUNT = MOVES.length;
+
+    /** Autômato padrão, montado no primeiro uso. */
+    private static MoveAutomaton defaultAutomaton;
+
+    /** Profundidade máxima das sequências duplicadas. */
+    private final int depth;
+    /** Próximo estado por estado e ordinal do movimento, {@link #PRUNED} se descartado. */
+    private final int[] transitions;
+    /** Quantidade de sequências duplicadas mínimas encontradas. */
+    private final int duplicates;
+
+    /**
+     * Monta o autômato com as sequências duplicadas de até a profundidade
+     * informada.
+     * @param depth Profundidade máxima das sequências duplicadas, pelo menos
+     *              {@link #MIN_DEPTH}.
+     */
+    public MoveAutomaton(int depth) {
+        if (depth < MIN_DEPTH) {
+            throw new IllegalArgumentException("Profundidade do autômato menor que " + MIN_DEPTH + ": " + depth);
+        }
+        this.depth = depth;
+        Enumeration enumeration = new Enumeration(depth);
+        int[] table = compile(enumeration.duplicates);
+        // Cada nível procura as duplicadas que não contêm duplicadas mais curtas
+        for (int length = 1; length <= depth; length++) {
+            enumeration.enumerate(table, length);
+            table = compile(enumeration.duplicates);
+        }
+        this.transitions = table;
+        this.duplicates = enumeration.duplicates.size();
+    }
+
+    /**
+     * Retorna o autômato padrão, com a profundidade da propriedade
+     * {@code game.movePruningDepth} ou {@link #DEFAULT_DEPTH}. Use
+     * {@link #MIN_DEPTH} para descartar apenas os movimentos contrários.
+     * @return o autômato padrão.
+     */
+    public static synchronized MoveAutomaton getDefault() {
+        if (null == defaultAutomaton) {
+            defaultAutomaton = new MoveAutomaton(Integer.getInteger("game.movePruningDepth", DEFAULT_DEPTH));
+        }
+        return defaultAutomaton;
+    }
+
+    /**
+     * Retorna o estado após um movimento.
+     * @param state    Estado atual do autômato.
+     * @param movement Movimento a ser executado.
+     * @return o próximo estado, ou {@link #PRUNED} se o movimento completa uma
+     *         sequência duplicada.
+     */
+    public int next(int state, BoardGameMoveEnum movement) {
+        return this.transitions[state * COUNT + movement.ordinal()];
+    }
+
+    /**
+     * Retorna a profundidade máxima das sequências duplicadas.
+     * @return a profundidade máxima.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Retorna a quantidade de estados do autômato.
+     * @return a quantidade de estados.
+     */
+    public int size() {
+        return this.transitions.length / COUNT;
+    }
+
+    /**
+     * Retorna a quantidade de sequências duplicadas mínimas encontradas.
+     * @return a quantidade de sequências duplicadas.
+     */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Monta a tabela de transições do autômato de Aho-Corasick das sequências
+     * duplicadas.
+     * @param duplicates Sequências duplicadas, com os ordinais dos movimentos.
+     * @return as transições por estado e ordinal, {@link #PRUNED} quando o
+     *         movimento completa uma duplicada.
+     */
+    private static int[] compile(List<byte[]> duplicates) {
+        // Árvore de prefixos das duplicadas
+        int[] children = new int[COUNT * 16];
+        Arrays.fill(children, -1);
+        boolean[] terminal = new boolean[16];
+        int nodes = 1;
+        for (byte[] sequence : duplicates) {
+            int node = 0;
+            for (byte move : sequence) {
+                int child = children[node * COUNT + move];
+                if (child < 0) {
+                    if (nodes == terminal.length) {
+                        int length = children.length;
+                        children = Arrays.copyOf(children, length << 1);
+                        Arrays.fill(children, length, children.length, -1);
+                        terminal = Arrays.copyOf(terminal, nodes << 1);
+                    }
+                    child = nodes++;
+                    children[node * COUNT + move] = child;
+                }
+                node = child;
+            }
+            terminal[node] = true;
+        }
+        // Completa as transições pelos finais mais longos, em largura
+        int[] fail = new int[nodes];
+        boolean[] dead = new boolean[nodes];
+        int[] queue = new int[nodes];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        while (head < tail) {
+            int node = queue[head++];
+            dead[node] = terminal[node] || dead[fail[node]];
+            for (int move = 1; move < COUNT; move++) {
+                int child = children[node * COUNT + move];
+                int fallback = node == 0 ? 0 : children[fail[node] * COUNT + move];
+                if (child < 0) {
+                    children[node * COUNT + move] = fallback;
+                } else {
+                    fail[child] = fallback;
+                    queue[tail++] = child;
+                }
+            }
+        }
+        // Renumera os estados vivos, mantendo a raiz como estado inicial
+        int[] ids = new int[nodes];
+        int count = 0;
+        for (int node = 0; node < nodes; node++) {
+            ids[node] = dead[node] ? PRUNED : count++;
+        }
+        int[] result = new int[count * COUNT];
+        Arrays.fill(result, PRUNED);
+        for (int node = 0; node < nodes; node++) {
+            if (!dead[node]) {
+                for (int move = 1; move < COUNT; move++) {
+                    result[ids[node] * COUNT + move] = ids[children[node * COUNT + move]];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Busca das sequências duplicadas sobre um tabuleiro sem bordas, simulado
+     * por uma grade grande o bastante para qualquer sequência da profundidade
+     * máxima, com o branco no centro.
+     */
+    private static final class Enumeration {
+
+        /** Largura da grade. */
+        private final int side;
+        /** Origem de cada peça em cada casa; o branco é a peça da origem. */
+        private final int[] grid;
+        /** Casa do branco após cada quantidade de movimentos. */
+        private final int[] blanks;
+        /** Retângulo percorrido após cada quantidade de movimentos, em {@link #bound(int, int, int, int)}. */
+        private final int[] bounds;
+        /** Movimentos da sequência atual. */
+        private final byte[] sequence;
+        /** Retângulos das sequências aceitas, pelo efeito. */
+        private final Map<String, int[]> effects = new HashMap<>();
+        /** Sequências duplicadas mínimas encontradas. */
+        private final List<byte[]> duplicates = new ArrayList<>();
+
+        /**
+         * Prepara a grade e registra a sequência vazia.
+         * @param depth Profundidade máxima das sequências.
+         */
+        Enumeration(int depth) {
+            this.side = 2 * depth + 1;
+            this.grid = new int[this.side * this.side];
+            for (int index = 0; index < this.grid.length; index++) {
+                this.grid[index] = index;
+            }
+            this.blanks = new int[depth + 1];
+            this.bounds = new int[depth + 1];
+            this.sequence = new byte[depth];
+            this.blanks[0] = depth * this.side + depth;
+            this.bounds[0] = bound(depth, depth, depth, depth);
+            this.record(0);
+        }
+
+        /**
+         * Percorre as sequências de um tamanho que não contêm duplicadas mais
+         * curtas, na ordem dos movimentos, e separa as duplicadas.
+         * @param table  Transições do autômato das duplicadas mais curtas.
+         * @param length Tamanho das sequências.
+         */
+        void enumerate(int[] table, int length) {
+            this.enumerate(table, START, 0, length);
+        }
+
+        /**
+         * Percorre as continuações da sequência atual.
+         * @param table  Transições do autômato das duplicadas mais curtas.
+         * @param state  Estado do autômato após a sequência atual.
+         * @param moves  Tamanho da sequência atual.
+         * @param length Tamanho das sequências procuradas.
+         */
+        private void enumerate(int[] table, int state, int moves, int length) {
+            if (moves == length) {
+                if (this.isDuplicate(length)) {
+                    this.duplicates.add(Arrays.copyOf(this.sequence, length));
+                } else {
+                    this.record(length);
+                }
+                return;
+            }
+            int blank = this.blanks[moves];
+            int bound = this.bounds[moves];
+            for (int move = 1; move < COUNT; move++) {
+                int next = table[state * COUNT + move];
+                if (next == PRUNED) {
+                    continue;
+                }
+                int row = blank / this.side + MOVES[move].getRowMove();
+                int column = blank % this.side + MOVES[move].getColumnMove();
+                int target = row * this.side + column;
+                // Executa o movimento trocando o branco com a peça vizinha
+                this.swap(blank, target);
+                this.blanks[moves + 1] = target;
+                this.bounds[moves + 1] = bound(
+                        Math.min(bound & 0xFF, row), Math.max(bound >>> 8 & 0xFF, row),
+                        Math.min(bound >>> 16 & 0xFF, column), Math.max(bound >>> 24, column));
+                this.sequence[moves] = (byte) move;
+                this.enumerate(table, next, moves + 1, length);
+                this.swap(blank, target);
+            }
+        }
+
+        /**
+         * Compacta um retângulo em um inteiro, um byte por limite.
+         * @param minRow    Menor linha.
+         * @param maxRow    Maior linha.
+         * @param minColumn Menor coluna.
+         * @param maxColumn Maior coluna.
+         * @return o retângulo compactado.
+         */
+        private static int bound(int minRow, int maxRow, int minColumn, int maxColumn) {
+            return minRow | maxRow << 8 | minColumn << 16 | maxColumn << 24;
+        }
+
+        /**
+         * Verifica se um retângulo está contido em outro.
+         * @param inner Retângulo compactado interno.
+         * @param outer Retângulo compactado externo.
+         * @return Indicador de retângulo contido.
+         */
+        private static boolean contains(int outer, int inner) {
+            return (inner & 0xFF) >= (outer & 0xFF) && (inner >>> 8 & 0xFF) <= (outer >>> 8 & 0xFF)
+                    && (inner >>> 16 & 0xFF) >= (outer >>> 16 & 0xFF) && inner >>> 24 <= outer >>> 24;
+        }
+
+        /**
+         * Troca o conteúdo de duas casas da grade.
+         * @param first  Primeira casa.
+         * @param second Segunda casa.
+         */
+        private void swap(int first, int second) {
+            int tile = this.grid[first];
+            this.grid[first] = this.grid[second];
+            this.grid[second] = tile;
+        }
+
+        /**
+         * Verifica se uma sequência aceita antes tem o mesmo efeito da
+         * sequência atual sem sair do retângulo percorrido por ela.
+         * @param length Tamanho da sequência atual.
+         * @return Indicador de sequência duplicada.
+         */
+        private boolean isDuplicate(int length) {
+            int[] candidates = this.effects.get(this.effect(length));
+            if (null != candidates) {
+                for (int other : candidates) {
+                    if (contains(this.bounds[length], other)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Registra o efeito e o retângulo da sequência atual.
+         * @param length Tamanho da sequência atual.
+         */
+        private void record(int length) {
+            // Quase todos os efeitos têm uma única sequência aceita
+            this.effects.merge(this.effect(length), new int[] {this.bounds[length]}, (old, added) -> {
+                int[] result = Arrays.copyOf(old, old.length + 1);
+                result[old.length] = added[0];
+                return result;
+            });
+        }
+
+        /**
+         * Descreve o efeito da sequência atual pelas casas alteradas, em
+         * ordem, cada uma com a origem da peça que ficou nela.
+         * @param length Tamanho da sequência atual.
+         * @return a descrição do efeito.
+         */
+        private String effect(int length) {
+            int[] cells = Arrays.copyOf(this.blanks, length + 1);
+            Arrays.sort(cells);
+            StringBuilder result = new StringBuilder();
+            for (int i = 0; i < cells.length; i++) {
+                int cell = cells[i];
+                // Apenas as casas percorridas pelo branco podem ter sido alteradas
+                if ((i == 0 || cell != cells[i - 1]) && this.grid[cell] != cell) {
+                    result.append((char) cell).append((char) this.grid[cell]);
+                }
+            }
+            return result.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,163 @@
+package game.search;
+
+import game.BoardGameMoveEnum;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Armazenamento dos nós gerados pela busca, fora do heap.
+ * <p>
+ * Cada nó ocupa um registro de 16 bytes em blocos de memória direta
+ * ({@link ByteBuffer#allocateDirect(int)}) e é identificado por um índice
+ * inteiro:
+ * <pre>
+ * 0..7   estado compactado
+ * 8..11  índice do pai, -1 para a raiz
+ * 12..13 quantidade de movimentos (g)
+ * 14     estimativa de movimentos restantes (h), de 0 a 255
+ * 15     ordinal do movimento que gerou o nó
+ * </pre>
+ * Os blocos são alocados conforme a necessidade e mantidos entre as buscas:
+ * {@link #clear()} apenas volta o contador de nós para zero. Dessa forma uma
+ * busca com dezenas de milhões de nós não cria nenhum objeto por nó, e o
+ * coletor de lixo enxerga apenas os poucos blocos.
+ */
+public class NodeArena {
+
+    /** Tamanho de cada registro, em bytes. */
+    private static final int RECORD_BYTES = 16;
+    /** Quantidade de bits do índice do registro dentro do bloco. */
+    private static final int CHUNK_BITS = 16;
+    /** Quantidade de registros por bloco (1 MiB por bloco). */
+    private static final int CHUNK_RECORDS = 1 << CHUNK_BITS;
+    /** Máscara do índice do registro dentro do bloco. */
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+    /** Posição do índice do pai no registro. */
+    private static final int PARENT_OFFSET = 8;
+    /** Posição da quantidade de movimentos no registro. */
+    private static final int MOVES_OFFSET = 12;
+    /** Posição da estimativa no registro. */
+    private static final int ESTIMATE_OFFSET = 14;
+    /** Posição do movimento no registro. */
+    private static final int MOVE_OFFSET = 15;
+    /** Movimentos indexados pelo ordinal. */
+    private static final BoardGameMoveEnum[] MOVES = BoardGameMoveEnum.values();
+
+    /** Blocos de registros. */
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    /** Quantidade de nós armazenados. */
+    private int size;
+
+    /**
+     * Adiciona um nó.
+     * @param state    Estado compactado.
+     * @param moves    Quantidade de movimentos até o estado.
+     * @param estimate Estimativa de movimentos restantes, de 0 a 255.
+     * @param parent   Índice do pai, -1 para a raiz.
+     * @param move     Movimento que gerou o nó.
+     * @return o índice do novo nó.
+     */
+    public int add(long state, int moves, int estimate, int parent, BoardGameMoveEnum move) {
+        int chunk = this.size >>> CHUNK_BITS;
+        if (chunk == this.chunks.length) {
+            if (this.size == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Capacidade de " + Integer.MAX_VALUE + " nós esgotada");
+            }
+            this.chunks = Arrays.copyOf(this.chunks, chunk + 1);
+            this.chunks[chunk] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_BYTES)
+                    .order(ByteOrder.nativeOrder());
+        }
+        ByteBuffer buffer = this.chunks[chunk];
+        int offset = (this.size & CHUNK_MASK) * RECORD_BYTES;
+        buffer.putLong(offset, state);
+        buffer.putInt(offset + PARENT_OFFSET, parent);
+        buffer.putShort(offset + MOVES_OFFSET, (short) moves);
+        buffer.put(offset + ESTIMATE_OFFSET, (byte) estimate);
+        buffer.put(offset + MOVE_OFFSET, (byte) move.ordinal());
+        return this.size++;
+    }
+
+    /**
+     * Retorna o estado de um nó.
+     * @param node Índice do nó.
+     * @return o estado compactado.
+     */
+    public long getState(int node) {
+        return this.chunks[node >>> CHUNK_BITS].getLong((node & CHUNK_MASK) * RECORD_BYTES);
+    }
+
+    /**
+     * Retorna o índice do pai de um nó.
+     * @param node Índice do nó.
+     * @return o índice do pai, -1 para a raiz.
+     */
+    public int getParent(int node) {
+        return this.chunks[node >>> CHUNK_BITS].getInt((node & CHUNK_MASK) * RECORD_BYTES + PARENT_OFFSET);
+    }
+
+    /**
+     * Retorna a quantidade de movimentos até um nó.
+     * @param node Índice do nó.
+     * @return a quantidade de movimentos.
+     */
+    public int getMoves(int node) {
+        return this.chunks[node >>> CHUNK_BITS].getShort((node & CHUNK_MASK) * RECORD_BYTES + MOVES_OFFSET);
+    }
+
+    /**
+     * Retorna a estimativa de movimentos restantes de um nó.
+     * @param node Índice do nó.
+     * @return a estimativa de movimentos restantes.
+     */
+    public int getEstimate(int node) {
+        return this.chunks[node >>> CHUNK_BITS].get((node & CHUNK_MASK) * RECORD_BYTES + ESTIMATE_OFFSET) & 0xFF;
+    }
+
+    /**
+     * Retorna o movimento que gerou um nó.
+     * @param node Índice do nó.
+     * @return o movimento que gerou o nó.
+     */
+    public BoardGameMoveEnum getMove(int node) {
+        return MOVES[this.chunks[node >>> CHUNK_BITS].get((node & CHUNK_MASK) * RECORD_BYTES + MOVE_OFFSET)];
+    }
+
+    /**
+     * Retorna os movimentos da raiz até o nó.
+     * @param node Índice do nó.
+     * @return os movimentos na ordem de execução.
+     */
+    public BoardGameMoveEnum[] path(int node) {
+        BoardGameMoveEnum[] result = new BoardGameMoveEnum[this.getMoves(node)];
+        int depth = result.length;
+        for (int current = node; this.getParent(current) >= 0; current = this.getParent(current)) {
+            result[--depth] = this.getMove(current);
+        }
+        return result;
+    }
+
+    /**
+     * Retorna a quantidade de nós armazenados.
+     * @return a quantidade de nós armazenados.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retorna a memória reservada pelos blocos.
+     * @return a memória reservada, em bytes.
+     */
+    public long getReservedBytes() {
+        return (long) this.chunks.length * CHUNK_RECORDS * RECORD_BYTES;
+    }
+
+    /**
+     * Remove todos os nós, mantendo os blocos alocados.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+}
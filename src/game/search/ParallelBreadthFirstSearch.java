@@ -0,0 +1,431 @@
+package game.search;
+
+import game.Board;
+import game.BoardGameMoveEnum;
+import game.BoardLayout;
+import game.BoardState;
+import game.heuristic.IHeuristic;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classe para busca pelo método de Busca em Largura em várias threads.
+ * <p>
+ * Cada nível da árvore é expandido por completo antes do próximo: a fronteira
+ * do nível é dividida entre as threads de um {@link ForkJoinPool} e os
+ * estados novos são reunidos na fronteira do nível seguinte. Os estados
+ * visitados ficam em um mapa de bits atômico indexado pelo ranking da
+ * permutação, e apenas a thread que marca o estado grava o movimento que o
+ * alcançou, usado depois para refazer o caminho.
+ * <p>
+ * Nos tabuleiros maiores o mapa de bits não cabe em memória; os estados
+ * visitados ficam então em uma tabela de espalhamento atômica de capacidade
+ * fixa. Quando a capacidade se esgota a busca é interrompida como pelo limite
+ * de {@link SearchBudget.Limit#RESIDENT_NODES estados em memória}, devolvendo
+ * o caminho até o estado de menor estimativa alcançado.
+ * <p>
+ * As duas fronteiras e os vetores de estados novos de cada thread são
+ * reaproveitados entre os níveis.
+ * <p>
+ * As threads são criadas a cada busca e encerradas ao seu término, de forma
+ * que uma instância sem busca em andamento não mantém threads.
+ */
+public class ParallelBreadthFirstSearch implements ISearchMethod {
+
+    /** Quantidade de estados expandidos sem nova divisão de tarefa. */
+    private static final int CHUNK = 1024;
+    /** Maior quantidade de casas que usa o mapa de bits (10! estados). */
+    private static final int MAX_BITSET_CELLS = 10;
+    /** Quantidade padrão de estados da tabela de espalhamento. */
+    private static final int DEFAULT_CAPACITY = 1 << 22;
+    /** Movimentos indexados pelo ordinal. */
+    private static final BoardGameMoveEnum[] MOVES = BoardGameMoveEnum.values();
+
+    /** Quantidade de threads. */
+    private final int parallelism;
+    /** Quantidade máxima de estados da tabela de espalhamento. */
+    private final int capacity;
+    /** Dimensões e resultado esperado do tabuleiro da busca atual. */
+    private BoardLayout layout;
+    /** Mapa de bits dos estados visitados, nulo nos tabuleiros maiores. */
+    private AtomicLongArray visited;
+    /** Tabela de espalhamento dos estados visitados, nula quando há mapa de bits. */
+    private AtomicLongArray states;
+    /** Quantidade de estados da tabela de espalhamento. */
+    private final AtomicInteger stateCount = new AtomicInteger();
+    /**
+     * Ordinal do movimento que alcançou cada estado, indexado pelo ranking ou
+     * pela posição na tabela de espalhamento.
+     */
+    private byte[] reachedBy;
+    /** Indicador de resposta encontrada. */
+    private final AtomicBoolean found = new AtomicBoolean();
+    /** Quantidade de estados gerados. */
+    private final LongAdder generated = new LongAdder();
+    /** Quantidade de estados expandidos. */
+    private final LongAdder expanded = new LongAdder();
+    /** Quantidade de estados descartados por já terem sido visitados. */
+    private final LongAdder duplicates = new LongAdder();
+    /** Fronteira do nível atual, reaproveitada entre os níveis e as buscas. */
+    private long[] frontier = new long[0];
+    /** Fronteira do próximo nível, reaproveitada entre os níveis e as buscas. */
+    private long[] next = new long[0];
+    /** Estados novos de um trecho da fronteira, um vetor por thread. */
+    private final ThreadLocal<long[]> chunkStates = ThreadLocal.withInitial(() -> new long[4 * CHUNK]);
+    /** Estatísticas da última busca. */
+    private SearchStatistics statistics;
+    /** Limites da busca atual. */
+    private SearchBudget budget;
+    /** Estado de menor estimativa expandido na busca atual, atualizado com bloqueio. */
+    private final PartialResult partial = new PartialResult();
+    /** Estimativa usada para escolher o melhor estado alcançado, nula sem limites. */
+    private IHeuristic partialHeuristic;
+
+    /**
+     * Classe para busca em largura usando todos os processadores.
+     */
+    public ParallelBreadthFirstSearch() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Classe para busca em largura em várias threads.
+     * @param parallelism Quantidade de threads.
+     */
+    public ParallelBreadthFirstSearch(int parallelism) {
+        this(parallelism, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Classe para busca em largura em várias threads.
+     * @param parallelism Quantidade de threads.
+     * @param capacity    Quantidade máxima de estados visitados nos
+     *                    tabuleiros maiores que 10 casas.
+     */
+    public ParallelBreadthFirstSearch(int parallelism, int capacity) {
+        this.parallelism = parallelism;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public Map<Integer, Board> executeSearch(Board board, SearchBudget budget) {
+        this.statistics = new SearchStatistics(this.getClass().getSimpleName());
+        this.budget = budget;
+        budget.start();
+        // Tabuleiros sem solução são descartados sem busca
+        if (!board.isSolvable()) {
+            this.statistics.finish(false, -1);
+            SearchMetrics.publish(this.statistics);
+            return new HashMap<>();
+        }
+        // Descarta as estruturas de uma busca anterior
+        this.resetVisited(board.getLayout());
+        this.found.set(board.isResult());
+        this.generated.reset();
+        this.generated.increment();
+        this.expanded.reset();
+        this.duplicates.reset();
+        if (null == this.visited) {
+            // A capacidade da tabela também pode interromper a busca
+            this.partial.reset(PartialResult.blindEstimate(this.layout), board.getState());
+        } else {
+            this.partial.resetBlind(this.layout, budget, board.getState());
+        }
+        this.partialHeuristic = this.partial.getHeuristic();
+        this.markVisited(board.getState(), BoardGameMoveEnum.UNKNOWN);
+        this.frontier = ensureCapacity(this.frontier, 1);
+        this.frontier[0] = board.getState();
+        int frontierSize = 1;
+        int maxHeight = AbstractSearchMethod.getMaxHeight(this.layout);
+        int maxStates = null != this.visited ? this.layout.permutations() : this.capacity;
+        this.statistics.updateOpen(1L);
+        this.statistics.startSearch();
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            // Expande um nível por vez até encontrar a resposta ou esgotar os estados
+            for (int depth = 0; !this.found.get() && frontierSize > 0 && depth < maxHeight
+                    && !budget.isExhausted(this.expanded.sum(), this.generated.sum() - this.duplicates.sum());
+                    depth++) {
+                this.next = ensureCapacity(this.next, (int) Math.min(4L * frontierSize, maxStates));
+                AtomicInteger nextSize = new AtomicInteger();
+                pool.invoke(new ExpandTask(this.frontier, 0, frontierSize, this.next, nextSize));
+                // As duas fronteiras ficam em memória durante a expansão do nível
+                this.statistics.updateOpen((long) frontierSize + nextSize.get());
+                long[] expandedLevel = this.frontier;
+                this.frontier = this.next;
+                this.next = expandedLevel;
+                frontierSize = nextSize.get();
+            }
+        } finally {
+            // Nenhuma tarefa fica pendente entre os níveis
+            pool.shutdown();
+        }
+        this.statistics.startPath();
+        Map<Integer, Board> result = new HashMap<>();
+        if (this.found.get()) {
+            result = AbstractSearchMethod.replay(board, this.path(board.getState(), this.layout.getGoal()));
+        } else if (null != budget.getExhausted()) {
+            // Devolve o caminho até o estado de menor estimativa
+            this.statistics.setExhausted(budget.getExhausted());
+            result = AbstractSearchMethod.replay(board, this.path(board.getState(), this.partial.getPosition()));
+        }
+        // Informa as estatísticas da operação
+        this.statistics.addGenerated(this.generated.sum());
+        this.statistics.addExpanded(this.expanded.sum());
+        this.statistics.addDuplicates(this.duplicates.sum());
+        this.statistics.updateClosed(this.generated.sum() - this.duplicates.sum());
+        this.statistics.finish(this.found.get(), result.size() - 1);
+        SearchMetrics.publish(this.statistics);
+        return result;
+    }
+
+    @Override
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Garante o tamanho de um vetor de estados, trocando-o por um maior quando
+     * necessário. O conteúdo não é preservado.
+     * @param states Vetor atual.
+     * @param size   Quantidade de estados necessária.
+     * @return o vetor atual, ou um novo com pelo menos o tamanho necessário.
+     */
+    private static long[] ensureCapacity(long[] states, int size) {
+        return states.length >= size ? states : new long[Math.max(size, states.length * 2)];
+    }
+
+    /**
+     * Prepara os estados visitados para as dimensões do tabuleiro,
+     * reaproveitando as estruturas da busca anterior quando possível.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     */
+    private void resetVisited(BoardLayout layout) {
+        this.stateCount.set(0);
+        if (!layout.equals(this.layout)) {
+            this.layout = layout;
+            if (layout.getCells() <= MAX_BITSET_CELLS) {
+                this.visited = new AtomicLongArray((layout.permutations() + 63) >>> 6);
+                this.states = null;
+                this.reachedBy = new byte[layout.permutations()];
+            } else {
+                // Mantém a ocupação da tabela abaixo da metade
+                int slots = Integer.highestOneBit(Math.max(1, this.capacity - 1)) << 2;
+                this.visited = null;
+                this.states = new AtomicLongArray(slots);
+                this.reachedBy = new byte[slots];
+            }
+            return;
+        }
+        AtomicLongArray table = null != this.visited ? this.visited : this.states;
+        for (int i = 0; i < table.length(); i++) {
+            table.set(i, 0L);
+        }
+    }
+
+    /**
+     * Marca o estado como visitado.
+     * @param state    Estado compactado.
+     * @param movement Movimento que alcançou o estado.
+     * @return Indicador de estado ainda não visitado.
+     */
+    private boolean markVisited(long state, BoardGameMoveEnum movement) {
+        if (null == this.visited) {
+            return this.markInTable(state, movement);
+        }
+        int rank = this.layout.rank(state);
+        int word = rank >>> 6;
+        long mask = 1L << rank;
+        long current;
+        do {
+            current = this.visited.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!this.visited.compareAndSet(word, current, current | mask));
+        this.reachedBy[rank] = (byte) movement.ordinal();
+        return true;
+    }
+
+    /**
+     * Marca o estado como visitado na tabela de espalhamento, com sondagem
+     * linear. Nenhum estado válido é compactado em 0, que marca posição vazia.
+     * Com a capacidade esgotada o estado não é marcado e o esgotamento é
+     * registrado no orçamento da busca.
+     * @param state    Estado compactado.
+     * @param movement Movimento que alcançou o estado.
+     * @return Indicador de estado ainda não visitado e marcado.
+     */
+    private boolean markInTable(long state, BoardGameMoveEnum movement) {
+        int mask = this.states.length() - 1;
+        int slot = LongIntHashMap.hash(state) & mask;
+        while (true) {
+            long current = this.states.get(slot);
+            if (current == state) {
+                return false;
+            }
+            if (current == 0L) {
+                // Reserva a vaga antes de ocupar a posição, mantendo a ocupação abaixo da metade
+                if (this.stateCount.incrementAndGet() > this.capacity) {
+                    this.stateCount.decrementAndGet();
+                    this.budget.exhaust(SearchBudget.Limit.RESIDENT_NODES);
+                    return false;
+                }
+                if (this.states.compareAndSet(slot, 0L, state)) {
+                    this.reachedBy[slot] = (byte) movement.ordinal();
+                    return true;
+                }
+                // Outra thread ocupou a posição; verifica novamente a mesma posição
+                this.stateCount.decrementAndGet();
+                continue;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Retorna o movimento que alcançou um estado visitado.
+     * @param state Estado compactado.
+     * @return o movimento que alcançou o estado.
+     */
+    private BoardGameMoveEnum reachedBy(long state) {
+        if (null != this.visited) {
+            return MOVES[this.reachedBy[this.layout.rank(state)]];
+        }
+        int mask = this.states.length() - 1;
+        int slot = LongIntHashMap.hash(state) & mask;
+        while (this.states.get(slot) != state) {
+            slot = (slot + 1) & mask;
+        }
+        return MOVES[this.reachedBy[slot]];
+    }
+
+    /**
+     * Registra o melhor estado expandido por um trecho da fronteira.
+     * @param estimate Estimativa do estado.
+     * @param state    Estado compactado.
+     */
+    private void offerPartial(int estimate, long state) {
+        synchronized (this.partial) {
+            this.partial.offer(estimate, state);
+        }
+    }
+
+    /**
+     * Refaz o caminho de um estado visitado até o estado inicial, desfazendo
+     * o movimento que alcançou cada estado.
+     * @param start Estado inicial.
+     * @param end   Estado visitado.
+     * @return os movimentos na ordem de execução.
+     */
+    private BoardGameMoveEnum[] path(long start, long end) {
+        BoardGameMoveEnum[] reversed = new BoardGameMoveEnum[AbstractSearchMethod.getMaxHeight(this.layout) + 1];
+        int length = 0;
+        long state = end;
+        while (state != start) {
+            BoardGameMoveEnum movement = this.reachedBy(state);
+            reversed[length++] = movement;
+            // O branco volta para a casa anterior ao movimento
+            int blank = this.layout.findBlank(state);
+            state = BoardState.move(state, blank, this.layout.target(blank, movement.getOpposite()));
+        }
+        BoardGameMoveEnum[] result = new BoardGameMoveEnum[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = reversed[length - 1 - i];
+        }
+        return result;
+    }
+
+    /**
+     * Tarefa de expansão de um trecho da fronteira.
+     */
+    private final class ExpandTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Fronteira do nível atual. */
+        private final long[] frontier;
+        /** Início do trecho, incluído. */
+        private final int from;
+        /** Fim do trecho, excluído. */
+        private final int to;
+        /** Fronteira do próximo nível. */
+        private final long[] next;
+        /** Quantidade de estados na fronteira do próximo nível. */
+        private final AtomicInteger nextSize;
+
+        ExpandTask(long[] frontier, int from, int to, long[] next, AtomicInteger nextSize) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.next = next;
+            this.nextSize = nextSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > CHUNK) {
+                // Divide o trecho ao meio
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ExpandTask(this.frontier, this.from, middle, this.next, this.nextSize),
+                        new ExpandTask(this.frontier, middle, this.to, this.next, this.nextSize));
+                return;
+            }
+            // Trechos iniciados depois de esgotado o orçamento não são expandidos
+            if (budget.isExhausted(expanded.sum(), generated.sum() - duplicates.sum())) {
+                return;
+            }
+            // Estados novos do trecho, copiados em bloco para a próxima fronteira
+            long[] local = chunkStates.get();
+            int localSize = 0;
+            // Contadores do trecho, somados uma única vez aos contadores da busca
+            long localGenerated = 0L;
+            int localEstimate = Integer.MAX_VALUE;
+            long localBest = 0L;
+            int i;
+            for (i = this.from; i < this.to && !found.get() && null == budget.getExhausted(); i++) {
+                long state = this.frontier[i];
+                if (null != partialHeuristic) {
+                    int estimate = partialHeuristic.estimate(state);
+                    if (estimate < localEstimate) {
+                        localEstimate = estimate;
+                        localBest = state;
+                    }
+                }
+                int blank = layout.findBlank(state);
+                // Movimentos válidos da casa do branco, com as casas alcançadas e as máscaras de troca
+                BoardGameMoveEnum[] movements = layout.moves(blank);
+                int[] targets = layout.targets(blank);
+                long[] deltas = layout.deltas(blank);
+                for (int m = 0; m < movements.length; m++) {
+                    BoardGameMoveEnum movement = movements[m];
+                    long child = BoardState.swap(state, targets[m], deltas[m]);
+                    localGenerated++;
+                    if (markVisited(child, movement)) {
+                        local[localSize++] = child;
+                        if (child == layout.getGoal()) {
+                            // Interrompe as demais threads
+                            found.set(true);
+                        }
+                    }
+                }
+            }
+            if (localEstimate != Integer.MAX_VALUE) {
+                offerPartial(localEstimate, localBest);
+            }
+            generated.add(localGenerated);
+            expanded.add(i - this.from);
+            duplicates.add(localGenerated - localSize);
+            int position = this.nextSize.getAndAdd(localSize);
+            System.arraycopy(local, 0, this.next, position, localSize);
+        }
+
+    }
+
+}
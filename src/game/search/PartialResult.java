@@ -0,0 +1,131 @@
+package game.search;
+
+import game.BoardLayout;
+import game.heuristic.IHeuristic;
+import game.heuristic.ManhattanHeuristic;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Melhor posição alcançada por uma busca, devolvida como resposta parcial
+ * quando o orçamento se esgota (ver {@link SearchBudget}).
+ * <p>
+ * A posição é o que a busca usa para refazer o caminho: o estado compactado,
+ * o nó da arena ou a profundidade do caminho atual. As buscas heurísticas
+ * comparam as posições pela própria estimativa; as cegas só estimam quando
+ * há limites que podem interrompê-las, usando a distância de Manhattan
+ * montada uma única vez para cada tabuleiro. Uma instância é reaproveitada
+ * entre as buscas e não é segura entre threads.
+ */
+final class PartialResult {
+
+    /** Distância de Manhattan de cada tabuleiro, usada pelas buscas cegas. */
+    private static final Map<BoardLayout, IHeuristic> BLIND_ESTIMATES = new ConcurrentHashMap<>();
+
+    /** Estimativa das posições, nula quando a busca atual não as registra. */
+    private IHeuristic heuristic;
+    /** Menor estimativa registrada. */
+    private int estimate;
+    /** Posição de menor estimativa registrada. */
+    private long position;
+
+    /**
+     * Prepara o registro de uma busca heurística, que compara as posições
+     * pela própria estimativa.
+     * @param heuristic Estimativa da busca.
+     * @param start     Posição inicial, devolvida enquanto nenhuma for registrada.
+     */
+    void reset(IHeuristic heuristic, long start) {
+        this.heuristic = heuristic;
+        this.estimate = Integer.MAX_VALUE;
+        this.position = start;
+    }
+
+    /**
+     * Prepara o registro de uma busca cega, que só estima as posições quando
+     * há limites que podem interrompê-la.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     * @param budget Limites da busca.
+     * @param start  Posição inicial, devolvida enquanto nenhuma for registrada.
+     */
+    void resetBlind(BoardLayout layout, SearchBudget budget, long start) {
+        this.reset(budget.isLimited() ? blindEstimate(layout) : null, start);
+    }
+
+    /**
+     * Retorna a distância de Manhattan usada pelas buscas cegas, montada no
+     * primeiro uso de cada tabuleiro.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     * @return a distância de Manhattan do tabuleiro.
+     */
+    static IHeuristic blindEstimate(BoardLayout layout) {
+        return BLIND_ESTIMATES.computeIfAbsent(layout, ManhattanHeuristic::new);
+    }
+
+    /**
+     * Indica se a busca atual registra as posições.
+     * @return Indicador de registro ligado.
+     */
+    boolean isTracking() {
+        return null != this.heuristic;
+    }
+
+    /**
+     * Retorna a estimativa das posições.
+     * @return a estimativa, nula quando a busca atual não registra as posições.
+     */
+    IHeuristic getHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * Registra um estado, estimado aqui, quando a busca atual registra as
+     * posições.
+     * @param state Estado compactado, que é também a posição.
+     * @return Indicador de estado mantido.
+     */
+    boolean offer(long state) {
+        return null != this.heuristic && this.offer(this.heuristic.estimate(state), state);
+    }
+
+    /**
+     * Registra uma posição já estimada, mantida quando tem a menor estimativa
+     * até o momento.
+     * @param estimate Estimativa da posição.
+     * @param position Posição alcançada.
+     * @return Indicador de posição mantida.
+     */
+    boolean offer(int estimate, long position) {
+        if (estimate < this.estimate) {
+            this.estimate = estimate;
+            this.position = position;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Registra a melhor posição de outro registro, como o de uma thread.
+     * @param other Outro registro.
+     */
+    void merge(PartialResult other) {
+        this.offer(other.estimate, other.position);
+    }
+
+    /**
+     * Retorna a menor estimativa registrada.
+     * @return a menor estimativa, {@link Integer#MAX_VALUE} se nenhuma posição foi registrada.
+     */
+    int getEstimate() {
+        return estimate;
+    }
+
+    /**
+     * Retorna a posição de menor estimativa registrada.
+     * @return a posição, ou a inicial se nenhuma foi registrada.
+     */
+    long getPosition() {
+        return position;
+    }
+
+}
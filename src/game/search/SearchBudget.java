@@ -0,0 +1,211 @@
+package game.search;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limites de uma execução de busca: tempo máximo, quantidade máxima de
+ * estados expandidos e quantidade máxima de estados mantidos em memória,
+ * além do cancelamento solicitado por outra thread.
+ * <p>
+ * O tempo é contado a partir do início de cada busca, e os limites com valor
+ * 0 não são aplicados. Quando um limite se esgota a busca termina e retorna o
+ * caminho até o melhor tabuleiro alcançado, o de menor estimativa de
+ * movimentos restantes, que não é o resultado esperado. O limite esgotado
+ * fica registrado no orçamento e nas estatísticas da busca.
+ * <p>
+ * Um orçamento deve ser usado por uma busca de cada vez.
+ */
+public class SearchBudget {
+
+    /**
+     * Limites que podem interromper a busca.
+     */
+    public enum Limit {
+
+        /** Tempo máximo. */
+        TIME("tempo"),
+        /** Quantidade máxima de estados expandidos. */
+        EXPANSIONS("estados expandidos"),
+        /** Quantidade máxima de estados em memória. */
+        RESIDENT_NODES("estados em memória"),
+        /** Cancelamento solicitado. */
+        CANCELLED("cancelamento");
+
+        /** Descrição do limite. */
+        private final String description;
+
+        Limit(String description) {
+            this.description = description;
+        }
+
+        /**
+         * Retorna a descrição do limite.
+         * @return a descrição do limite.
+         */
+        public String getDescription() {
+            return description;
+        }
+
+    }
+
+    /** Tempo máximo da busca em nanossegundos, 0 sem limite. */
+    private long timeoutNanos;
+    /** Quantidade máxima de estados expandidos, 0 sem limite. */
+    private long maxExpansions;
+    /** Quantidade máxima de estados em memória, 0 sem limite. */
+    private long maxResidentNodes;
+    /** Instante em que o tempo máximo se esgota. */
+    private long deadline;
+    /** Indicador de cancelamento solicitado. */
+    private volatile boolean cancelled;
+    /** Limite esgotado na busca atual, nulo se nenhum. */
+    private volatile Limit exhausted;
+
+    /**
+     * Orçamento sem limites, que só termina a busca por cancelamento.
+     */
+    public SearchBudget() {
+    }
+
+    /**
+     * Orçamento de busca.
+     * @param timeoutMillis    Tempo máximo em milissegundos, 0 sem limite.
+     * @param maxExpansions    Quantidade máxima de estados expandidos, 0 sem limite.
+     * @param maxResidentNodes Quantidade máxima de estados em memória, 0 sem limite.
+     */
+    public SearchBudget(long timeoutMillis, long maxExpansions, long maxResidentNodes) {
+        this.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        this.maxExpansions = maxExpansions;
+        this.maxResidentNodes = maxResidentNodes;
+    }
+
+    /**
+     * Inicia a contagem do tempo de uma busca e descarta o limite esgotado
+     * de uma busca anterior. O cancelamento é mantido.
+     */
+    void start() {
+        this.deadline = System.nanoTime() + this.timeoutNanos;
+        this.exhausted = this.cancelled ? Limit.CANCELLED : null;
+    }
+
+    /**
+     * Verifica se algum limite se esgotou, registrando o primeiro esgotado.
+     * @param expanded Quantidade de estados expandidos até o momento.
+     * @param resident Quantidade de estados em memória no momento.
+     * @return Indicador de limite esgotado.
+     */
+    boolean isExhausted(long expanded, long resident) {
+        if (null != this.exhausted) {
+            return true;
+        }
+        Limit limit = null;
+        if (this.cancelled) {
+            limit = Limit.CANCELLED;
+        } else if (this.maxExpansions > 0L && expanded >= this.maxExpansions) {
+            limit = Limit.EXPANSIONS;
+        } else if (this.maxResidentNodes > 0L && resident >= this.maxResidentNodes) {
+            limit = Limit.RESIDENT_NODES;
+        } else if (this.timeoutNanos > 0L && System.nanoTime() - this.deadline >= 0L) {
+            limit = Limit.TIME;
+        }
+        if (null != limit) {
+            this.exhausted = limit;
+        }
+        return null != limit;
+    }
+
+    /**
+     * Registra um limite esgotado pela própria busca, como a capacidade de
+     * uma tabela de estados, quando nenhum outro foi registrado antes.
+     * @param limit Limite esgotado.
+     */
+    void exhaust(Limit limit) {
+        if (null == this.exhausted) {
+            this.exhausted = limit;
+        }
+    }
+
+    /**
+     * Verifica se algum limite foi definido. Sem limites a busca só termina
+     * antes da resposta por cancelamento.
+     * @return Indicador de limite definido.
+     */
+    public boolean isLimited() {
+        return this.timeoutNanos > 0L || this.maxExpansions > 0L || this.maxResidentNodes > 0L;
+    }
+
+    /**
+     * Solicita o cancelamento da busca. Pode ser chamado por qualquer thread;
+     * a busca termina na próxima verificação dos limites.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Retorna o indicador de cancelamento solicitado.
+     * @return o indicador de cancelamento solicitado.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Retorna o limite esgotado na última busca.
+     * @return o limite esgotado, nulo se a busca terminou sem esgotar limites.
+     */
+    public Limit getExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Retorna o tempo máximo da busca.
+     * @param unit Unidade do tempo.
+     * @return o tempo máximo, 0 sem limite.
+     */
+    public long getTimeout(TimeUnit unit) {
+        return unit.convert(this.timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Determina o tempo máximo da busca.
+     * @param timeout Tempo máximo, 0 sem limite.
+     * @param unit    Unidade do tempo.
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Retorna a quantidade máxima de estados expandidos.
+     * @return a quantidade máxima de estados expandidos, 0 sem limite.
+     */
+    public long getMaxExpansions() {
+        return maxExpansions;
+    }
+
+    /**
+     * Determina a quantidade máxima de estados expandidos.
+     * @param maxExpansions a quantidade máxima de estados expandidos, 0 sem limite.
+     */
+    public void setMaxExpansions(long maxExpansions) {
+        this.maxExpansions = maxExpansions;
+    }
+
+    /**
+     * Retorna a quantidade máxima de estados em memória.
+     * @return a quantidade máxima de estados em memória, 0 sem limite.
+     */
+    public long getMaxResidentNodes() {
+        return maxResidentNodes;
+    }
+
+    /**
+     * Determina a quantidade máxima de estados em memória.
+     * @param maxResidentNodes a quantidade máxima de estados em memória, 0 sem limite.
+     */
+    public void setMaxResidentNodes(long maxResidentNodes) {
+        this.maxResidentNodes = maxResidentNodes;
+    }
+
+}
@@ -1,11 +1,57 @@
 package game.search;
 
+import game.BoardLayout;
+import game.heuristic.DistanceTable;
+import game.heuristic.IHeuristic;
+import game.heuristic.LinearConflictHeuristic;
+import game.heuristic.ManhattanHeuristic;
+import game.heuristic.PatternDatabaseHeuristic;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
 /**
  * Classe para seleção do Métodod e Busca.
  */
 public class SearchMethodFactory {
 
+    /** Quantidade de opções de método de busca, numeradas a partir de 1. */
+    public static final int METHOD_COUNT = 10;
+
+    /** Tabela de distâncias do tabuleiro padrão, carregada na primeira solicitação. */
+    private static DistanceTable distanceTable;
+
+    /**
+     * Verifica se a opção do método de busca é válida, sem criar o método.
+     * @param value Opção do método de busca.
+     * @return Indicador de opção válida.
+     */
+    public static boolean isValidMethod(int value) {
+        return value >= 1 && value <= METHOD_COUNT;
+    }
+
     public static ISearchMethod selectMethod(int value) {
+        return selectMethod(value, new ManhattanHeuristic());
+    }
+
+    /**
+     * Seleciona o método de busca.
+     * @param value     Opção do método de busca.
+     * @param heuristic Estimativa usada pelos métodos heurísticos.
+     * @return o método de busca, ou nulo se a opção for inválida.
+     */
+    public static ISearchMethod selectMethod(int value, IHeuristic heuristic) {
+        return selectMethod(value, heuristic, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Seleciona o método de busca.
+     * @param value       Opção do método de busca.
+     * @param heuristic   Estimativa usada pelos métodos heurísticos.
+     * @param parallelism Quantidade de threads usadas pelos métodos paralelos.
+     * @return o método de busca, ou nulo se a opção for inválida.
+     */
+    public static ISearchMethod selectMethod(int value, IHeuristic heuristic, int parallelism) {
         ISearchMethod result = null;
         switch (value) {
             case 1:
@@ -15,7 +61,65 @@ public class SearchMethodFactory {
                 result = new DepthSearch();
                 break;
             case 3:
-                result = new AStarSearch();
+                result = new AStarSearch(heuristic);
+                break;
+            case 4:
+                result = new IterativeDeepeningAStarSearch(heuristic);
+                break;
+            case 5:
+                result = new ParallelBreadthFirstSearch(parallelism);
+                break;
+            case 6:
+                result = new HashDistributedAStarSearch(heuristic, parallelism);
+                break;
+            case 7:
+                result = new BidirectionalBreadthFirstSearch();
+                break;
+            case 8:
+                result = new DistanceTableSearch(distanceTable());
+                break;
+            case 9:
+                result = new AnytimeRepairingAStarSearch(heuristic);
+                break;
+            case 10:
+                result = new ExternalBreadthFirstSearch();
+                break;
+            default:
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * Seleciona a estimativa usada pelos métodos heurísticos. As bases de
+     * dados de padrões são carregadas do arquivo indicado na propriedade de
+     * sistema {@code game.patternDatabase}, ou construídas em memória quando
+     * ela não for informada.
+     * @param value Opção da estimativa.
+     * @return a estimativa, ou nulo se a opção for inválida.
+     */
+    public static IHeuristic selectHeuristic(int value) {
+        return selectHeuristic(value, BoardLayout.DEFAULT);
+    }
+
+    /**
+     * Seleciona a estimativa usada pelos métodos heurísticos para tabuleiros
+     * das dimensões informadas.
+     * @param value  Opção da estimativa.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     * @return a estimativa, ou nulo se a opção for inválida.
+     */
+    public static IHeuristic selectHeuristic(int value, BoardLayout layout) {
+        IHeuristic result = null;
+        switch (value) {
+            case 1:
+                result = new ManhattanHeuristic(layout);
+                break;
+            case 2:
+                result = new LinearConflictHeuristic(layout);
+                break;
+            case 3:
+                result = selectPatternDatabase(System.getProperty("game.patternDatabase"), layout);
                 break;
             default:
                 break;
@@ -23,4 +127,47 @@ public class SearchMethodFactory {
         return result;
     }
 
+    /**
+     * Retorna a tabela de distâncias do tabuleiro padrão, carregada do arquivo
+     * indicado na propriedade de sistema {@code game.distanceTable}, ou
+     * construída em memória quando ela não for informada. A tabela é criada
+     * uma única vez e compartilhada pelos métodos de busca.
+     * @return a tabela de distâncias.
+     */
+    private static synchronized DistanceTable distanceTable() {
+        if (null == distanceTable) {
+            String path = System.getProperty("game.distanceTable");
+            try {
+                distanceTable = null == path ? new DistanceTable() : DistanceTable.load(Paths.get(path));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return distanceTable;
+    }
+
+    /**
+     * Carrega as bases de dados de padrões do arquivo, ou as constrói em
+     * memória quando não houver arquivo.
+     * @param path   Caminho do arquivo, pode ser nulo.
+     * @param layout Dimensões e resultado esperado do tabuleiro.
+     * @return a soma das bases de dados de padrões.
+     */
+    private static IHeuristic selectPatternDatabase(String path, BoardLayout layout) {
+        if (null == path) {
+            return new PatternDatabaseHeuristic(layout);
+        }
+        IHeuristic result;
+        try {
+            result = PatternDatabaseHeuristic.load(Paths.get(path));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (!layout.equals(result.getLayout())) {
+            throw new IllegalArgumentException("Base de dados " + path + " gerada para o tabuleiro "
+                    + result.getLayout() + ", esperado " + layout);
+        }
+        return result;
+    }
+
 }
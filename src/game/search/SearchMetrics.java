@@ -0,0 +1,57 @@
+package game.search;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registro dos observadores das buscas.
+ * <p>
+ * Todo método de busca publica aqui as estatísticas de cada execução. O
+ * registro começa com um {@link ConsoleSearchListener}, detalhado quando a
+ * propriedade de sistema {@code game.searchStatistics} vale {@code true};
+ * outros observadores, como um exportador de métricas, podem ser adicionados
+ * e o da saída padrão pode ser removido.
+ */
+public final class SearchMetrics {
+
+    /** Observador da saída padrão, registrado inicialmente. */
+    public static final ConsoleSearchListener CONSOLE = new ConsoleSearchListener(
+            Boolean.getBoolean("game.searchStatistics"));
+
+    /** Observadores registrados. */
+    private static final List<ISearchListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    static {
+        LISTENERS.add(CONSOLE);
+    }
+
+    private SearchMetrics() {
+    }
+
+    /**
+     * Registra um observador.
+     * @param listener Observador das buscas.
+     */
+    public static void register(ISearchListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Remove um observador.
+     * @param listener Observador das buscas.
+     */
+    public static void unregister(ISearchListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Publica as estatísticas de uma busca concluída a todos os observadores.
+     * @param statistics Estatísticas da busca.
+     */
+    public static void publish(SearchStatistics statistics) {
+        for (ISearchListener listener : LISTENERS) {
+            listener.searchFinished(statistics);
+        }
+    }
+
+}
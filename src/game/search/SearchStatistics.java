@@ -0,0 +1,316 @@
+package game.search;
+
+/**
+ * Estatísticas de uma execução de busca.
+ * <p>
+ * São contados os estados gerados (incluindo o inicial), os expandidos e os
+ * descartados por já terem sido alcançados, além do maior tamanho da lista
+ * aberta e do conjunto de estados alcançados. O tempo é medido em
+ * nanossegundos em três fases: preparação das estruturas, busca e montagem do
+ * caminho da resposta.
+ * <p>
+ * Os contadores são preenchidos pela thread que executa a busca; as buscas
+ * paralelas acumulam os seus contadores e os repassam ao final.
+ */
+public final class SearchStatistics {
+
+    /** Quantidade de nanossegundos em um segundo. */
+    private static final double NANOS_PER_SECOND = 1e9;
+    /** Quantidade de passos da busca do fator de ramificação efetivo. */
+    private static final int BISECTION_STEPS = 64;
+
+    /** Nome do método de busca. */
+    private final String method;
+    /** Instante de início da preparação. */
+    private final long begin;
+    /** Instante de início da busca. */
+    private long searchBegin;
+    /** Instante de início da montagem do caminho. */
+    private long pathBegin;
+    /** Instante de término. */
+    private long end;
+    /** Fase atual: 0 preparação, 1 busca, 2 montagem do caminho. */
+    private int phase;
+    /** Indicador de resposta encontrada. */
+    private boolean answerFound;
+    /** Quantidade de movimentos da resposta, -1 se não houver. */
+    private int solutionLength = -1;
+    /** Quantidade de estados gerados. */
+    private long generated;
+    /** Quantidade de estados expandidos. */
+    private long expanded;
+    /** Quantidade de estados descartados por já terem sido alcançados. */
+    private long duplicates;
+    /** Maior tamanho da lista aberta. */
+    private long peakOpen;
+    /** Maior tamanho do conjunto de estados alcançados. */
+    private long peakClosed;
+    /** Limite do orçamento que interrompeu a busca, nulo se nenhum. */
+    private SearchBudget.Limit exhausted;
+
+    /**
+     * Inicia as estatísticas de uma busca, marcando o início da preparação.
+     * @param method Nome do método de busca.
+     */
+    public SearchStatistics(String method) {
+        this.method = method;
+        this.begin = System.nanoTime();
+    }
+
+    /**
+     * Marca o fim da preparação e o início da busca.
+     */
+    void startSearch() {
+        this.searchBegin = System.nanoTime();
+        this.phase = 1;
+    }
+
+    /**
+     * Marca o fim da busca e o início da montagem do caminho.
+     */
+    void startPath() {
+        this.pathBegin = System.nanoTime();
+        // Sem busca, a preparação termina junto com ela
+        if (this.phase < 1) {
+            this.searchBegin = this.pathBegin;
+        }
+        this.phase = 2;
+    }
+
+    /**
+     * Marca o término da busca.
+     * @param answerFound    Indicador de resposta encontrada.
+     * @param solutionLength Quantidade de movimentos da resposta, -1 se não houver.
+     */
+    void finish(boolean answerFound, int solutionLength) {
+        this.end = System.nanoTime();
+        // As fases não iniciadas terminam junto com a busca
+        if (this.phase < 1) {
+            this.searchBegin = this.end;
+        }
+        if (this.phase < 2) {
+            this.pathBegin = this.end;
+        }
+        this.answerFound = answerFound;
+        this.solutionLength = answerFound ? solutionLength : -1;
+    }
+
+    /**
+     * Registra o limite do orçamento que interrompeu a busca.
+     * @param exhausted Limite esgotado, nulo se nenhum.
+     */
+    void setExhausted(SearchBudget.Limit exhausted) {
+        this.exhausted = exhausted;
+    }
+
+    /**
+     * Soma estados gerados.
+     * @param count Quantidade de estados.
+     */
+    void addGenerated(long count) {
+        this.generated += count;
+    }
+
+    /**
+     * Soma estados expandidos.
+     * @param count Quantidade de estados.
+     */
+    void addExpanded(long count) {
+        this.expanded += count;
+    }
+
+    /**
+     * Soma estados descartados por já terem sido alcançados.
+     * @param count Quantidade de estados.
+     */
+    void addDuplicates(long count) {
+        this.duplicates += count;
+    }
+
+    /**
+     * Atualiza o maior tamanho da lista aberta.
+     * @param size Tamanho atual da lista aberta.
+     */
+    void updateOpen(long size) {
+        if (size > this.peakOpen) {
+            this.peakOpen = size;
+        }
+    }
+
+    /**
+     * Atualiza o maior tamanho do conjunto de estados alcançados.
+     * @param size Tamanho atual do conjunto.
+     */
+    void updateClosed(long size) {
+        if (size > this.peakClosed) {
+            this.peakClosed = size;
+        }
+    }
+
+    /**
+     * Retorna o fator de ramificação efetivo: o valor {@code b} para o qual
+     * uma árvore uniforme com a profundidade da resposta teria a quantidade
+     * de estados gerados, {@code 1 + b + b² + ... + b^d = gerados}.
+     * @return o fator de ramificação efetivo, 0 se não houver resposta com movimentos.
+     */
+    public double getEffectiveBranchingFactor() {
+        if (this.solutionLength <= 0 || this.generated <= this.solutionLength + 1) {
+            return this.solutionLength <= 0 ? 0.0 : 1.0;
+        }
+        // A soma cresce com b; busca por bisseção entre 1 e a quantidade de estados
+        double low = 1.0;
+        double high = this.generated;
+        for (int i = 0; i < BISECTION_STEPS; i++) {
+            double middle = (low + high) / 2;
+            if (treeSize(middle, this.solutionLength) < this.generated) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    /**
+     * Retorna a quantidade de estados de uma árvore uniforme.
+     * @param branching Fator de ramificação.
+     * @param depth     Profundidade da árvore.
+     * @return a quantidade de estados.
+     */
+    private static double treeSize(double branching, int depth) {
+        double result = 1.0;
+        double level = 1.0;
+        for (int i = 0; i < depth; i++) {
+            level *= branching;
+            result += level;
+        }
+        return result;
+    }
+
+    /**
+     * Retorna a quantidade de estados gerados por segundo.
+     * @return a quantidade de estados gerados por segundo.
+     */
+    public double getNodesPerSecond() {
+        long nanos = this.getTotalNanos();
+        return nanos == 0L ? 0.0 : this.generated * NANOS_PER_SECOND / nanos;
+    }
+
+    /**
+     * Retorna o nome do método de busca.
+     * @return o nome do método de busca.
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Retorna o indicador de resposta encontrada.
+     * @return o indicador de resposta encontrada.
+     */
+    public boolean isAnswerFound() {
+        return answerFound;
+    }
+
+    /**
+     * Retorna a quantidade de movimentos da resposta.
+     * @return a quantidade de movimentos da resposta, -1 se não houver.
+     */
+    public int getSolutionLength() {
+        return solutionLength;
+    }
+
+    /**
+     * Retorna o limite do orçamento que interrompeu a busca.
+     * @return o limite esgotado, nulo se a busca terminou sem esgotar limites.
+     */
+    public SearchBudget.Limit getExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Retorna a quantidade de estados gerados, incluindo o inicial.
+     * @return a quantidade de estados gerados.
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * Retorna a quantidade de estados expandidos.
+     * @return a quantidade de estados expandidos.
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Retorna a quantidade de estados descartados por já terem sido alcançados.
+     * @return a quantidade de estados descartados.
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Retorna o maior tamanho da lista aberta.
+     * @return o maior tamanho da lista aberta.
+     */
+    public long getPeakOpen() {
+        return peakOpen;
+    }
+
+    /**
+     * Retorna o maior tamanho do conjunto de estados alcançados.
+     * @return o maior tamanho do conjunto de estados alcançados.
+     */
+    public long getPeakClosed() {
+        return peakClosed;
+    }
+
+    /**
+     * Retorna o tempo de preparação das estruturas.
+     * @return o tempo de preparação, em nanossegundos.
+     */
+    public long getPreparationNanos() {
+        return this.searchBegin - this.begin;
+    }
+
+    /**
+     * Retorna o tempo de busca.
+     * @return o tempo de busca, em nanossegundos.
+     */
+    public long getSearchNanos() {
+        return this.pathBegin - this.searchBegin;
+    }
+
+    /**
+     * Retorna o tempo de montagem do caminho da resposta.
+     * @return o tempo de montagem do caminho, em nanossegundos.
+     */
+    public long getPathNanos() {
+        return this.end - this.pathBegin;
+    }
+
+    /**
+     * Retorna o tempo total da execução.
+     * @return o tempo total, em nanossegundos.
+     */
+    public long getTotalNanos() {
+        return this.end - this.begin;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: resposta %s%s, %d movimentos, %d gerados, %d expandidos, %d repetidos, "
+                + "lista aberta %d, estados alcançados %d, ramificação %.3f, %.0f estados/s, "
+                + "preparação %d ns, busca %d ns, caminho %d ns",
+                this.method, this.answerFound ? "encontrada" : "não encontrada",
+                null == this.exhausted ? "" : " (limite de " + this.exhausted.getDescription() + ")",
+                this.solutionLength,
+                this.generated, this.expanded, this.duplicates, this.peakOpen, this.peakClosed,
+                this.getEffectiveBranchingFactor(), this.getNodesPerSecond(),
+                this.getPreparationNanos(), this.getSearchNanos(), this.getPathNanos());
+    }
+
+}
@@ -0,0 +1,263 @@
+package game.search;
+
+import game.BoardGameMoveEnum;
+import game.BoardLayout;
+import game.BoardState;
+import game.BoardSymmetry;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memória limitada de soluções, indexada pelo estado compactado.
+ * <p>
+ * Todo trecho final de um caminho ótimo também é ótimo, então ao guardar uma
+ * solução cada estado do caminho é guardado com a distância restante e o
+ * próximo movimento. Uma consulta que caia em qualquer estado já guardado
+ * segue a cadeia de próximos movimentos até o resultado esperado, sem busca.
+ * Quando a capacidade é atingida, o estado consultado há mais tempo é
+ * descartado (LRU); uma cadeia interrompida por um descarte conta como falha.
+ * <p>
+ * Cada estado é guardado pelo seu representante canônico (ver
+ * {@link BoardSymmetry}), com o próximo movimento na orientação do
+ * representante. Uma solução guardada responde também os tabuleiros
+ * equivalentes por simetria, e os movimentos são traduzidos de volta para a
+ * orientação do tabuleiro consultado.
+ * <p>
+ * O conteúdo pode ser gravado em arquivo e carregado depois, mantendo a
+ * ordem de uso. Formato do arquivo, em big-endian:
+ * <pre>
+ * int  MAGIC
+ * int  VERSION
+ * int  largura, int altura
+ * long resultado esperado compactado
+ * int  quantidade de estados
+ * para cada estado, do usado há mais tempo ao mais recente:
+ * long estado, int distância &lt;&lt; 8 | próximo movimento
+ * </pre>
+ * Os métodos são sincronizados, de forma que a mesma memória pode ser
+ * compartilhada por várias threads.
+ */
+public class SolutionCache {
+
+    /** Identificador do formato do arquivo ("SOL\0"). */
+    static final int MAGIC = 0x534F4C00;
+    /** Versão do formato do arquivo. */
+    static final int VERSION = 1;
+    /** Movimentos indexados pelo ordinal. */
+    private static final BoardGameMoveEnum[] MOVES = BoardGameMoveEnum.values();
+
+    /** Dimensões e resultado esperado do tabuleiro. */
+    private final BoardLayout layout;
+    /** Simetrias usadas para escolher o representante de cada estado. */
+    private final BoardSymmetry symmetry;
+    /** Quantidade máxima de estados guardados. */
+    private final int capacity;
+    /** Distância e próximo movimento de cada estado, {@code distância << 8 | movimento}, em ordem de uso. */
+    private final LinkedHashMap<Long, Integer> entries;
+    /** Quantidade de consultas respondidas. */
+    private long hits;
+    /** Quantidade de consultas sem resposta. */
+    private long misses;
+
+    /**
+     * Memória de soluções.
+     * @param layout   Dimensões e resultado esperado do tabuleiro.
+     * @param capacity Quantidade máxima de estados guardados.
+     */
+    public SolutionCache(BoardLayout layout, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacity);
+        }
+        if (!layout.isCompact()) {
+            throw new IllegalArgumentException("Memória de soluções não suporta o tabuleiro " + layout);
+        }
+        this.layout = layout;
+        this.symmetry = new BoardSymmetry(layout);
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Long, Integer>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return this.size() > SolutionCache.this.capacity;
+            }
+
+        };
+    }
+
+    /**
+     * Carrega uma memória de soluções gravada por {@link #save(Path)}.
+     * @param path     Caminho do arquivo.
+     * @param capacity Quantidade máxima de estados guardados.
+     * @return a memória de soluções do arquivo.
+     * @throws IOException Erro na leitura do arquivo ou formato inválido.
+     */
+    public static SolutionCache load(Path path, int capacity) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Arquivo não é uma memória de soluções: " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Versão de memória de soluções não suportada: " + version);
+            }
+            BoardLayout layout;
+            try {
+                layout = new BoardLayout(in.readInt(), in.readInt(), in.readLong());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Tabuleiro inválido na memória de soluções: " + path, e);
+            }
+            SolutionCache result = new SolutionCache(layout, capacity);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                result.entries.put(in.readLong(), in.readInt());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Grava o conteúdo em arquivo. O arquivo é escrito em um temporário e
+     * movido ao final, para que leitores nunca vejam um arquivo incompleto.
+     * @param path Caminho do arquivo.
+     * @throws IOException Erro na gravação do arquivo.
+     */
+    public synchronized void save(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(this.layout.getWidth());
+                out.writeInt(this.layout.getHeight());
+                out.writeLong(this.layout.getGoal());
+                out.writeInt(this.entries.size());
+                for (Map.Entry<Long, Integer> entry : this.entries.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeInt(entry.getValue());
+                }
+            }
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Procura a solução de um estado.
+     * @param state Estado compactado.
+     * @return os movimentos na ordem de execução, ou nulo se não houver.
+     */
+    public synchronized BoardGameMoveEnum[] lookup(long state) {
+        int symmetry = this.symmetry.canonicalSymmetry(state);
+        long key = this.symmetry.apply(symmetry, state);
+        Integer entry = this.entries.get(key);
+        if (null == entry) {
+            this.misses++;
+            return null;
+        }
+        BoardGameMoveEnum[] result = new BoardGameMoveEnum[entry >>> 8];
+        long current = state;
+        // Segue os próximos movimentos até o resultado esperado
+        for (int i = 0; i < result.length; i++) {
+            if (null == entry) {
+                // Parte da cadeia foi descartada
+                this.entries.remove(key);
+                this.misses++;
+                return null;
+            }
+            // Traduz o movimento do representante para a orientação do estado
+            result[i] = this.symmetry.translate(this.symmetry.inverse(symmetry), MOVES[entry & 0xFF]);
+            int blank = this.layout.findBlank(current);
+            current = BoardState.move(current, blank, this.layout.target(blank, result[i]));
+            if (i + 1 < result.length) {
+                symmetry = this.symmetry.canonicalSymmetry(current);
+                entry = this.entries.get(this.symmetry.apply(symmetry, current));
+            }
+        }
+        this.hits++;
+        return result;
+    }
+
+    /**
+     * Guarda uma solução ótima e todos os seus trechos finais. Estados que já
+     * têm uma solução igual ou menor são mantidos.
+     * @param state     Estado compactado inicial.
+     * @param movements Movimentos da solução, na ordem de execução.
+     */
+    public synchronized void store(long state, BoardGameMoveEnum[] movements) {
+        long current = state;
+        for (int i = 0; i < movements.length; i++) {
+            int distance = movements.length - i;
+            // Guarda o representante com o movimento na orientação dele
+            int symmetry = this.symmetry.canonicalSymmetry(current);
+            long key = this.symmetry.apply(symmetry, current);
+            Integer recorded = this.entries.get(key);
+            if (null == recorded || (recorded >>> 8) > distance) {
+                this.entries.put(key, (distance << 8) | this.symmetry.translate(symmetry, movements[i]).ordinal());
+            }
+            int blank = this.layout.findBlank(current);
+            current = BoardState.move(current, blank, this.layout.target(blank, movements[i]));
+        }
+    }
+
+    /**
+     * Remove todos os estados e zera os contadores.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.hits = 0L;
+        this.misses = 0L;
+    }
+
+    /**
+     * Retorna a quantidade de estados guardados.
+     * @return a quantidade de estados guardados.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Retorna a quantidade de consultas respondidas.
+     * @return a quantidade de consultas respondidas.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Retorna a quantidade de consultas sem resposta.
+     * @return a quantidade de consultas sem resposta.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Retorna as dimensões e o resultado esperado do tabuleiro.
+     * @return as dimensões e o resultado esperado do tabuleiro.
+     */
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Retorna a quantidade máxima de estados guardados.
+     * @return a quantidade máxima de estados guardados.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+}